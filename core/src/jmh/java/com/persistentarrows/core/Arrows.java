@@ -0,0 +1,17 @@
+package com.persistentarrows.core;
+
+import java.util.UUID;
+
+/**
+ * Synthetic arrow ids for the benchmarks: deterministic, but spread like random UUIDs.
+ */
+final class Arrows {
+    
+    private Arrows() {
+    }
+    
+    static UUID id(long n) {
+        long mixed = n * 0x9E3779B97F4A7C15L;
+        return new UUID(mixed ^ (mixed >>> 31), n);
+    }
+}
@@ -0,0 +1,145 @@
+package com.persistentarrows.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instant-kill attribution with N arrows tracked under the mod's TrackingRules: finding
+ * and marking the arrow behind a kill.
+ * cloudTag is the path cloud kills take (CloudProvenance): the cloud carries its source
+ * arrow, so attribution is a field read and one lookup of the tracked record.
+ * hitsByTarget is the path for kills no entity caused: the target's hits from the
+ * per-world ReverseIndex, newest first. linearScan is the scan over every recorded hit
+ * that both replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributionBenchmark {
+    private static final int ARROWS_PER_TARGET = 8;
+    
+    /**
+     * A cloud with its provenance tag, as AreaEffectCloudEntityMixin adds it to the entity.
+     */
+    static final class Cloud {
+        final UUID sourceArrow;
+        
+        Cloud(UUID sourceArrow) {
+            this.sourceArrow = sourceArrow;
+        }
+    }
+    
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int arrows;
+    
+    private TrackingRules<TrackerModel.Arrow, Integer> tracking;
+    private ReverseIndex<UUID, UUID> hitsByTarget;
+    private Map<UUID, UUID> targetByArrow;
+    private Cloud[] clouds;
+    private UUID[] targets;
+    private int cursor;
+    
+    @Setup
+    public void setup() {
+        tracking = new TrackingRules<>(new TickWheel(), new TrackingRules.Listener<>() {
+            @Override
+            public void leftColumn(TrackerModel.Arrow arrow, double x, double y, double z) {
+            }
+            
+            @Override
+            public void graceOver(TrackerModel.Arrow arrow) {
+            }
+            
+            @Override
+            public void evicted(TrackerModel.Arrow arrow, CappedIndex.Scope scope) {
+            }
+            
+            @Override
+            public void expired(TrackerModel.Arrow arrow) {
+            }
+        });
+        hitsByTarget = new ReverseIndex<>();
+        targetByArrow = new HashMap<>();
+        clouds = new Cloud[arrows];
+        targets = new UUID[Math.max(1, arrows / ARROWS_PER_TARGET)];
+        for (int t = 0; t < targets.length; t++) {
+            targets[t] = new UUID(0x7a7a7a7aL, t);
+        }
+        for (int i = 0; i < arrows; i++) {
+            UUID id = Arrows.id(i);
+            // Spread over a square of 4-block spacing, as a large farm would
+            tracking.track(new TrackerModel.Arrow(id, 0L, 0), (i % 1000) * 4.0D, 64.0D, (i / 1000) * 4.0D, null);
+            clouds[i] = new Cloud(id);
+            UUID target = targets[i % targets.length];
+            hitsByTarget.add(target, id);
+            targetByArrow.put(id, target);
+        }
+        cursor = 0;
+    }
+    
+    private int next(int bound) {
+        int i = cursor % bound;
+        if (++cursor == arrows) {
+            cursor = 0;
+        }
+        return i;
+    }
+    
+    /**
+     * Mark a tracked arrow as CloudProvenance's caller does. Returns false if it is not tracked.
+     */
+    private boolean mark(UUID arrowId) {
+        TrackerModel.Arrow arrow = tracking.get(arrowId);
+        if (arrow == null) {
+            return false;
+        }
+        arrow.marked = true;
+        return true;
+    }
+    
+    @Benchmark
+    public boolean cloudTag() {
+        return mark(clouds[next(arrows)].sourceArrow);
+    }
+    
+    @Benchmark
+    public boolean hitsByTarget() {
+        List<UUID> hits = hitsByTarget.get(targets[next(targets.length)]);
+        for (int i = hits.size() - 1; i >= 0; i--) {
+            if (mark(hits.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Benchmark
+    public boolean linearScan() {
+        UUID target = targets[next(targets.length)];
+        UUID latest = null;
+        for (Map.Entry<UUID, UUID> entry : targetByArrow.entrySet()) {
+            if (entry.getValue().equals(target)) {
+                latest = entry.getKey();
+            }
+        }
+        return latest != null && mark(latest);
+    }
+}
@@ -0,0 +1,52 @@
+package com.persistentarrows.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cleanup sweep: N tracked arrows all expire on the same tick, and the tick that
+ * removes them is measured on its own (the worst case for a single server tick).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class CleanupSweepBenchmark {
+    
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int arrows;
+    
+    private TickWheel wheel;
+    private ExpiringMap<UUID, Object> tracked;
+    
+    @Setup(Level.Invocation)
+    public void setup() {
+        wheel = new TickWheel();
+        tracked = new ExpiringMap<>(wheel);
+        for (int i = 0; i < arrows; i++) {
+            UUID id = Arrows.id(i);
+            tracked.put(id, id, 1);
+        }
+    }
+    
+    @Benchmark
+    public int sweep() {
+        wheel.advance();
+        return tracked.size();
+    }
+}
@@ -0,0 +1,51 @@
+package com.persistentarrows.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Respawn drain: N respawns spread over a 32x32 chunk area are queued, then drained
+ * in one unbudgeted pass. Measures the queue's own overhead per job.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class RespawnDrainBenchmark {
+    
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int arrows;
+    
+    private BatchQueue<UUID> queue;
+    
+    @Setup(Level.Invocation)
+    public void setup() {
+        queue = new BatchQueue<>();
+        for (int i = 0; i < arrows; i++) {
+            int chunkX = i & 31;
+            int chunkZ = (i >> 5) & 31;
+            queue.add(((long) chunkZ << 32) | (chunkX & 0xFFFFFFFFL), Arrows.id(i));
+        }
+    }
+    
+    @Benchmark
+    public int drain(Blackhole blackhole) {
+        return queue.drain(Long.MAX_VALUE, blackhole::consume);
+    }
+}
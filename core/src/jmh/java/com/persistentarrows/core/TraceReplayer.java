@@ -0,0 +1,204 @@
+package com.persistentarrows.core;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Replays a tracker trace recorded on a live server (/persistentarrows trace) through
+ * TrackerModel, one record at a time and in recorded order, then reports throughput,
+ * per-record latency percentiles and peak heap. The tracking rules and respawn staging
+ * replayed are the mod's own TrackingRules and RespawnQueue.
+ *
+ * Usage: TraceReplayer <trace folder> [speed]. Speed 0 (the default) replays as fast as
+ * possible; N paces records by their recorded wall clock, N times faster than recorded.
+ * Run with ./gradlew :core:replayTrace --args="<trace folder> [speed]", which also writes
+ * the report as JSON to build/results/replay/results.json (the persistentarrows.replayReport
+ * property) so runs can be compared, the way jmh's results.json is.
+ */
+public final class TraceReplayer {
+    
+    // File to write the JSON report to; the report is only printed without it
+    private static final String REPORT_PROPERTY = "persistentarrows.replayReport";
+    
+    private TraceReplayer() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceReplayer <trace folder> [speed]");
+            System.exit(2);
+        }
+        Path trace = Path.of(args[0]);
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 0.0D;
+        
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        
+        TrackerModel model = new TrackerModel();
+        Latencies latencies = new Latencies();
+        long[] byType = new long[16];
+        long records = 0;
+        long firstMillis = -1;
+        long wallStart = System.nanoTime();
+        long busyNanos = 0;
+        
+        try (Stream<MappedJournal.Entry> entries = MappedJournal.read(trace)) {
+            for (Iterator<MappedJournal.Entry> it = entries.iterator(); it.hasNext(); ) {
+                MappedJournal.Entry entry = it.next();
+                if (speed > 0.0D) {
+                    if (firstMillis < 0) {
+                        firstMillis = entry.timeMillis();
+                    }
+                    long due = wallStart + (long) ((entry.timeMillis() - firstMillis) * 1_000_000L / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                
+                long start = System.nanoTime();
+                model.apply(entry);
+                long took = System.nanoTime() - start;
+                
+                busyNanos += took;
+                latencies.record(took);
+                byType[Math.min(entry.type(), byType.length - 1)]++;
+                records++;
+            }
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        
+        if (records == 0) {
+            System.out.println("No trace records in " + trace);
+            return;
+        }
+        System.out.printf(Locale.ROOT, "Replayed %d records from %s (%s)%n", records, trace,
+            speed > 0.0D ? speed + "x recorded speed" : "full speed");
+        System.out.printf(Locale.ROOT, "  world ticks %d, arrow ticks %d, hits %d, kills %d, removals %d, chunk loads %d, respawn requests %d%n",
+            byType[TrackerTrace.WORLD_TICK], byType[TrackerTrace.ARROW_TICK], byType[TrackerTrace.HIT], byType[TrackerTrace.KILL],
+            byType[TrackerTrace.REMOVE], byType[TrackerTrace.CHUNK_LOAD], byType[TrackerTrace.SCHEDULE_RESPAWN]);
+        System.out.printf(Locale.ROOT, "Throughput: %.0f records/s busy, %.0f records/s wall (%.1f ms busy, %.1f ms wall)%n",
+            records * 1e9 / Math.max(1, busyNanos), records * 1e9 / Math.max(1, wallNanos), busyNanos / 1e6, wallNanos / 1e6);
+        System.out.printf(Locale.ROOT, "Latency per record: p50 %d ns, p90 %d ns, p99 %d ns, p99.9 %d ns, max %d ns%n",
+            latencies.percentile(0.50D), latencies.percentile(0.90D), latencies.percentile(0.99D), latencies.percentile(0.999D), latencies.max());
+        System.out.printf(Locale.ROOT, "Peak heap: %.1f MB%n", peakHeap / (1024.0D * 1024.0D));
+        // Everything below only depends on the trace, so equal traces give equal lines
+        System.out.printf(Locale.ROOT, "Outcome: started %d, left column %d, stopped %d, expired %d, evicted %d, hits %d, marked %d, parked %d%n",
+            model.startedTracking, model.leftColumn, model.stoppedTracking, model.expired, model.evicted, model.hitsRecorded, model.marked, model.parkedTotal);
+        System.out.printf(Locale.ROOT, "Respawns: queued %d, committed %d, missing data %d, still pending %d%n",
+            model.respawnsQueued, model.respawnsCommitted, model.respawnsMissing, model.pendingRespawns());
+        System.out.printf(Locale.ROOT, "Final state: tracked %d (peak %d), parked %d (peak %d), pending expiries %d%n",
+            model.trackedCount(), model.peakTracked, model.parkedCount(), model.peakParked, model.pendingExpiries());
+        
+        String reportPath = System.getProperty(REPORT_PROPERTY);
+        if (reportPath != null) {
+            Path report = Path.of(reportPath).toAbsolutePath();
+            Files.createDirectories(report.getParent());
+            Files.writeString(report, report(trace, speed, records, byType, busyNanos, wallNanos, latencies, peakHeap, model));
+            System.out.println("Report written to " + report);
+        }
+    }
+    
+    /**
+     * The figures printed above as a JSON object. Throughput, latency and heap vary
+     * between runs; the outcome, respawn and final state figures only depend on the trace.
+     */
+    private static String report(Path trace, double speed, long records, long[] byType, long busyNanos, long wallNanos,
+                                 Latencies latencies, long peakHeap, TrackerModel model) {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n");
+        json.append("  \"trace\": \"").append(trace.toAbsolutePath().toString().replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\n");
+        json.append(String.format(Locale.ROOT, "  \"speed\": %s,%n", speed));
+        json.append(String.format(Locale.ROOT, "  \"records\": %d,%n", records));
+        json.append(String.format(Locale.ROOT, "  \"recordsByType\": {\"worldTicks\": %d, \"arrowTicks\": %d, \"hits\": %d, \"kills\": %d, "
+                + "\"removals\": %d, \"chunkLoads\": %d, \"respawnRequests\": %d},%n",
+            byType[TrackerTrace.WORLD_TICK], byType[TrackerTrace.ARROW_TICK], byType[TrackerTrace.HIT], byType[TrackerTrace.KILL],
+            byType[TrackerTrace.REMOVE], byType[TrackerTrace.CHUNK_LOAD], byType[TrackerTrace.SCHEDULE_RESPAWN]));
+        json.append(String.format(Locale.ROOT, "  \"throughput\": {\"busyRecordsPerSecond\": %.1f, \"wallRecordsPerSecond\": %.1f, "
+                + "\"busyMillis\": %.3f, \"wallMillis\": %.3f},%n",
+            records * 1e9 / Math.max(1, busyNanos), records * 1e9 / Math.max(1, wallNanos), busyNanos / 1e6, wallNanos / 1e6));
+        json.append(String.format(Locale.ROOT, "  \"latencyNanos\": {\"p50\": %d, \"p90\": %d, \"p99\": %d, \"p99.9\": %d, \"max\": %d},%n",
+            latencies.percentile(0.50D), latencies.percentile(0.90D), latencies.percentile(0.99D), latencies.percentile(0.999D), latencies.max()));
+        json.append(String.format(Locale.ROOT, "  \"peakHeapBytes\": %d,%n", peakHeap));
+        json.append(String.format(Locale.ROOT, "  \"outcome\": {\"started\": %d, \"leftColumn\": %d, \"stopped\": %d, \"expired\": %d, "
+                + "\"evicted\": %d, \"hits\": %d, \"marked\": %d, \"parked\": %d},%n",
+            model.startedTracking, model.leftColumn, model.stoppedTracking, model.expired, model.evicted, model.hitsRecorded, model.marked, model.parkedTotal));
+        json.append(String.format(Locale.ROOT, "  \"respawns\": {\"queued\": %d, \"committed\": %d, \"missingData\": %d, \"pending\": %d},%n",
+            model.respawnsQueued, model.respawnsCommitted, model.respawnsMissing, model.pendingRespawns()));
+        json.append(String.format(Locale.ROOT, "  \"finalState\": {\"tracked\": %d, \"peakTracked\": %d, \"parked\": %d, \"peakParked\": %d, "
+                + "\"pendingExpiries\": %d}%n",
+            model.trackedCount(), model.peakTracked, model.parkedCount(), model.peakParked, model.pendingExpiries()));
+        json.append("}\n");
+        return json.toString();
+    }
+    
+    /**
+     * Log-linear latency histogram: 16 buckets per power of two, so percentiles are
+     * within about 6% without keeping every sample.
+     */
+    static final class Latencies {
+        private static final int SUB_BUCKETS = 16;
+        private final long[] counts = new long[64 * SUB_BUCKETS];
+        private long total;
+        private long max;
+        
+        void record(long nanos) {
+            long value = Math.max(1, nanos);
+            counts[index(value)]++;
+            total++;
+            max = Math.max(max, value);
+        }
+        
+        long percentile(double fraction) {
+            long rank = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0) {
+                    return Math.min(max, upperBound(i));
+                }
+            }
+            return max;
+        }
+        
+        long max() {
+            return max;
+        }
+        
+        private static int index(long value) {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            if (exponent < 4) {
+                return (int) value; // Exact below 16
+            }
+            int sub = (int) ((value >>> (exponent - 4)) & (SUB_BUCKETS - 1));
+            return exponent * SUB_BUCKETS + sub;
+        }
+        
+        private static long upperBound(int index) {
+            int exponent = index / SUB_BUCKETS;
+            if (exponent < 4) {
+                return index;
+            }
+            int sub = index % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 4)) - 1;
+        }
+    }
+}
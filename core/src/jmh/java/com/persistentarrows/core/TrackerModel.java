@@ -0,0 +1,352 @@
+package com.persistentarrows.core;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.UUID;
+
+/**
+ * One world's tracking state without Minecraft, fed from a TrackerTrace. The tracking
+ * rules and respawn staging are the mod's own (TrackingRules and RespawnQueue, the same
+ * code WorldArrowState runs); this class only stands in for the world around them, as
+ * LingeringArrowTracker, ArrowImpactDetector and RespawnPipeline do in the mod.
+ *
+ * Entities are gone: a respawn only takes the arrow out of tracking, and the respawned
+ * arrow comes back through its own ARROW_TICK records. Parked arrows go in an ArrowSlab
+ * laid out as HibernatedArrows does, without the item. Respawn commits are charged a
+ * fixed simulated cost against the budget so replays are deterministic.
+ */
+final class TrackerModel implements TrackingRules.Listener<TrackerModel.Arrow>, RespawnQueue.Handler<TrackerModel.Job> {
+    // Simulated time one respawn commit takes out of the budget
+    private static final long RESPAWN_COST_NANOS = 20_000;
+    
+    private static final int FLAG_IN_COLUMN = 1;
+    private static final int FLAG_MARKED = 2;
+    
+    static final class Arrow implements TrackingRules.Arrow {
+        final UUID id;
+        final long startTick;
+        final int owner;
+        long lastSeenTick;
+        boolean inColumn = true;
+        boolean marked;
+        boolean tracked;
+        double x;
+        double y;
+        double z;
+        
+        Arrow(UUID id, long startTick, int owner) {
+            this.id = id;
+            this.startTick = startTick;
+            this.owner = owner;
+            this.lastSeenTick = startTick;
+        }
+        
+        @Override
+        public UUID getArrowId() {
+            return id;
+        }
+        
+        @Override
+        public long getTrackingStartTick() {
+            return startTick;
+        }
+        
+        @Override
+        public boolean isInBubbleColumn() {
+            return inColumn;
+        }
+        
+        @Override
+        public void setInBubbleColumn(boolean inBubbleColumn) {
+            this.inColumn = inBubbleColumn;
+        }
+        
+        @Override
+        public long getLastSeenTick() {
+            return lastSeenTick;
+        }
+        
+        @Override
+        public void resetLastSeenTick(long currentTick) {
+            this.lastSeenTick = currentTick;
+        }
+        
+        @Override
+        public void setTracked(boolean tracked) {
+            this.tracked = tracked;
+        }
+    }
+    
+    record Job(UUID id, double x, double z, Arrow data) {}
+    
+    private final TickWheel wheel = new TickWheel();
+    private final TrackingRules<Arrow, Integer> tracking = new TrackingRules<>(wheel, this);
+    private final ExpiringMap<UUID, Boolean> hits = new ExpiringMap<>(wheel);
+    private final ExpiringMap<UUID, Boolean> persistent = new ExpiringMap<>(wheel);
+    // Parked arrows, as in HibernatedArrows: slab slots by chunk and by id
+    private final ArrowSlab parked = new ArrowSlab(64, false);
+    private final Long2ObjectMap<IntArrayList> parkedByChunk = new Long2ObjectOpenHashMap<>();
+    private final Object2IntMap<UUID> parkedSlot = new Object2IntOpenHashMap<>();
+    // Chunks seen unloading and not loaded since; everything else counts as loaded
+    private final LongSet unloadedChunks = new LongOpenHashSet();
+    private long simulatedNanos;
+    private final RespawnQueue<Job> respawns = new RespawnQueue<>(job -> TrackerTrace.chunkOf(job.x(), job.z()), this, () -> simulatedNanos);
+    private long respawnBudgetNanos = 500_000L;
+    
+    // Outcomes, for the report and to compare runs
+    long startedTracking;
+    long leftColumn;
+    long stoppedTracking;
+    long expired;
+    long evicted;
+    long hitsRecorded;
+    long marked;
+    long parkedTotal;
+    long respawnsQueued;
+    long respawnsCommitted;
+    long respawnsMissing;
+    int peakTracked;
+    int peakParked;
+    
+    TrackerModel() {
+        parkedSlot.defaultReturnValue(-1);
+        tracking.setCaps(4096, 4096, 16384);
+    }
+    
+    /**
+     * Apply one trace record.
+     */
+    void apply(MappedJournal.Entry entry) {
+        UUID id = entry.id();
+        switch (entry.type()) {
+            case TrackerTrace.CONFIG -> {
+                respawnBudgetNanos = entry.aux() * 1000L;
+                tracking.setCaps((int) entry.x(), (int) entry.y(), (int) entry.z());
+            }
+            case TrackerTrace.ARROW_TICK -> arrowTick(id, entry.x(), entry.y(), entry.z(), entry.aux());
+            case TrackerTrace.HIT -> {
+                if (tracking.isTracked(id)) {
+                    hits.put(id, Boolean.TRUE, TrackingRules.HIT_TTL_TICKS);
+                    hitsRecorded++;
+                }
+            }
+            case TrackerTrace.KILL -> {
+                persistent.put(id, Boolean.TRUE, TrackingRules.PERSISTENT_TTL_TICKS);
+                Arrow arrow = tracking.get(id);
+                if (arrow != null && !arrow.marked) {
+                    arrow.marked = true;
+                    marked++;
+                }
+            }
+            case TrackerTrace.REMOVE -> remove(id, entry.aux(), entry.x(), entry.z());
+            case TrackerTrace.CHUNK_LOAD -> chunkLoad(id.getMostSignificantBits());
+            case TrackerTrace.CHUNK_UNLOAD -> unloadedChunks.add(id.getMostSignificantBits());
+            case TrackerTrace.WORLD_TICK -> {
+                if (entry.aux() != 0) {
+                    wheel.advance();
+                }
+                respawns.commit(respawnBudgetNanos);
+            }
+            case TrackerTrace.SCHEDULE_RESPAWN -> submit(new Job(id, entry.x(), entry.z(), null));
+            default -> {
+                // Record types from a newer recorder
+            }
+        }
+    }
+    
+    private void arrowTick(UUID id, double x, double y, double z, int aux) {
+        Arrow arrow = tracking.get(id);
+        if (arrow == null && parkedSlot.getInt(id) >= 0) {
+            // Entities can load ahead of their chunk's load event
+            arrow = unpark(parkedSlot.getInt(id));
+            track(arrow);
+        }
+        if (arrow != null) {
+            arrow.x = x;
+            arrow.y = y;
+            arrow.z = z;
+        }
+        
+        if (tracking.tick(arrow, x, y, z, TrackerTrace.inColumn(aux))) {
+            arrow = new Arrow(id, wheel.now(), TrackerTrace.ownerKey(aux));
+            arrow.x = x;
+            arrow.y = y;
+            arrow.z = z;
+            track(arrow);
+            startedTracking++;
+        }
+    }
+    
+    private void remove(UUID id, int flags, double x, double z) {
+        if ((flags & TrackerTrace.REMOVE_UNLOADED) != 0) {
+            Arrow arrow = tracking.untrack(id);
+            if (arrow != null) {
+                park(TrackerTrace.chunkOf(x, z), arrow);
+            }
+            return;
+        }
+        stopTracking(id);
+        if ((flags & TrackerTrace.REMOVE_DESTROYED) != 0) {
+            hits.remove(id);
+            persistent.remove(id);
+        }
+    }
+    
+    private void stopTracking(UUID id) {
+        Arrow removed = tracking.untrack(id);
+        if (removed != null) {
+            stoppedTracking++;
+            if (removed.marked) {
+                submit(new Job(id, removed.x, removed.z, removed));
+            }
+            hits.remove(id);
+        }
+    }
+    
+    private void track(Arrow arrow) {
+        tracking.track(arrow, arrow.x, arrow.y, arrow.z, arrow.owner != 0 ? arrow.owner : null);
+        peakTracked = Math.max(peakTracked, tracking.size());
+    }
+    
+    // === RULE CALLBACKS ===
+    
+    @Override
+    public void leftColumn(Arrow arrow, double x, double y, double z) {
+        leftColumn++;
+    }
+    
+    @Override
+    public void graceOver(Arrow arrow) {
+        stopTracking(arrow.id);
+    }
+    
+    @Override
+    public void evicted(Arrow arrow, CappedIndex.Scope scope) {
+        hits.remove(arrow.id);
+        evicted++;
+    }
+    
+    @Override
+    public void expired(Arrow arrow) {
+        expired++;
+    }
+    
+    // === PARKING ===
+    
+    private void park(long chunk, Arrow arrow) {
+        int slot = parked.allocate();
+        parked.setId(slot, arrow.id.getMostSignificantBits(), arrow.id.getLeastSignificantBits());
+        parked.setPosition(slot, arrow.x, arrow.y, arrow.z);
+        parked.setTicks(slot, arrow.startTick, wheel.now());
+        parked.setCountAndFlags(slot, 1, (arrow.inColumn ? FLAG_IN_COLUMN : 0) | (arrow.marked ? FLAG_MARKED : 0));
+        parked.setOwner(slot, 0L, arrow.owner);
+        parked.setKey(slot, chunk);
+        parkedByChunk.computeIfAbsent(chunk, c -> new IntArrayList(4)).add(slot);
+        parkedSlot.put(arrow.id, slot);
+        parkedTotal++;
+        peakParked = Math.max(peakParked, parked.size());
+    }
+    
+    private Arrow unpark(int slot) {
+        long chunk = parked.key(slot);
+        IntArrayList slots = parkedByChunk.get(chunk);
+        slots.rem(slot);
+        if (slots.isEmpty()) {
+            parkedByChunk.remove(chunk);
+        }
+        Arrow arrow = wake(slot);
+        parkedSlot.removeInt(arrow.id);
+        parked.free(slot);
+        return arrow;
+    }
+    
+    /**
+     * Rebuild a parked arrow with the parked time taken off its age.
+     */
+    private Arrow wake(int slot) {
+        Arrow arrow = new Arrow(new UUID(parked.idHi(slot), parked.idLo(slot)),
+            parked.startTick(slot) + (wheel.now() - parked.stampTick(slot)), (int) parked.ownerLo(slot));
+        arrow.x = parked.x(slot);
+        arrow.y = parked.y(slot);
+        arrow.z = parked.z(slot);
+        arrow.inColumn = (parked.flags(slot) & FLAG_IN_COLUMN) != 0;
+        arrow.marked = (parked.flags(slot) & FLAG_MARKED) != 0;
+        arrow.lastSeenTick = wheel.now();
+        return arrow;
+    }
+    
+    private void chunkLoad(long chunk) {
+        unloadedChunks.remove(chunk);
+        IntArrayList slots = parkedByChunk.remove(chunk);
+        if (slots != null) {
+            for (int i = 0; i < slots.size(); i++) {
+                int slot = slots.getInt(i);
+                Arrow arrow = wake(slot);
+                parkedSlot.removeInt(arrow.id);
+                parked.free(slot);
+                track(arrow);
+            }
+        }
+        respawns.onChunkLoad(chunk);
+    }
+    
+    // === RESPAWNS ===
+    
+    private void submit(Job job) {
+        respawns.add(job);
+        respawnsQueued++;
+    }
+    
+    @Override
+    public boolean isChunkLoaded(long chunk) {
+        return !unloadedChunks.contains(chunk);
+    }
+    
+    @Override
+    public void held(Job job, long chunk) {
+        simulatedNanos += RESPAWN_COST_NANOS;
+    }
+    
+    @Override
+    public void run(Job job) {
+        simulatedNanos += RESPAWN_COST_NANOS;
+        Arrow data = job.data();
+        if (data == null) {
+            data = tracking.untrack(job.id());
+            if (data == null) {
+                int slot = parkedSlot.getInt(job.id());
+                if (slot >= 0) {
+                    data = unpark(slot);
+                }
+            }
+            if (data == null) {
+                respawnsMissing++;
+                return;
+            }
+            hits.remove(job.id());
+        }
+        respawnsCommitted++;
+    }
+    
+    int trackedCount() {
+        return tracking.size();
+    }
+    
+    int parkedCount() {
+        return parked.size();
+    }
+    
+    int pendingRespawns() {
+        return respawns.size();
+    }
+    
+    int pendingExpiries() {
+        return wheel.size();
+    }
+}
@@ -0,0 +1,65 @@
+package com.persistentarrows.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracking churn: with N arrows tracked, one arrow leaves and a new one lands per operation,
+ * and the wheel advances one tick every N operations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackingChurnBenchmark {
+    private static final long TTL_TICKS = 6000;
+    
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int arrows;
+    
+    private TickWheel wheel;
+    private ExpiringMap<UUID, Object> tracked;
+    private UUID[] ids;
+    private int cursor;
+    
+    @Setup(Level.Iteration)
+    public void setup() {
+        wheel = new TickWheel();
+        tracked = new ExpiringMap<>(wheel);
+        ids = new UUID[arrows];
+        for (int i = 0; i < arrows; i++) {
+            ids[i] = Arrows.id(i);
+            tracked.put(ids[i], ids[i], TTL_TICKS);
+        }
+        cursor = 0;
+    }
+    
+    @Benchmark
+    public Object churn() {
+        int i = cursor;
+        tracked.remove(ids[i]);
+        UUID id = Arrows.id(arrows + i);
+        ids[i] = id;
+        Object previous = tracked.put(id, id, TTL_TICKS);
+        if (++cursor == arrows) {
+            cursor = 0;
+            wheel.advance();
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,303 @@
+package com.persistentarrows.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Struct-of-arrays store for arrow records: one primitive column per field instead of
+ * an object graph per arrow. Records live in numbered slots; freed slots are reused
+ * before the slab grows. Columns are either long[] on the heap or direct buffers off
+ * the heap, so very large populations don't add to GC work.
+ * 
+ * Doubles are stored as their raw long bits and the count shares a column with the
+ * caller's flag bits. The owner is the nil UUID (0, 0) when there is none.
+ * Not thread-safe.
+ */
+public class ArrowSlab {
+    private static final int ID_HI = 0;
+    private static final int ID_LO = 1;
+    private static final int X = 2;
+    private static final int Y = 3;
+    private static final int Z = 4;
+    private static final int VX = 5;
+    private static final int VY = 6;
+    private static final int VZ = 7;
+    private static final int START_TICK = 8;
+    private static final int STAMP_TICK = 9;
+    private static final int COUNT_FLAGS = 10;
+    private static final int OWNER_HI = 11;
+    private static final int OWNER_LO = 12;
+    private static final int KEY = 13;
+    private static final int COLUMNS = 14;
+    
+    /**
+     * Bytes per slot across all columns.
+     */
+    public static final int SLOT_BYTES = COLUMNS * Long.BYTES;
+    
+    private final boolean offHeap;
+    private final Column[] columns = new Column[COLUMNS];
+    private final BitSet live = new BitSet();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int capacity;
+    private int used; // Slots handed out at least once; everything above is untouched
+    private int size;
+    
+    public ArrowSlab(int initialCapacity, boolean offHeap) {
+        this.offHeap = offHeap;
+        this.capacity = Math.max(16, initialCapacity);
+        for (int i = 0; i < COLUMNS; i++) {
+            columns[i] = offHeap ? new DirectColumn(capacity) : new HeapColumn(capacity);
+        }
+    }
+    
+    /**
+     * Take a free slot, growing the slab if there is none. The slot's fields hold
+     * whatever was stored there last and must all be set by the caller.
+     */
+    public int allocate() {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (used == capacity) {
+                grow();
+            }
+            slot = used++;
+        }
+        live.set(slot);
+        size++;
+        return slot;
+    }
+    
+    /**
+     * Give a slot back for reuse.
+     */
+    public void free(int slot) {
+        if (!live.get(slot)) {
+            throw new IllegalArgumentException("Slot " + slot + " is not allocated");
+        }
+        live.clear(slot);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+    
+    private void grow() {
+        int newCapacity = capacity + (capacity >> 1);
+        for (int i = 0; i < COLUMNS; i++) {
+            columns[i] = columns[i].grow(newCapacity, used);
+        }
+        capacity = newCapacity;
+    }
+    
+    public boolean isLive(int slot) {
+        return live.get(slot);
+    }
+    
+    /**
+     * Allocated slots in ascending order: first from 0, then nextLive(slot + 1); -1 past the end.
+     */
+    public int nextLive(int from) {
+        return live.nextSetBit(from);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+    
+    /**
+     * Bytes held by the columns, whether on or off the heap.
+     */
+    public long footprintBytes() {
+        return (long) capacity * SLOT_BYTES;
+    }
+    
+    // === FIELDS ===
+    
+    public void setId(int slot, long mostSigBits, long leastSigBits) {
+        columns[ID_HI].set(slot, mostSigBits);
+        columns[ID_LO].set(slot, leastSigBits);
+    }
+    
+    public long idHi(int slot) {
+        return columns[ID_HI].get(slot);
+    }
+    
+    public long idLo(int slot) {
+        return columns[ID_LO].get(slot);
+    }
+    
+    public void setPosition(int slot, double x, double y, double z) {
+        columns[X].set(slot, Double.doubleToRawLongBits(x));
+        columns[Y].set(slot, Double.doubleToRawLongBits(y));
+        columns[Z].set(slot, Double.doubleToRawLongBits(z));
+    }
+    
+    public double x(int slot) {
+        return Double.longBitsToDouble(columns[X].get(slot));
+    }
+    
+    public double y(int slot) {
+        return Double.longBitsToDouble(columns[Y].get(slot));
+    }
+    
+    public double z(int slot) {
+        return Double.longBitsToDouble(columns[Z].get(slot));
+    }
+    
+    public void setVelocity(int slot, double x, double y, double z) {
+        columns[VX].set(slot, Double.doubleToRawLongBits(x));
+        columns[VY].set(slot, Double.doubleToRawLongBits(y));
+        columns[VZ].set(slot, Double.doubleToRawLongBits(z));
+    }
+    
+    public double velocityX(int slot) {
+        return Double.longBitsToDouble(columns[VX].get(slot));
+    }
+    
+    public double velocityY(int slot) {
+        return Double.longBitsToDouble(columns[VY].get(slot));
+    }
+    
+    public double velocityZ(int slot) {
+        return Double.longBitsToDouble(columns[VZ].get(slot));
+    }
+    
+    /**
+     * Two tick stamps: when the record started, and a second one for the caller
+     * (last seen, parked at, ...).
+     */
+    public void setTicks(int slot, long startTick, long stampTick) {
+        columns[START_TICK].set(slot, startTick);
+        columns[STAMP_TICK].set(slot, stampTick);
+    }
+    
+    public long startTick(int slot) {
+        return columns[START_TICK].get(slot);
+    }
+    
+    public long stampTick(int slot) {
+        return columns[STAMP_TICK].get(slot);
+    }
+    
+    public void setCountAndFlags(int slot, int count, int flags) {
+        columns[COUNT_FLAGS].set(slot, ((long) count << 32) | (flags & 0xFFFFFFFFL));
+    }
+    
+    public int count(int slot) {
+        return (int) (columns[COUNT_FLAGS].get(slot) >>> 32);
+    }
+    
+    public int flags(int slot) {
+        return (int) columns[COUNT_FLAGS].get(slot);
+    }
+    
+    public void setOwner(int slot, long mostSigBits, long leastSigBits) {
+        columns[OWNER_HI].set(slot, mostSigBits);
+        columns[OWNER_LO].set(slot, leastSigBits);
+    }
+    
+    public long ownerHi(int slot) {
+        return columns[OWNER_HI].get(slot);
+    }
+    
+    public long ownerLo(int slot) {
+        return columns[OWNER_LO].get(slot);
+    }
+    
+    public boolean hasOwner(int slot) {
+        return (ownerHi(slot) | ownerLo(slot)) != 0L;
+    }
+    
+    /**
+     * Free-form grouping key for the caller (e.g. the packed chunk position).
+     */
+    public void setKey(int slot, long key) {
+        columns[KEY].set(slot, key);
+    }
+    
+    public long key(int slot) {
+        return columns[KEY].get(slot);
+    }
+    
+    // === COLUMNS ===
+    
+    private interface Column {
+        long get(int slot);
+        
+        void set(int slot, long value);
+        
+        /**
+         * A column of the new capacity holding the first used values of this one.
+         */
+        Column grow(int capacity, int used);
+    }
+    
+    private static final class HeapColumn implements Column {
+        private final long[] values;
+        
+        HeapColumn(int capacity) {
+            this.values = new long[capacity];
+        }
+        
+        private HeapColumn(long[] values) {
+            this.values = values;
+        }
+        
+        @Override
+        public long get(int slot) {
+            return values[slot];
+        }
+        
+        @Override
+        public void set(int slot, long value) {
+            values[slot] = value;
+        }
+        
+        @Override
+        public Column grow(int capacity, int used) {
+            return new HeapColumn(Arrays.copyOf(values, capacity));
+        }
+    }
+    
+    private static final class DirectColumn implements Column {
+        private final LongBuffer values;
+        
+        DirectColumn(int capacity) {
+            this.values = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+        
+        @Override
+        public long get(int slot) {
+            return values.get(slot);
+        }
+        
+        @Override
+        public void set(int slot, long value) {
+            values.put(slot, value);
+        }
+        
+        @Override
+        public Column grow(int capacity, int used) {
+            // The old buffer is released by the GC once it is unreachable
+            DirectColumn grown = new DirectColumn(capacity);
+            grown.values.put(0, values, 0, used);
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.persistentarrows.core;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Work queue grouped by a long key (a chunk position, say) and drained under a time budget.
+ * 
+ * Jobs sharing a key are run together, groups in the order their key was first used.
+ * A drain stops once the budget is used up and leaves the rest for the next drain;
+ * it always runs at least one job so the queue cannot stall.
+ */
+public class BatchQueue<J> {
+    private final Long2ObjectLinkedOpenHashMap<ArrayDeque<J>> groups = new Long2ObjectLinkedOpenHashMap<>();
+    private final LongSupplier clock;
+    private int size;
+    
+    // Metrics
+    private long drainedTotal;
+    private long deferredDrains;
+    private long deferredJobsTotal;
+    private long lastDrainNanos;
+    private int maxSize;
+    
+    /**
+     * Create a queue timed by the given nanosecond clock.
+     */
+    public BatchQueue(LongSupplier clock) {
+        this.clock = clock;
+    }
+    
+    public BatchQueue() {
+        this(System::nanoTime);
+    }
+    
+    public void add(long key, J job) {
+        groups.computeIfAbsent(key, k -> new ArrayDeque<>()).add(job);
+        size++;
+        maxSize = Math.max(maxSize, size);
+    }
+    
+    /**
+     * Run queued jobs until the budget is spent. Returns the number of jobs run.
+     */
+    public int drain(long budgetNanos, Consumer<J> runner) {
+        if (size == 0) {
+            lastDrainNanos = 0;
+            return 0;
+        }
+        
+        long start = clock.getAsLong();
+        int drained = 0;
+        
+        outer:
+        while (!groups.isEmpty()) {
+            ArrayDeque<J> jobs = groups.get(groups.firstLongKey());
+            J job;
+            while ((job = jobs.poll()) != null) {
+                size--;
+                runner.accept(job);
+                drained++;
+                if (clock.getAsLong() - start >= budgetNanos) {
+                    if (jobs.isEmpty()) {
+                        groups.removeFirst();
+                    }
+                    break outer;
+                }
+            }
+            groups.removeFirst();
+        }
+        
+        lastDrainNanos = clock.getAsLong() - start;
+        drainedTotal += drained;
+        if (size > 0) {
+            deferredDrains++;
+            deferredJobsTotal += size;
+        }
+        return drained;
+    }
+    
+    /**
+     * Visit every queued job in drain order.
+     */
+    public void forEach(Consumer<J> action) {
+        for (ArrayDeque<J> jobs : groups.values()) {
+            jobs.forEach(action);
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Largest size the queue has reached.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    public long getDrainedTotal() {
+        return drainedTotal;
+    }
+    
+    /**
+     * Drains that ran out of budget and left work behind.
+     */
+    public long getDeferredDrains() {
+        return deferredDrains;
+    }
+    
+    /**
+     * Sum over all deferring drains of the jobs left behind.
+     */
+    public long getDeferredJobsTotal() {
+        return deferredJobsTotal;
+    }
+    
+    public long getLastDrainNanos() {
+        return lastDrainNanos;
+    }
+}
@@ -0,0 +1,134 @@
+package com.persistentarrows.core;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Entries filed by cell (e.g. a chunk) and by owner, each group kept oldest first,
+ * with a cap per cell, per owner and on the whole index. Adding an entry that takes
+ * a group over its cap evicts that group's oldest entries; re-adding an entry makes
+ * it the newest again. Adding and removing are O(1) apart from the evictions.
+ * A cap of 0 means no limit. Not thread-safe.
+ */
+public class CappedIndex<K, O> {
+    
+    /**
+     * The cap an eviction was made for.
+     */
+    public enum Scope {
+        CELL, OWNER, TOTAL
+    }
+    
+    /**
+     * Told about every entry evicted to make room, after it left the index.
+     */
+    @FunctionalInterface
+    public interface Evictor<K> {
+        void evict(K key, Scope scope);
+    }
+    
+    private record Slot<O>(long cell, O owner) {}
+    
+    private final Map<K, Slot<O>> slots = new HashMap<>();
+    private final ObjectLinkedOpenHashSet<K> all = new ObjectLinkedOpenHashSet<>();
+    private final Long2ObjectMap<ObjectLinkedOpenHashSet<K>> byCell = new Long2ObjectOpenHashMap<>();
+    private final Map<O, ObjectLinkedOpenHashSet<K>> byOwner = new HashMap<>();
+    private int cellCap;
+    private int ownerCap;
+    private int totalCap;
+    
+    /**
+     * Set the caps. Lowering a cap only takes effect for the groups entries are added to next.
+     */
+    public void setCaps(int cellCap, int ownerCap, int totalCap) {
+        this.cellCap = Math.max(0, cellCap);
+        this.ownerCap = Math.max(0, ownerCap);
+        this.totalCap = Math.max(0, totalCap);
+    }
+    
+    /**
+     * File an entry as the newest of its cell and owner (owner may be null: no owner
+     * group), then evict the oldest entries of any group left over its cap.
+     */
+    public void add(K key, long cell, O owner, Evictor<K> evictor) {
+        remove(key);
+        slots.put(key, new Slot<>(cell, owner));
+        all.add(key);
+        ObjectLinkedOpenHashSet<K> cellGroup = byCell.computeIfAbsent(cell, c -> new ObjectLinkedOpenHashSet<>());
+        cellGroup.add(key);
+        ObjectLinkedOpenHashSet<K> ownerGroup = null;
+        if (owner != null) {
+            ownerGroup = byOwner.computeIfAbsent(owner, o -> new ObjectLinkedOpenHashSet<>());
+            ownerGroup.add(key);
+        }
+        
+        trim(cellGroup, cellCap, Scope.CELL, evictor);
+        if (ownerGroup != null) {
+            trim(ownerGroup, ownerCap, Scope.OWNER, evictor);
+        }
+        trim(all, totalCap, Scope.TOTAL, evictor);
+    }
+    
+    private void trim(ObjectLinkedOpenHashSet<K> group, int cap, Scope scope, Evictor<K> evictor) {
+        // A removed group is an empty set that is no longer referenced, so the loop simply ends
+        while (cap > 0 && group.size() > cap) {
+            K oldest = group.first();
+            remove(oldest);
+            evictor.evict(oldest, scope);
+        }
+    }
+    
+    /**
+     * Remove an entry. Returns false if it was not in the index.
+     */
+    public boolean remove(K key) {
+        Slot<O> slot = slots.remove(key);
+        if (slot == null) {
+            return false;
+        }
+        all.remove(key);
+        ObjectLinkedOpenHashSet<K> cellGroup = byCell.get(slot.cell());
+        cellGroup.remove(key);
+        if (cellGroup.isEmpty()) {
+            byCell.remove(slot.cell());
+        }
+        if (slot.owner() != null) {
+            ObjectLinkedOpenHashSet<K> ownerGroup = byOwner.get(slot.owner());
+            ownerGroup.remove(key);
+            if (ownerGroup.isEmpty()) {
+                byOwner.remove(slot.owner());
+            }
+        }
+        return true;
+    }
+    
+    public boolean contains(K key) {
+        return slots.containsKey(key);
+    }
+    
+    public int size() {
+        return slots.size();
+    }
+    
+    public int cellSize(long cell) {
+        ObjectLinkedOpenHashSet<K> group = byCell.get(cell);
+        return group != null ? group.size() : 0;
+    }
+    
+    public int ownerSize(O owner) {
+        ObjectLinkedOpenHashSet<K> group = byOwner.get(owner);
+        return group != null ? group.size() : 0;
+    }
+    
+    public int cellCount() {
+        return byCell.size();
+    }
+    
+    public int ownerCount() {
+        return byOwner.size();
+    }
+}
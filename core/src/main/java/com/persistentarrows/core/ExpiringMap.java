@@ -0,0 +1,155 @@
+package com.persistentarrows.core;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Hash map whose entries expire after a number of ticks of a TickWheel.
+ * Each entry owns one timeout; replacing or removing an entry cancels it, so the
+ * listener only ever hears about entries that actually ran out of time.
+ * Not thread-safe: use it from the thread that advances the wheel.
+ */
+public class ExpiringMap<K, V> {
+    
+    /**
+     * Called after an entry expired and was removed from the map.
+     */
+    @FunctionalInterface
+    public interface Listener<K, V> {
+        void onExpired(K key, V value);
+    }
+    
+    private final TickWheel wheel;
+    private final Listener<K, V> listener;
+    private final Map<K, Entry<V>> entries = new HashMap<>();
+    private final Collection<V> values = new AbstractCollection<>() {
+        @Override
+        public Iterator<V> iterator() {
+            Iterator<Entry<V>> it = entries.values().iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+                
+                @Override
+                public V next() {
+                    return it.next().value;
+                }
+            };
+        }
+        
+        @Override
+        public int size() {
+            return entries.size();
+        }
+    };
+    
+    public ExpiringMap(TickWheel wheel, Listener<K, V> listener) {
+        this.wheel = wheel;
+        this.listener = listener;
+    }
+    
+    public ExpiringMap(TickWheel wheel) {
+        this(wheel, (key, value) -> {});
+    }
+    
+    /**
+     * Store a value that expires after the given number of ticks. Returns the value
+     * it replaced, whose expiry is cancelled.
+     */
+    public V put(K key, V value, long ttlTicks) {
+        Entry<V> entry = new Entry<>(value);
+        entry.expiry = wheel.schedule(ttlTicks, () -> expire(key, entry));
+        Entry<V> previous = entries.put(key, entry);
+        if (previous == null) {
+            return null;
+        }
+        previous.expiry.cancel();
+        return previous.value;
+    }
+    
+    /**
+     * Give an existing entry a new time to live. Returns false if there is no entry.
+     */
+    public boolean refresh(K key, long ttlTicks) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return false;
+        }
+        wheel.reschedule(entry.expiry, ttlTicks);
+        return true;
+    }
+    
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null ? entry.value : null;
+    }
+    
+    public boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+    
+    /**
+     * Remove an entry and cancel its expiry. Returns the removed value, or null.
+     */
+    public V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.expiry.cancel();
+        return entry.value;
+    }
+    
+    /**
+     * Remove an entry only if it currently holds exactly this value.
+     */
+    public boolean remove(K key, V value) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.value != value) {
+            return false;
+        }
+        entries.remove(key);
+        entry.expiry.cancel();
+        return true;
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+    
+    /**
+     * Live view of the values. Do not modify the map while iterating it.
+     */
+    public Collection<V> values() {
+        return values;
+    }
+    
+    public void forEach(BiConsumer<K, V> action) {
+        entries.forEach((key, entry) -> action.accept(key, entry.value));
+    }
+    
+    private void expire(K key, Entry<V> entry) {
+        // The timeout fired, so the entry is still the current one for its key
+        entries.remove(key, entry);
+        listener.onExpired(key, entry.value);
+    }
+    
+    private static final class Entry<V> {
+        private final V value;
+        private TickWheel.Timeout expiry;
+        
+        private Entry(V value) {
+            this.value = value;
+        }
+    }
+}
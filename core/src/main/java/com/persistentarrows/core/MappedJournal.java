@@ -0,0 +1,353 @@
+package com.persistentarrows.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Append-only journal of fixed-size binary records in memory-mapped segment files.
+ * 
+ * Each segment is mapped whole when it is created, so appending is a run of absolute
+ * puts into the mapping with no locking, copying or system call. The next segment is
+ * created and mapped on a background thread while the current one fills, so a full
+ * segment is swapped for it without file I/O on the writer thread; the oldest segments
+ * beyond the limit are deleted on the same thread. Records reach the page cache as they
+ * are written, so they survive the process crashing without a force(); a full segment
+ * is never forced when it is left behind.
+ * 
+ * A record's type is written last, with a release store, and is never 0; readers load
+ * it with acquire. A record whose type reads as set is complete, and a torn or unwritten
+ * record reads as the end of its segment. Segments are never appended to again after a
+ * restart. Writing is single-threaded; reading works on a live journal from any thread.
+ */
+public class MappedJournal implements Closeable {
+    
+    public static final int RECORD_BYTES = 64;
+    
+    private static final int MAGIC = 0x50414A4C; // "PAJL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+    
+    // Creates and maps the next segment and deletes segments that fell out of the limit,
+    // so rotating never creates, maps, lists or unlinks files on the writer thread
+    private static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PersistentArrows-Journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Header: magic, version, record size, records per segment, sequence, created at (ms)
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD_BYTES = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_SEQUENCE = 16;
+    private static final int H_CREATED = 24;
+    
+    // Record: type, aux, wall clock (ms), tick, id, position
+    private static final int R_TYPE = 0;
+    private static final int R_AUX = 4;
+    private static final int R_TIME = 8;
+    private static final int R_TICK = 16;
+    private static final int R_ID_HI = 24;
+    private static final int R_ID_LO = 32;
+    private static final int R_X = 40;
+    private static final int R_Y = 48;
+    private static final int R_Z = 56;
+    
+    // Type word access with release/acquire ordering, so a set type publishes its record
+    private static final VarHandle TYPE = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    
+    /**
+     * One decoded record.
+     */
+    public record Entry(long segment, int type, int aux, long timeMillis, long tick, UUID id, double x, double y, double z) {}
+    
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final int maxSegments;
+    
+    private MappedByteBuffer segment;
+    // The segment after the current one, being created and mapped in the background
+    private CompletableFuture<MappedByteBuffer> next;
+    private long sequence;
+    private int offset;
+    private int limit;
+    private long appended;
+    
+    /**
+     * Open a journal in a directory, starting a new segment after any left by earlier runs.
+     */
+    public MappedJournal(Path directory, int recordsPerSegment, int maxSegments) throws IOException {
+        if (recordsPerSegment <= 0 || maxSegments <= 0) {
+            throw new IllegalArgumentException("Segment size and count must be positive");
+        }
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        List<Path> existing = segments(directory);
+        this.sequence = existing.isEmpty() ? 0 : sequenceOf(existing.get(existing.size() - 1));
+        this.next = CompletableFuture.completedFuture(createSegment(directory, sequence + 1, recordsPerSegment));
+        rotate();
+    }
+    
+    /**
+     * Append a record. The type must not be 0. Only fails if a full segment
+     * cannot be replaced, in which case the record is lost. Waits for the next segment
+     * only if the current one filled before the background thread had it ready.
+     */
+    public void append(int type, int aux, long tick, long idHi, long idLo, double x, double y, double z) {
+        if (type == 0) {
+            throw new IllegalArgumentException("Record type 0 marks unwritten space");
+        }
+        if (offset == limit) {
+            try {
+                rotate();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to start a journal segment in " + directory, e);
+            }
+        }
+        MappedByteBuffer buffer = segment;
+        int at = offset;
+        buffer.putInt(at + R_AUX, aux);
+        buffer.putLong(at + R_TIME, System.currentTimeMillis());
+        buffer.putLong(at + R_TICK, tick);
+        buffer.putLong(at + R_ID_HI, idHi);
+        buffer.putLong(at + R_ID_LO, idLo);
+        buffer.putDouble(at + R_X, x);
+        buffer.putDouble(at + R_Y, y);
+        buffer.putDouble(at + R_Z, z);
+        TYPE.setRelease(buffer, at + R_TYPE, type);
+        offset = at + RECORD_BYTES;
+        appended++;
+    }
+    
+    /**
+     * Write the current segment's dirty pages to disk. Only needed to survive the
+     * machine going down; the page cache already holds everything appended.
+     */
+    public void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+    
+    @Override
+    public void close() {
+        force();
+        segment = null; // The mapping is released once the buffer is collected
+        offset = limit = 0;
+        if (next != null) {
+            // The prepared segment was never written to; drop it once it exists
+            Path unused = segmentFile(directory, sequence + 1);
+            next = null;
+            BACKGROUND.execute(() -> {
+                try {
+                    Files.deleteIfExists(unused);
+                } catch (IOException e) {
+                    // Still mapped (Windows); it reads as an empty segment
+                }
+            });
+        }
+    }
+    
+    public Path getDirectory() {
+        return directory;
+    }
+    
+    /**
+     * Records appended since the journal was opened.
+     */
+    public long getAppendedCount() {
+        return appended;
+    }
+    
+    /**
+     * Bytes a journal with these settings can take on disk at most, the segment
+     * prepared in the background included.
+     */
+    public long maxBytes() {
+        return (long) (maxSegments + 1) * segmentBytes(recordsPerSegment);
+    }
+    
+    /**
+     * Swap in the prepared segment and start preparing the one after it.
+     */
+    private void rotate() throws IOException {
+        MappedByteBuffer prepared;
+        try {
+            prepared = next.join();
+        } catch (CompletionException e) {
+            // Try again on the next append rather than failing every one after it
+            long retry = sequence + 1;
+            next = CompletableFuture.supplyAsync(() -> createSegmentUnchecked(directory, retry, recordsPerSegment), BACKGROUND);
+            throw e.getCause() instanceof UncheckedIOException io ? io.getCause() : new IOException(e.getCause());
+        }
+        sequence++;
+        segment = prepared;
+        segment.putLong(H_CREATED, System.currentTimeMillis());
+        offset = HEADER_BYTES;
+        limit = segment.capacity();
+        
+        long following = sequence + 1;
+        next = CompletableFuture.supplyAsync(() -> createSegmentUnchecked(directory, following, recordsPerSegment), BACKGROUND);
+        long newestExpired = sequence - maxSegments;
+        if (newestExpired > 0) {
+            BACKGROUND.execute(() -> prune(directory, newestExpired));
+        }
+    }
+    
+    /**
+     * Create a segment file, map it whole and write its header.
+     */
+    private static MappedByteBuffer createSegment(Path directory, long sequence, int records) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segmentFile(directory, sequence), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes(records));
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(H_MAGIC, MAGIC);
+        buffer.putInt(H_VERSION, VERSION);
+        buffer.putInt(H_RECORD_BYTES, RECORD_BYTES);
+        buffer.putInt(H_CAPACITY, records);
+        buffer.putLong(H_SEQUENCE, sequence);
+        buffer.putLong(H_CREATED, System.currentTimeMillis());
+        return buffer;
+    }
+    
+    private static MappedByteBuffer createSegmentUnchecked(Path directory, long sequence, int records) {
+        try {
+            return createSegment(directory, sequence, records);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static Path segmentFile(Path directory, long sequence) {
+        return directory.resolve(String.format("%s%010d%s", PREFIX, sequence, SUFFIX));
+    }
+    
+    /**
+     * Delete every segment up to and including the given sequence.
+     */
+    private static void prune(Path directory, long newestExpired) {
+        try {
+            for (Path file : segments(directory)) {
+                if (sequenceOf(file) > newestExpired) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // Still mapped somewhere (Windows); it goes on a later rotation
+                }
+            }
+        } catch (IOException e) {
+            // Directory unreadable right now; a later rotation tries again
+        }
+    }
+    
+    private static int segmentBytes(int records) {
+        return HEADER_BYTES + records * RECORD_BYTES;
+    }
+    
+    // === READING ===
+    
+    /**
+     * Stream every record in a journal directory, oldest segment first. Segments are
+     * mapped one at a time as the stream reaches them; close the stream when done.
+     * Segments deleted by rotation in the meantime are skipped.
+     */
+    public static Stream<Entry> read(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Stream.empty();
+        }
+        return segments(directory).stream().flatMap(MappedJournal::readSegment);
+    }
+    
+    private static Stream<Entry> readSegment(Path file) {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            return Stream.empty();
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(H_MAGIC) != MAGIC || buffer.getInt(H_VERSION) != VERSION
+                || buffer.getInt(H_RECORD_BYTES) != RECORD_BYTES) {
+            return Stream.empty();
+        }
+        long sequence = buffer.getLong(H_SEQUENCE);
+        Spliterator<Entry> records = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int at = HEADER_BYTES;
+            
+            @Override
+            public boolean tryAdvance(Consumer<? super Entry> action) {
+                if (at + RECORD_BYTES > buffer.limit()) {
+                    return false;
+                }
+                int type = (int) TYPE.getAcquire(buffer, at + R_TYPE);
+                if (type == 0) {
+                    at = buffer.limit();
+                    return false;
+                }
+                action.accept(new Entry(sequence, type, buffer.getInt(at + R_AUX), buffer.getLong(at + R_TIME),
+                    buffer.getLong(at + R_TICK), new UUID(buffer.getLong(at + R_ID_HI), buffer.getLong(at + R_ID_LO)),
+                    buffer.getDouble(at + R_X), buffer.getDouble(at + R_Y), buffer.getDouble(at + R_Z)));
+                at += RECORD_BYTES;
+                return true;
+            }
+        };
+        return StreamSupport.stream(records, false);
+    }
+    
+    /**
+     * Segment files in a directory, oldest first.
+     */
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(MappedJournal::isSegment).forEach(files::add);
+        }
+        files.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return files;
+    }
+    
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX) && sequenceOf(file) >= 0;
+    }
+    
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+}
\ No newline at end of file
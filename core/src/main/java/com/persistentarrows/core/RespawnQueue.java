@@ -0,0 +1,155 @@
+package com.persistentarrows.core;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A world's staged respawns, free of Minecraft types.
+ * 
+ * Respawns are queued grouped by the chunk they land in and committed chunk by chunk
+ * under a time budget (see BatchQueue). A respawn whose chunk is not loaded when its
+ * turn comes is held until that chunk loads instead of forcing it to load.
+ * 
+ * Used by the mod's RespawnPipeline and by the trace replayer, so both stage respawns
+ * the same way. Not thread-safe.
+ */
+public class RespawnQueue<J> {
+    
+    /**
+     * Decides where a respawn's chunk stands and carries out the respawns.
+     */
+    public interface Handler<J> {
+        boolean isChunkLoaded(long chunk);
+        
+        /**
+         * A respawn was held because its chunk is not loaded.
+         */
+        void held(J job, long chunk);
+        
+        /**
+         * Carry out a respawn whose chunk is loaded.
+         */
+        void run(J job);
+    }
+    
+    private final ToLongFunction<J> chunkOf;
+    private final Handler<J> handler;
+    private final BatchQueue<J> queue;
+    // Chunk -> respawns held until it loads
+    private final Long2ObjectMap<List<J>> waitingForChunk = new Long2ObjectOpenHashMap<>();
+    private final Consumer<J> runner = this::run;
+    private int waitingCount;
+    
+    /**
+     * Create a queue whose budget is timed by the given nanosecond clock.
+     */
+    public RespawnQueue(ToLongFunction<J> chunkOf, Handler<J> handler, LongSupplier clock) {
+        this.chunkOf = chunkOf;
+        this.handler = handler;
+        this.queue = new BatchQueue<>(clock);
+    }
+    
+    public RespawnQueue(ToLongFunction<J> chunkOf, Handler<J> handler) {
+        this(chunkOf, handler, System::nanoTime);
+    }
+    
+    public void add(J job) {
+        queue.add(chunkOf.applyAsLong(job), job);
+    }
+    
+    /**
+     * Commit queued respawns until the budget is used up. At least one respawn is
+     * committed per call so the queue always drains eventually. Returns the number taken
+     * off the queue, held ones included.
+     */
+    public int commit(long budgetNanos) {
+        return queue.drain(budgetNanos, runner);
+    }
+    
+    private void run(J job) {
+        long chunk = chunkOf.applyAsLong(job);
+        if (!handler.isChunkLoaded(chunk)) {
+            waitingForChunk.computeIfAbsent(chunk, c -> new ArrayList<>(4)).add(job);
+            waitingCount++;
+            handler.held(job, chunk);
+            return;
+        }
+        handler.run(job);
+    }
+    
+    /**
+     * Requeue the respawns held for a chunk that just loaded.
+     */
+    public void onChunkLoad(long chunk) {
+        List<J> jobs = waitingForChunk.remove(chunk);
+        if (jobs != null) {
+            waitingCount -= jobs.size();
+            for (J job : jobs) {
+                queue.add(chunk, job);
+            }
+        }
+    }
+    
+    /**
+     * Visit every queued or held job, in commit order.
+     */
+    public void forEach(Consumer<J> action) {
+        queue.forEach(action);
+        for (List<J> jobs : waitingForChunk.values()) {
+            jobs.forEach(action);
+        }
+    }
+    
+    /**
+     * Respawns waiting to be committed.
+     */
+    public int size() {
+        return queue.size();
+    }
+    
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+    
+    /**
+     * Respawns held until their chunk loads.
+     */
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+    
+    /**
+     * Largest queue depth seen so far.
+     */
+    public int getMaxSize() {
+        return queue.getMaxSize();
+    }
+    
+    public long getCommittedTotal() {
+        return queue.getDrainedTotal();
+    }
+    
+    /**
+     * Commits that ran out of budget and carried work over.
+     */
+    public long getDeferredCommits() {
+        return queue.getDeferredDrains();
+    }
+    
+    /**
+     * Sum over all deferring commits of the respawns carried over.
+     */
+    public long getDeferredJobsTotal() {
+        return queue.getDeferredJobsTotal();
+    }
+    
+    public long getLastCommitNanos() {
+        return queue.getLastDrainNanos();
+    }
+}
@@ -0,0 +1,65 @@
+package com.persistentarrows.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-to-many index from a key to the values filed under it, in insertion order.
+ * Keys disappear as soon as their last value is removed, so the index never holds
+ * more keys than it has values.
+ */
+public class ReverseIndex<K, V> {
+    private final Map<K, List<V>> values = new HashMap<>();
+    private int size;
+    
+    public void add(K key, V value) {
+        values.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+        size++;
+    }
+    
+    /**
+     * Remove one value from a key. Returns false if it was not filed there.
+     */
+    public boolean remove(K key, V value) {
+        List<V> list = values.get(key);
+        if (list == null || !list.remove(value)) {
+            return false;
+        }
+        if (list.isEmpty()) {
+            values.remove(key);
+        }
+        size--;
+        return true;
+    }
+    
+    /**
+     * Values filed under a key, oldest first. Empty if there are none.
+     */
+    public List<V> get(K key) {
+        List<V> list = values.get(key);
+        return list != null ? Collections.unmodifiableList(list) : List.of();
+    }
+    
+    /**
+     * Remove a key with all its values, returning them (empty if there were none).
+     */
+    public List<V> removeAll(K key) {
+        List<V> list = values.remove(key);
+        if (list == null) {
+            return List.of();
+        }
+        size -= list.size();
+        return list;
+    }
+    
+    public int keyCount() {
+        return values.size();
+    }
+    
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,212 @@
+package com.persistentarrows.core;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Spatial hash of points keyed by vertical grid columns (square cells in x/z).
+ * Each cell's points form an intrusive linked list through per-slot arrays, so
+ * moving a point between cells, removing it and querying allocate nothing.
+ * Queries visit the cells overlapping the query area and test each point exactly.
+ * Not thread-safe.
+ */
+public class SpatialGrid<K> {
+    
+    /**
+     * Receives each point inside a query. Return false to stop the query.
+     */
+    @FunctionalInterface
+    public interface Visitor<K> {
+        boolean visit(K key, double x, double y, double z);
+    }
+    
+    private static final int NONE = -1;
+    
+    private final int cellSize;
+    private final Object2IntOpenHashMap<K> slotOf = new Object2IntOpenHashMap<>();
+    // Cell -> first slot of its list
+    private final Long2IntOpenHashMap heads = new Long2IntOpenHashMap();
+    private Object[] keys;
+    private double[] xs;
+    private double[] ys;
+    private double[] zs;
+    private long[] cells;
+    private int[] next;
+    private int[] prev;
+    private int[] freeSlots;
+    private int freeCount;
+    private int used;
+    
+    public SpatialGrid(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        slotOf.defaultReturnValue(NONE);
+        heads.defaultReturnValue(NONE);
+        resize(64);
+        freeSlots = new int[16];
+    }
+    
+    /**
+     * Add a point, or move it if the key is already in the grid. Moving within
+     * the same cell only updates the coordinates.
+     */
+    public void put(K key, double x, double y, double z) {
+        long cell = cellOf(x, z);
+        int slot = slotOf.getInt(key);
+        if (slot == NONE) {
+            slot = allocate();
+            keys[slot] = key;
+            slotOf.put(key, slot);
+            link(slot, cell);
+        } else if (cells[slot] != cell) {
+            unlink(slot);
+            link(slot, cell);
+        }
+        xs[slot] = x;
+        ys[slot] = y;
+        zs[slot] = z;
+    }
+    
+    /**
+     * Remove a point. Returns false if the key was not in the grid.
+     */
+    public boolean remove(K key) {
+        int slot = slotOf.removeInt(key);
+        if (slot == NONE) {
+            return false;
+        }
+        unlink(slot);
+        keys[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+    
+    public boolean contains(K key) {
+        return slotOf.containsKey(key);
+    }
+    
+    public int size() {
+        return slotOf.size();
+    }
+    
+    public int cellCount() {
+        return heads.size();
+    }
+    
+    /**
+     * Visit every point within the radius of a position. Returns the number visited.
+     */
+    public int forEachInRadius(double x, double y, double z, double radius, Visitor<? super K> visitor) {
+        double maxDistance = radius * radius;
+        int visited = 0;
+        int minCellX = Math.floorDiv((int) Math.floor(x - radius), cellSize);
+        int maxCellX = Math.floorDiv((int) Math.floor(x + radius), cellSize);
+        int minCellZ = Math.floorDiv((int) Math.floor(z - radius), cellSize);
+        int maxCellZ = Math.floorDiv((int) Math.floor(z + radius), cellSize);
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                for (int slot = heads.get(pack(cellX, cellZ)); slot != NONE; slot = next[slot]) {
+                    double dx = xs[slot] - x;
+                    double dy = ys[slot] - y;
+                    double dz = zs[slot] - z;
+                    if (dx * dx + dy * dy + dz * dz <= maxDistance) {
+                        visited++;
+                        if (!visitor.visit(key(slot), xs[slot], ys[slot], zs[slot])) {
+                            return visited;
+                        }
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+    
+    /**
+     * Visit every point inside an axis-aligned box (bounds inclusive). Returns the number visited.
+     */
+    public int forEachInBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, Visitor<? super K> visitor) {
+        int visited = 0;
+        int minCellX = Math.floorDiv((int) Math.floor(minX), cellSize);
+        int maxCellX = Math.floorDiv((int) Math.floor(maxX), cellSize);
+        int minCellZ = Math.floorDiv((int) Math.floor(minZ), cellSize);
+        int maxCellZ = Math.floorDiv((int) Math.floor(maxZ), cellSize);
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                for (int slot = heads.get(pack(cellX, cellZ)); slot != NONE; slot = next[slot]) {
+                    if (xs[slot] >= minX && xs[slot] <= maxX && ys[slot] >= minY && ys[slot] <= maxY
+                            && zs[slot] >= minZ && zs[slot] <= maxZ) {
+                        visited++;
+                        if (!visitor.visit(key(slot), xs[slot], ys[slot], zs[slot])) {
+                            return visited;
+                        }
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private K key(int slot) {
+        return (K) keys[slot];
+    }
+    
+    private long cellOf(double x, double z) {
+        return pack(Math.floorDiv((int) Math.floor(x), cellSize), Math.floorDiv((int) Math.floor(z), cellSize));
+    }
+    
+    private static long pack(int cellX, int cellZ) {
+        return ((long) cellX & 0xFFFFFFFFL) | ((long) cellZ << 32);
+    }
+    
+    private void link(int slot, long cell) {
+        int head = heads.get(cell);
+        cells[slot] = cell;
+        prev[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) {
+            prev[head] = slot;
+        }
+        heads.put(cell, slot);
+    }
+    
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
+        } else if (next[slot] != NONE) {
+            heads.put(cells[slot], next[slot]);
+        } else {
+            heads.remove(cells[slot]);
+        }
+        if (next[slot] != NONE) {
+            prev[next[slot]] = prev[slot];
+        }
+    }
+    
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (used == keys.length) {
+            resize(used * 2);
+        }
+        return used++;
+    }
+    
+    private void resize(int capacity) {
+        keys = keys == null ? new Object[capacity] : Arrays.copyOf(keys, capacity);
+        xs = xs == null ? new double[capacity] : Arrays.copyOf(xs, capacity);
+        ys = ys == null ? new double[capacity] : Arrays.copyOf(ys, capacity);
+        zs = zs == null ? new double[capacity] : Arrays.copyOf(zs, capacity);
+        cells = cells == null ? new long[capacity] : Arrays.copyOf(cells, capacity);
+        next = next == null ? new int[capacity] : Arrays.copyOf(next, capacity);
+        prev = prev == null ? new int[capacity] : Arrays.copyOf(prev, capacity);
+    }
+}
\ No newline at end of file
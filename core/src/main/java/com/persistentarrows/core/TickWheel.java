@@ -0,0 +1,199 @@
+package com.persistentarrows.core;
+
+/**
+ * Hierarchical timing wheel keyed by tick number.
+ * Four levels of 64 slots cover delays of up to 64^4 ticks; scheduling, cancelling
+ * and expiring a timeout are all O(1), so each advance only pays for the timeouts
+ * that actually fire (plus an occasional cascade from a higher level).
+ * Not thread-safe: a wheel must only be used from the thread that advances it.
+ */
+public class TickWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    // Sentinel heads of circular doubly-linked lists, LEVELS * SLOTS of them
+    private final Timeout[] slots = new Timeout[LEVELS * SLOTS];
+    // Timeouts detached from a slot that are being expired or cascaded
+    private final Timeout processing = Timeout.sentinel();
+    private long now;
+    private int size;
+
+    public TickWheel() {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = Timeout.sentinel();
+        }
+    }
+
+    /**
+     * Schedule an action to run after the given number of ticks (at least one).
+     */
+    public Timeout schedule(long delayTicks, Runnable action) {
+        Timeout timeout = new Timeout(this, action);
+        timeout.deadline = now + clampDelay(delayTicks);
+        link(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Move a pending timeout to a new deadline, or re-arm an expired or cancelled one.
+     */
+    public void reschedule(Timeout timeout, long delayTicks) {
+        if (timeout.isPending()) {
+            unlink(timeout);
+        } else {
+            size++;
+        }
+        timeout.deadline = now + clampDelay(delayTicks);
+        link(timeout);
+    }
+
+    /**
+     * Advance the wheel by one tick and run every timeout that is now due.
+     * Returns the number of timeouts that expired.
+     */
+    public int advance() {
+        now++;
+
+        // Pull due entries down from higher levels whenever a lower level wraps around
+        if ((now & SLOT_MASK) == 0) {
+            for (int level = 1; level < LEVELS; level++) {
+                int index = (int) ((now >>> (SLOT_BITS * level)) & SLOT_MASK);
+                cascade(level, index);
+                if (index != 0) {
+                    break;
+                }
+            }
+        }
+
+        Timeout head = slots[(int) (now & SLOT_MASK)];
+        if (head.next == head) {
+            return 0;
+        }
+
+        moveAll(head, processing);
+        int expired = 0;
+        while (processing.next != processing) {
+            Timeout timeout = processing.next;
+            unlink(timeout);
+            if (timeout.deadline > now) {
+                link(timeout); // Not due yet, cannot normally happen
+                continue;
+            }
+            size--;
+            expired++;
+            // The action may schedule or cancel other timeouts, including ones still in 'processing'
+            timeout.action.run();
+        }
+        return expired;
+    }
+
+    /**
+     * Current tick of this wheel.
+     */
+    public long now() {
+        return now;
+    }
+
+    /**
+     * Number of pending timeouts.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void cascade(int level, int index) {
+        Timeout head = slots[level * SLOTS + index];
+        if (head.next == head) {
+            return;
+        }
+
+        moveAll(head, processing);
+        while (processing.next != processing) {
+            Timeout timeout = processing.next;
+            unlink(timeout);
+            link(timeout);
+        }
+    }
+
+    private void link(Timeout timeout) {
+        long delta = Math.max(timeout.deadline - now, 0);
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+
+        int index = (int) ((timeout.deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+        Timeout head = slots[level * SLOTS + index];
+        timeout.prev = head.prev;
+        timeout.next = head;
+        head.prev.next = timeout;
+        head.prev = timeout;
+    }
+
+    private static void unlink(Timeout timeout) {
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+
+    private static void moveAll(Timeout from, Timeout to) {
+        to.next = from.next;
+        to.prev = from.prev;
+        to.next.prev = to;
+        to.prev.next = to;
+        from.next = from;
+        from.prev = from;
+    }
+
+    private static long clampDelay(long delayTicks) {
+        return Math.min(Math.max(delayTicks, 1), MAX_DELAY);
+    }
+
+    /**
+     * Handle for a scheduled action. Doubles as an intrusive list node.
+     */
+    public static final class Timeout {
+        private final TickWheel wheel;
+        private final Runnable action;
+        private long deadline;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TickWheel wheel, Runnable action) {
+            this.wheel = wheel;
+            this.action = action;
+        }
+
+        private static Timeout sentinel() {
+            Timeout sentinel = new Timeout(null, null);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        /**
+         * Cancel this timeout. Returns false if it already expired or was cancelled.
+         */
+        public boolean cancel() {
+            if (!isPending()) {
+                return false;
+            }
+            unlink(this);
+            wheel.size--;
+            return true;
+        }
+
+        public boolean isPending() {
+            return next != null;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+}
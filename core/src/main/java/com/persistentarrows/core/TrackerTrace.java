@@ -0,0 +1,89 @@
+package com.persistentarrows.core;
+
+import java.util.UUID;
+
+/**
+ * Record types of a tracker input trace: the calls the mod's hooks make into arrow
+ * tracking, captured on a live server so they can be replayed without one.
+ * Traces are MappedJournal segments; the record fields hold what each type lists below.
+ * The tick field is always the world's tracking tick.
+ */
+public final class TrackerTrace {
+    
+    /**
+     * Settings the trace was recorded with; always the first record.
+     * aux: respawn budget in microseconds, x/y/z: chunk, owner and world caps.
+     */
+    public static final int CONFIG = 1;
+    /**
+     * An eligible arrow ticked. id, position; aux: see tickAux.
+     */
+    public static final int ARROW_TICK = 2;
+    /**
+     * A tracked arrow hit a living entity. id, position; aux: target health in hundredths.
+     */
+    public static final int HIT = 3;
+    /**
+     * An entity died to an arrow or its cloud. id of the arrow it was credited to.
+     */
+    public static final int KILL = 4;
+    /**
+     * An arrow entity was removed. id, position; aux: REMOVE_* flags.
+     */
+    public static final int REMOVE = 5;
+    /**
+     * A chunk loaded. idHi: the packed chunk position.
+     */
+    public static final int CHUNK_LOAD = 6;
+    /**
+     * The world's tracking tick ran. aux: 1 if the clock advanced (the world was not frozen).
+     */
+    public static final int WORLD_TICK = 7;
+    /**
+     * A respawn was requested for a tracked arrow. id, position.
+     */
+    public static final int SCHEDULE_RESPAWN = 8;
+    /**
+     * A chunk unloaded. idHi: the packed chunk position.
+     */
+    public static final int CHUNK_UNLOAD = 9;
+    
+    // REMOVE flags
+    public static final int REMOVE_UNLOADED = 1;
+    public static final int REMOVE_DESTROYED = 2;
+    
+    private TrackerTrace() {
+    }
+    
+    /**
+     * Pack an arrow tick's inputs: whether it is in a bubble column, and a non-zero
+     * key standing in for its shooter (0 when it has none).
+     */
+    public static int tickAux(boolean inColumn, UUID owner) {
+        int ownerKey = 0;
+        if (owner != null) {
+            ownerKey = owner.hashCode() & 0x3FFFFFFF;
+            if (ownerKey == 0) {
+                ownerKey = 1;
+            }
+        }
+        return ownerKey << 1 | (inColumn ? 1 : 0);
+    }
+    
+    public static boolean inColumn(int tickAux) {
+        return (tickAux & 1) != 0;
+    }
+    
+    public static int ownerKey(int tickAux) {
+        return tickAux >>> 1;
+    }
+    
+    /**
+     * Packed chunk position of a block position, as Minecraft packs it.
+     */
+    public static long chunkOf(double x, double z) {
+        long chunkX = (int) Math.floor(x) >> 4;
+        long chunkZ = (int) Math.floor(z) >> 4;
+        return (chunkX & 0xFFFFFFFFL) | (chunkZ & 0xFFFFFFFFL) << 32;
+    }
+}
@@ -0,0 +1,204 @@
+package com.persistentarrows.core;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * The rules for tracking lingering arrows in one world, free of Minecraft types.
+ * 
+ * Arrows start being tracked while they float in a bubble column and stop once they
+ * have been out of one for longer than the grace period. Tracking expires a fixed time
+ * after it started, counted on the world's TickWheel, and the per-chunk, per-owner and
+ * per-world caps evict the oldest arrows. Tracked arrows are also filed by position.
+ * 
+ * Used by the mod's LingeringArrowTracker and by the trace replayer, so both run the
+ * same rules. What the caller does when an arrow leaves tracking (respawns, journals,
+ * metrics) is left to the Listener. Not thread-safe: use it from the thread that
+ * advances the wheel.
+ */
+public class TrackingRules<A extends TrackingRules.Arrow, O> {
+    // Tracking is dropped after 5 minutes - prevents memory leaks from arrows that disappeared
+    public static final long MAX_TRACKING_TICKS = 5 * 60 * 20;
+    // How long an arrow may stay outside a bubble column before tracking stops
+    public static final long BUBBLE_GRACE_TICKS = 2 * 20;
+    // Hits that never lead to a kill are forgotten after 30 seconds
+    public static final long HIT_TTL_TICKS = 30 * 20;
+    // Persistence marks outlive the arrow's normal despawn timer (5 minutes)
+    public static final long PERSISTENT_TTL_TICKS = 5 * 60 * 20;
+    
+    /**
+     * A tracked arrow's record, as far as the rules need to see it.
+     */
+    public interface Arrow {
+        UUID getArrowId();
+        
+        long getTrackingStartTick();
+        
+        boolean isInBubbleColumn();
+        
+        void setInBubbleColumn(boolean inBubbleColumn);
+        
+        long getLastSeenTick();
+        
+        void resetLastSeenTick(long currentTick);
+        
+        /**
+         * Set when the record enters the index and cleared when it leaves, however it leaves.
+         */
+        void setTracked(boolean tracked);
+    }
+    
+    /**
+     * Told about tracking changes the rules make on their own.
+     */
+    public interface Listener<A> {
+        /**
+         * A tracked arrow ticked outside a bubble column, at the given position, for the
+         * first time since it was in one.
+         */
+        void leftColumn(A arrow, double x, double y, double z);
+        
+        /**
+         * A tracked arrow stayed out of bubble columns past the grace period. It is still
+         * tracked; the caller stops tracking it the way it stops any other arrow.
+         */
+        void graceOver(A arrow);
+        
+        /**
+         * An arrow was evicted to stay under a cap. It has already left the index.
+         */
+        void evicted(A arrow, CappedIndex.Scope scope);
+        
+        /**
+         * An arrow's tracking ran out of time. It has already left the index.
+         */
+        void expired(A arrow);
+    }
+    
+    private final TickWheel wheel;
+    private final Listener<A> listener;
+    private final ExpiringMap<UUID, A> tracked;
+    // Tracked arrows by chunk and shooter, oldest first, for the per-chunk/owner/world caps
+    private final CappedIndex<UUID, O> caps = new CappedIndex<>();
+    // Tracked arrows by position, in chunk-wide columns; moved as the arrows tick
+    private final SpatialGrid<UUID> grid = new SpatialGrid<>(16);
+    
+    public TrackingRules(TickWheel wheel, Listener<A> listener) {
+        this.wheel = wheel;
+        this.listener = listener;
+        this.tracked = new ExpiringMap<>(wheel, (id, arrow) -> {
+            caps.remove(id);
+            grid.remove(id);
+            arrow.setTracked(false);
+            listener.expired(arrow);
+        });
+    }
+    
+    public void setCaps(int chunkCap, int ownerCap, int worldCap) {
+        caps.setCaps(chunkCap, ownerCap, worldCap);
+    }
+    
+    /**
+     * Apply an eligible arrow's tick at its current position, given its record if it is
+     * tracked. Moves a tracked arrow in the position index, keeps its bubble column state
+     * and tells the listener when it left a column or ran out of grace. Returns true if the
+     * arrow is not tracked but is in a bubble column, so tracking it should start.
+     */
+    public boolean tick(A arrow, double x, double y, double z, boolean inBubbleColumn) {
+        if (arrow == null) {
+            return inBubbleColumn;
+        }
+        // Only relinks the arrow when it crosses into another grid cell
+        grid.put(arrow.getArrowId(), x, y, z);
+        
+        if (inBubbleColumn) {
+            arrow.setInBubbleColumn(true);
+            arrow.resetLastSeenTick(wheel.now());
+            return false;
+        }
+        
+        // Arrow left the bubble column, but tracking only stops once the grace period is over
+        if (arrow.isInBubbleColumn()) {
+            arrow.setInBubbleColumn(false);
+            listener.leftColumn(arrow, x, y, z);
+        }
+        if (wheel.now() - arrow.getLastSeenTick() > BUBBLE_GRACE_TICKS) {
+            listener.graceOver(arrow);
+        }
+        return false;
+    }
+    
+    /**
+     * Add a record at a position, replacing any record of the same arrow, and schedule its
+     * expiry. Expiry counts from when tracking started, so restored records keep their age.
+     * May evict older arrows, or this one, to stay under the caps.
+     */
+    public void track(A arrow, double x, double y, double z, O owner) {
+        UUID id = arrow.getArrowId();
+        arrow.setTracked(true);
+        long remaining = Math.max(1, MAX_TRACKING_TICKS - (wheel.now() - arrow.getTrackingStartTick()));
+        A previous = tracked.put(id, arrow, remaining);
+        if (previous != null && previous != arrow) {
+            previous.setTracked(false);
+        }
+        grid.put(id, x, y, z);
+        caps.add(id, TrackerTrace.chunkOf(x, z), owner, this::evict);
+    }
+    
+    /**
+     * Take an arrow out of tracking (cancelling its expiry). Returns its record, or null
+     * if it was not tracked. Nothing else is done with the record.
+     */
+    public A untrack(UUID id) {
+        A removed = tracked.remove(id);
+        if (removed != null) {
+            caps.remove(id);
+            grid.remove(id);
+            // Holders of the record notice on their next read and drop it
+            removed.setTracked(false);
+        }
+        return removed;
+    }
+    
+    private void evict(UUID id, CappedIndex.Scope scope) {
+        A removed = untrack(id);
+        if (removed != null) {
+            listener.evicted(removed, scope);
+        }
+    }
+    
+    public A get(UUID id) {
+        return tracked.get(id);
+    }
+    
+    public boolean isTracked(UUID id) {
+        return tracked.containsKey(id);
+    }
+    
+    public int size() {
+        return tracked.size();
+    }
+    
+    public Collection<A> values() {
+        return tracked.values();
+    }
+    
+    public void forEach(BiConsumer<UUID, A> action) {
+        tracked.forEach(action);
+    }
+    
+    /**
+     * Visit the tracked arrows within a radius of a position, at their last known positions.
+     */
+    public int forEachInRadius(double x, double y, double z, double radius, SpatialGrid.Visitor<? super UUID> visitor) {
+        return grid.forEachInRadius(x, y, z, radius, visitor);
+    }
+    
+    /**
+     * Visit the tracked arrows inside a box, at their last known positions.
+     */
+    public int forEachInBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, SpatialGrid.Visitor<? super UUID> visitor) {
+        return grid.forEachInBox(minX, minY, minZ, maxX, maxY, maxZ, visitor);
+    }
+}
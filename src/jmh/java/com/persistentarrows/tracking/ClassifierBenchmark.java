@@ -0,0 +1,100 @@
+package com.persistentarrows.tracking;
+
+import com.persistentarrows.access.PersistentArrowAccess;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.component.DataComponentTypes;
+import net.minecraft.component.type.PotionContentsComponent;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.item.LingeringPotionItem;
+import net.minecraft.item.TippedArrowItem;
+import net.minecraft.potion.Potions;
+import net.minecraft.text.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-tick eligibility check on real item stacks, for an untipped arrow, a tipped
+ * arrow and a tipped arrow with a custom name (a larger component map).
+ * cached is what every tick costs now: the verdict ArrowClassifier.isEligible keeps on
+ * the entity. classify is the component read it runs once per arrow and again only when
+ * the stack is replaced. stringScan is the check every tick ran before, which built the
+ * components' toString() up to twice and searched it.
+ * Mixins are not applied outside the game, so cached reads a field laid out as
+ * PersistentArrowMixin's instead of going through the entity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassifierBenchmark {
+
+    @Param({"arrow", "tipped", "named"})
+    public String stack;
+
+    private ItemStack itemStack;
+    private byte eligibility;
+
+    @Setup
+    public void setup() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        itemStack = switch (stack) {
+            case "arrow" -> new ItemStack(Items.ARROW);
+            case "tipped" -> tipped();
+            case "named" -> {
+                ItemStack named = tipped();
+                named.set(DataComponentTypes.CUSTOM_NAME, Text.literal("Farm arrow"));
+                yield named;
+            }
+            default -> throw new IllegalArgumentException(stack);
+        };
+        eligibility = ArrowClassifier.classify(itemStack)
+            ? PersistentArrowAccess.ELIGIBILITY_ELIGIBLE
+            : PersistentArrowAccess.ELIGIBILITY_INELIGIBLE;
+    }
+
+    private static ItemStack tipped() {
+        ItemStack tipped = new ItemStack(Items.TIPPED_ARROW);
+        tipped.set(DataComponentTypes.POTION_CONTENTS, new PotionContentsComponent(Potions.POISON));
+        return tipped;
+    }
+
+    @Benchmark
+    public boolean cached() {
+        return eligibility == PersistentArrowAccess.ELIGIBILITY_ELIGIBLE;
+    }
+
+    @Benchmark
+    public boolean classify() {
+        return ArrowClassifier.classify(itemStack);
+    }
+
+    @Benchmark
+    public boolean stringScan() {
+        // The check LingeringArrowTracker and ArrowImpactDetector each ran on every tick
+        if (itemStack.getItem() instanceof LingeringPotionItem) {
+            return true;
+        }
+        if (itemStack.getItem() instanceof TippedArrowItem) {
+            return itemStack.getComponents().toString().contains("potion_contents")
+                || itemStack.getComponents().toString().contains("PotionContents");
+        }
+        return false;
+    }
+}
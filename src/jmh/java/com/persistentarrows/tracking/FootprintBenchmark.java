@@ -0,0 +1,133 @@
+package com.persistentarrows.tracking;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.component.DataComponentTypes;
+import net.minecraft.component.type.PotionContentsComponent;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.potion.Potions;
+import net.minecraft.util.math.Vec3d;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory per parked arrow: N arrows held as the ArrowNBTData records tracking keeps,
+ * against the same arrows parked in HibernatedArrows, on and off the heap.
+ * Only parked arrows (chunk unloaded) live in the slab; tracked arrows stay ArrowNBTData,
+ * so the slab figures are what an arrow costs once its chunk unloads, not while it ticks.
+ * The parked figures include HibernatedArrows' chunk and id indexes. Every record shares
+ * one interned template, as arrows of the same stack do in a world.
+ * The figure to read is the bytesPerArrow counter (heap retained after a full GC plus
+ * the slab's direct buffers, divided by N); the time is only the cost of filling the store.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+// Parallel GC reports used heap reliably right after System.gc(); G1 does not always
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g", "-XX:+UseParallelGC"})
+public class FootprintBenchmark {
+
+    @Param({"100000"})
+    public int arrows;
+
+    /**
+     * Per-iteration measurement, reported next to the timing.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerArrow;
+        public long heapBytesPerArrow;
+    }
+
+    private ArrowTemplates.Template template;
+    private Object retained;
+
+    @Setup
+    public void setup() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        ItemStack stack = new ItemStack(Items.TIPPED_ARROW);
+        stack.set(DataComponentTypes.POTION_CONTENTS, new PotionContentsComponent(Potions.POISON));
+        template = new ArrowTemplates().intern(stack);
+    }
+
+    // Drop the previous invocation's store so it isn't counted against this one
+    @Setup(Level.Invocation)
+    public void release() {
+        retained = null;
+    }
+
+    @Benchmark
+    public void records(Footprint footprint) {
+        long before = usedBytes();
+        ArrowNBTData[] store = new ArrowNBTData[arrows];
+        for (int i = 0; i < arrows; i++) {
+            store[i] = record(i);
+        }
+        retained = store;
+        footprint.heapBytesPerArrow = (usedBytes() - before) / arrows;
+        footprint.bytesPerArrow = footprint.heapBytesPerArrow;
+    }
+
+    @Benchmark
+    public void parked(Footprint footprint) {
+        park(footprint, false);
+    }
+
+    @Benchmark
+    public void parkedOffHeap(Footprint footprint) {
+        park(footprint, true);
+    }
+
+    private void park(Footprint footprint, boolean offHeap) {
+        long before = usedBytes();
+        // Parking never touches the world
+        HibernatedArrows store = new HibernatedArrows(null, offHeap);
+        for (int i = 0; i < arrows; i++) {
+            store.park(i >> 4, record(i), i);
+        }
+        retained = store;
+        // Direct buffers are freed lazily by their cleaners, so count them from the store itself
+        long direct = offHeap ? store.getFootprintBytes() : 0L;
+        long heap = usedBytes() - before;
+        footprint.heapBytesPerArrow = heap / arrows;
+        footprint.bytesPerArrow = (heap + direct) / arrows;
+    }
+
+    private ArrowNBTData record(int i) {
+        ArrowNBTData data = new ArrowNBTData(new UUID(0x5041L, i), template,
+            new Vec3d(i, 64.5D, -i), new Vec3d(0.0D, 0.1D, 0.0D), i);
+        data.setInBubbleColumn(true);
+        return data;
+    }
+
+    /**
+     * Heap in use after a full collection.
+     */
+    private static long usedBytes() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -1,6 +1,26 @@
 package com.persistentarrows;
 
+import com.persistentarrows.command.PersistentArrowsCommand;
+import com.persistentarrows.config.PersistentArrowsConfig;
+import com.persistentarrows.core.TrackerTrace;
+import com.persistentarrows.debug.HookTimer;
+import com.persistentarrows.debug.PersistentArrowsDebugger;
+import com.persistentarrows.debug.TraceRecorder;
+import com.persistentarrows.metrics.ArrowMetrics;
+import com.persistentarrows.metrics.Hook;
+import com.persistentarrows.metrics.MetricsExporter;
+import com.persistentarrows.tracking.ActiveArrows;
+import com.persistentarrows.tracking.BubbleColumnIndex;
+import com.persistentarrows.tracking.LingeringArrowTracker;
+import com.persistentarrows.tracking.WorldArrowState;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.entity.projectile.PersistentProjectileEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,6 +30,56 @@ public class PersistentArrows implements ModInitializer {
 
     @Override
     public void onInitialize() {
+        PersistentArrowsConfig.load();
+        PersistentArrowsDebugger.init();
+        HookTimer.setEnabled(PersistentArrowsConfig.hookTiming);
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            TraceRecorder.stop();
+            for (ServerWorld world : server.getWorlds()) {
+                WorldArrowState.of(world).close();
+            }
+            MetricsExporter.stop();
+            PersistentArrowsDebugger.shutdown();
+        });
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            MetricsExporter.start(PersistentArrowsConfig.metricsPort);
+        });
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            HookTimer.endTick();
+            ArrowMetrics.onServerTick(server);
+        });
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> PersistentArrowsCommand.register(dispatcher));
+        
+        // Keep each world's bubble column index in step with loaded chunks,
+        // and read saved arrow state the first time a chunk of its region loads
+        ServerChunkEvents.CHUNK_LOAD.register((world, chunk) -> {
+            long start = HookTimer.start();
+            BubbleColumnIndex.of(world).indexChunk(chunk);
+            WorldArrowState state = WorldArrowState.of(world);
+            state.getStorage().onChunkLoad(chunk.getPos());
+            state.onChunkLoad(chunk.getPos());
+            HookTimer.stop(Hook.CHUNK_LOAD, start);
+        });
+        ServerChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> {
+            BubbleColumnIndex.of(world).removeChunk(chunk);
+            if (TraceRecorder.isRecording(world)) {
+                TraceRecorder.record(TrackerTrace.CHUNK_UNLOAD, 0, chunk.getPos().toLong(), 0L, chunk.getPos().getCenterX(), 0.0D, chunk.getPos().getCenterZ());
+            }
+        });
+        
+        // Hand arrows back the tracking data they had before unloading; clouds arrive
+        // already tagged with their source arrow (see CloudProvenance)
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            long start = HookTimer.start();
+            if (entity instanceof PersistentProjectileEntity arrow) {
+                LingeringArrowTracker.onArrowLoad(arrow);
+            }
+            ActiveArrows.onEntityLoad(entity, world);
+            HookTimer.stop(Hook.ENTITY_LOAD, start);
+        });
+        // Keep the idle fast path's counts exact across every kind of removal
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> ActiveArrows.onEntityUnload(entity, world));
+
         LOGGER.info("Persistent Arrows mod initialized! Bringing Bedrock Edition arrow behavior to Java Edition.");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package com.persistentarrows.access;
+
+import com.persistentarrows.tracking.WorldArrowState;
+
+/**
+ * Duck interface implemented on ServerWorld by ServerWorldMixin.
+ * Exposes the per-world state the tracking system attaches to each dimension.
+ */
+public interface ArrowWorldAccess {
+    WorldArrowState persistentarrows$getArrowState();
+}
@@ -0,0 +1,17 @@
+package com.persistentarrows.access;
+
+import java.util.UUID;
+
+/**
+ * Duck interface implemented on AreaEffectCloudEntity by AreaEffectCloudEntityMixin.
+ * Remembers which tracked arrow, if any, the cloud was created by.
+ */
+public interface CloudProvenanceAccess {
+    /**
+     * UUID of the tracked arrow whose impact produced this cloud, or null for
+     * clouds unrelated to arrows (thrown potions, dragon breath, ...).
+     */
+    UUID persistentarrows$getSourceArrow();
+
+    void persistentarrows$setSourceArrow(UUID arrowId);
+}
@@ -0,0 +1,55 @@
+package com.persistentarrows.access;
+
+import com.persistentarrows.tracking.ArrowNBTData;
+
+/**
+ * Duck interface implemented on PersistentProjectileEntity by PersistentArrowMixin.
+ * Exposes per-arrow state that the tracking system stores directly on the entity.
+ */
+public interface PersistentArrowAccess {
+    byte ELIGIBILITY_UNKNOWN = 0;
+    byte ELIGIBILITY_ELIGIBLE = 1;
+    byte ELIGIBILITY_INELIGIBLE = 2;
+
+    byte LIVE_NOT_LOADED = 0;
+    byte LIVE_NOT_COUNTED = 1;
+    byte LIVE_COUNTED = 2;
+
+    /**
+     * Cached persistence eligibility verdict, or ELIGIBILITY_UNKNOWN if the arrow
+     * has not been classified since its item stack last changed.
+     */
+    byte persistentarrows$getEligibility();
+
+    void persistentarrows$setEligibility(byte eligibility);
+
+    /**
+     * Tracking record attached to this arrow, or null if it is not tracked.
+     * May still hold a record that has since been untracked; see ArrowNBTData.isTracked.
+     */
+    ArrowNBTData persistentarrows$getTrackingData();
+
+    void persistentarrows$setTrackingData(ArrowNBTData data);
+
+    /**
+     * Number of arrows this entity stands for. Always at least 1; larger only when
+     * respawned arrows were merged into it (see ArrowStacks).
+     */
+    int persistentarrows$getStackCount();
+
+    void persistentarrows$setStackCount(int count);
+
+    /**
+     * Whether this arrow was spawned by ArrowRespawner. Only these arrows take merges.
+     */
+    boolean persistentarrows$isRespawned();
+
+    void persistentarrows$setRespawned(boolean respawned);
+
+    /**
+     * Whether this arrow is loaded in a world, and if so whether ActiveArrows counts it.
+     */
+    byte persistentarrows$getLiveState();
+
+    void persistentarrows$setLiveState(byte state);
+}
@@ -0,0 +1,315 @@
+package com.persistentarrows.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.DynamicCommandExceptionType;
+import com.persistentarrows.core.MappedJournal;
+import com.persistentarrows.debug.DebugCategory;
+import com.persistentarrows.debug.HookTimer;
+import com.persistentarrows.debug.PersistentArrowsDebugger;
+import com.persistentarrows.debug.TestScenarios;
+import com.persistentarrows.debug.TraceRecorder;
+import com.persistentarrows.metrics.Metric;
+import com.persistentarrows.metrics.MetricsRegistry;
+import com.persistentarrows.tracking.ArrowJournal;
+import com.persistentarrows.tracking.ArrowNBTData;
+import com.persistentarrows.tracking.LingeringArrowTracker;
+import com.persistentarrows.tracking.RespawnPipeline;
+import com.persistentarrows.tracking.WorldArrowState;
+import net.minecraft.command.CommandSource;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Registers the /persistentarrows operator command.
+ */
+public class PersistentArrowsCommand {
+    
+    private static final DynamicCommandExceptionType UNKNOWN_CATEGORY = new DynamicCommandExceptionType(
+        id -> Text.literal("Unknown debug category: " + id));
+    private static final DynamicCommandExceptionType UNKNOWN_SCENARIO = new DynamicCommandExceptionType(
+        id -> Text.literal("Unknown scenario: " + id));
+    
+    // Scenarios are built this far from the player along +X so they don't enclose them
+    private static final int SCENARIO_OFFSET = 4;
+    // Search radius of "near" without an argument, in blocks
+    private static final int DEFAULT_NEAR_RADIUS = 32;
+    private static final int NEAR_PAGE_SIZE = 10;
+    // Measured time of "scenario load" without an argument
+    private static final int DEFAULT_LOAD_SECONDS = 10;
+    
+    private record Nearby(UUID arrowId, Vec3d position, double distance) {}
+    
+    public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+        dispatcher.register(CommandManager.literal("persistentarrows")
+            .requires(source -> source.hasPermissionLevel(2))
+            .then(CommandManager.literal("stats")
+                .executes(PersistentArrowsCommand::showStats))
+            .then(CommandManager.literal("respawns")
+                .executes(PersistentArrowsCommand::showRespawns))
+            .then(CommandManager.literal("near")
+                .executes(context -> showNearby(context, DEFAULT_NEAR_RADIUS, 1))
+                .then(CommandManager.argument("radius", IntegerArgumentType.integer(1, 512))
+                    .executes(context -> showNearby(context, IntegerArgumentType.getInteger(context, "radius"), 1))
+                    .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                        .executes(context -> showNearby(context, IntegerArgumentType.getInteger(context, "radius"),
+                            IntegerArgumentType.getInteger(context, "page"))))))
+            .then(CommandManager.literal("journal")
+                .executes(PersistentArrowsCommand::showJournal))
+            .then(CommandManager.literal("trace")
+                .then(CommandManager.literal("start")
+                    .executes(PersistentArrowsCommand::startTrace))
+                .then(CommandManager.literal("stop")
+                    .executes(PersistentArrowsCommand::stopTrace)))
+            .then(CommandManager.literal("hooktime")
+                .executes(PersistentArrowsCommand::showHookTime)
+                .then(CommandManager.literal("on")
+                    .executes(context -> setHookTiming(context, true)))
+                .then(CommandManager.literal("off")
+                    .executes(context -> setHookTiming(context, false))))
+            .then(CommandManager.literal("scenario")
+                .then(CommandManager.literal("scaled")
+                    .then(CommandManager.argument("arrows", IntegerArgumentType.integer(1, 100000))
+                        .executes(context -> runScenario(context, TestScenarios.scaled(IntegerArgumentType.getInteger(context, "arrows"))))))
+                .then(CommandManager.literal("idle")
+                    .then(CommandManager.argument("entities", IntegerArgumentType.integer(1, 100000))
+                        .executes(context -> runScenario(context, TestScenarios.idle(IntegerArgumentType.getInteger(context, "entities"))))))
+                .then(CommandManager.literal("load")
+                    .then(CommandManager.argument("columns", IntegerArgumentType.integer(1, 1024))
+                        .then(CommandManager.argument("arrows", IntegerArgumentType.integer(1, 100000))
+                            .executes(context -> runLoadScenario(context, DEFAULT_LOAD_SECONDS))
+                            .then(CommandManager.argument("seconds", IntegerArgumentType.integer(1, 60))
+                                .executes(context -> runLoadScenario(context, IntegerArgumentType.getInteger(context, "seconds")))))))
+                .then(CommandManager.argument("name", StringArgumentType.word())
+                    .suggests((context, builder) -> CommandSource.suggestMatching(TestScenarios.SCENARIOS.keySet(), builder))
+                    .executes(PersistentArrowsCommand::runNamedScenario)))
+            .then(CommandManager.literal("debug")
+                .executes(PersistentArrowsCommand::listCategories)
+                .then(CommandManager.argument("category", StringArgumentType.word())
+                    .suggests((context, builder) -> CommandSource.suggestMatching(
+                        Arrays.stream(DebugCategory.values()).map(DebugCategory::getId), builder))
+                    .then(CommandManager.literal("on")
+                        .executes(context -> setEnabled(context, true)))
+                    .then(CommandManager.literal("off")
+                        .executes(context -> setEnabled(context, false)))
+                    .then(CommandManager.literal("sample")
+                        .then(CommandManager.argument("every", IntegerArgumentType.integer(1))
+                            .executes(PersistentArrowsCommand::setSampleEvery)))
+                    .then(CommandManager.literal("ratelimit")
+                        .then(CommandManager.argument("perSecond", IntegerArgumentType.integer(0))
+                            .executes(PersistentArrowsCommand::setMaxPerSecond))))));
+    }
+    
+    private static int listCategories(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        for (DebugCategory category : DebugCategory.values()) {
+            source.sendFeedback(() -> Text.literal(String.format("%s: %s (sample 1/%d, limit %s/s, sampled out %d, rate limited %d)",
+                category.getId(), category.isEnabled() ? "on" : "off", category.getSampleEvery(),
+                category.getMaxPerSecond() == 0 ? "-" : String.valueOf(category.getMaxPerSecond()),
+                category.getSampledOutCount(), category.getRateLimitedCount())), false);
+        }
+        source.sendFeedback(() -> Text.literal(String.format("Queued events: %d, dropped events: %d",
+            PersistentArrowsDebugger.getQueuedEventCount(), PersistentArrowsDebugger.getDroppedEventCount())), false);
+        return DebugCategory.values().length;
+    }
+    
+    private static int showStats(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        for (Metric metric : MetricsRegistry.getAll()) {
+            source.sendFeedback(() -> Text.literal(metric.getDisplayName() + ": " + metric.describe()), false);
+        }
+        return MetricsRegistry.getAll().size();
+    }
+    
+    private static int showRespawns(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        int queued = 0;
+        for (ServerWorld world : source.getServer().getWorlds()) {
+            RespawnPipeline respawns = WorldArrowState.of(world).getRespawns();
+            queued += respawns.getQueueDepth();
+            source.sendFeedback(() -> Text.literal(String.format("%s: queued %d (max %d), waiting for chunk %d, committed %d, deferred %d ticks / %d respawns, last commit %.1f µs",
+                world.getRegistryKey().getValue(), respawns.getQueueDepth(), respawns.getMaxQueueDepth(), respawns.getWaitingCount(), respawns.getCommittedTotal(),
+                respawns.getDeferredTicks(), respawns.getDeferredJobsTotal(), respawns.getLastCommitNanos() / 1000.0)), false);
+        }
+        return queued;
+    }
+    
+    private static int showNearby(CommandContext<ServerCommandSource> context, int radius, int page) {
+        ServerCommandSource source = context.getSource();
+        ServerWorld world = source.getWorld();
+        Vec3d center = source.getPosition();
+        List<Nearby> found = new ArrayList<>();
+        LingeringArrowTracker.forEachTrackedNear(world, center, radius, (arrowId, x, y, z) -> {
+            Vec3d position = new Vec3d(x, y, z);
+            found.add(new Nearby(arrowId, position, position.distanceTo(center)));
+            return true;
+        });
+        found.sort(Comparator.comparingDouble(Nearby::distance));
+        
+        int pages = Math.max(1, (found.size() + NEAR_PAGE_SIZE - 1) / NEAR_PAGE_SIZE);
+        int shownPage = Math.min(page, pages);
+        source.sendFeedback(() -> Text.literal(String.format("%d tracked arrows within %d blocks (page %d/%d)",
+            found.size(), radius, shownPage, pages)), false);
+        long now = WorldArrowState.of(world).now();
+        int end = Math.min(found.size(), shownPage * NEAR_PAGE_SIZE);
+        for (int i = (shownPage - 1) * NEAR_PAGE_SIZE; i < end; i++) {
+            Nearby nearby = found.get(i);
+            ArrowNBTData data = LingeringArrowTracker.getTrackedArrowData(world, nearby.arrowId());
+            if (data == null) {
+                continue;
+            }
+            source.sendFeedback(() -> Text.literal(String.format("%s  %.1fm  %.1f %.1f %.1f  %s x%d, tracked %ds%s",
+                nearby.arrowId().toString().substring(0, 8), nearby.distance(),
+                nearby.position().x, nearby.position().y, nearby.position().z,
+                data.getArrowType(), data.getStackCount(), (now - data.getTrackingStartTick()) / 20,
+                data.isMarkedForRespawn() ? ", marked for respawn" : "")), false);
+        }
+        return found.size();
+    }
+    
+    private static int showJournal(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        ServerWorld world = source.getWorld();
+        Map<ArrowJournal.Event, Integer> counts = new EnumMap<>(ArrowJournal.Event.class);
+        int total = 0;
+        int segments = 0;
+        try (Stream<MappedJournal.Entry> entries = ArrowJournal.read(world)) {
+            long lastSegment = -1L;
+            for (Iterator<MappedJournal.Entry> it = entries.iterator(); it.hasNext(); ) {
+                MappedJournal.Entry entry = it.next();
+                ArrowJournal.Event event = ArrowJournal.Event.byCode(entry.type());
+                if (event != null) {
+                    counts.merge(event, 1, Integer::sum);
+                }
+                if (entry.segment() != lastSegment) {
+                    lastSegment = entry.segment();
+                    segments++;
+                }
+                total++;
+            }
+        } catch (IOException e) {
+            source.sendError(Text.literal("Failed to read the arrow journal: " + e.getMessage()));
+            return 0;
+        }
+        
+        int records = total;
+        int segmentCount = segments;
+        long thisRun = WorldArrowState.of(world).getJournal().getRecordedCount();
+        source.sendFeedback(() -> Text.literal(String.format("%s: %d journal records in %d segments (%d this run)",
+            world.getRegistryKey().getValue(), records, segmentCount, thisRun)), false);
+        for (Map.Entry<ArrowJournal.Event, Integer> count : counts.entrySet()) {
+            source.sendFeedback(() -> Text.literal(String.format("  %s: %d", count.getKey(), count.getValue())), false);
+        }
+        return records;
+    }
+    
+    private static int startTrace(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        Path directory;
+        try {
+            directory = TraceRecorder.start(source.getWorld());
+        } catch (IOException e) {
+            source.sendError(Text.literal("Failed to start a tracker trace: " + e.getMessage()));
+            return 0;
+        }
+        source.sendFeedback(() -> Text.literal("Recording tracker trace of " + source.getWorld().getRegistryKey().getValue() + " to " + directory), true);
+        return 1;
+    }
+    
+    private static int stopTrace(CommandContext<ServerCommandSource> context) {
+        long records = TraceRecorder.stop();
+        if (records < 0) {
+            context.getSource().sendError(Text.literal("No tracker trace is being recorded"));
+            return 0;
+        }
+        context.getSource().sendFeedback(() -> Text.literal("Tracker trace stopped after " + records + " records"), true);
+        return (int) Math.min(records, Integer.MAX_VALUE);
+    }
+    
+    private static int showHookTime(CommandContext<ServerCommandSource> context) {
+        HookTimer.Summary summary = HookTimer.summarize();
+        context.getSource().sendFeedback(() -> Text.literal("Hook time (" + (HookTimer.isEnabled() ? "on" : "off") + "): " + summary), false);
+        return summary.ticks();
+    }
+    
+    private static int setHookTiming(CommandContext<ServerCommandSource> context, boolean enabled) {
+        HookTimer.setEnabled(enabled);
+        context.getSource().sendFeedback(() -> Text.literal("Hook timing " + (enabled ? "enabled" : "disabled")), true);
+        return 1;
+    }
+    
+    private static int runNamedScenario(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        String name = StringArgumentType.getString(context, "name");
+        TestScenarios.Scenario scenario = TestScenarios.SCENARIOS.get(name);
+        if (scenario == null) {
+            throw UNKNOWN_SCENARIO.create(name);
+        }
+        return runScenario(context, scenario);
+    }
+    
+    private static int runLoadScenario(CommandContext<ServerCommandSource> context, int seconds) {
+        return runScenario(context, TestScenarios.load(IntegerArgumentType.getInteger(context, "columns"),
+            IntegerArgumentType.getInteger(context, "arrows"), seconds));
+    }
+    
+    private static int runScenario(CommandContext<ServerCommandSource> context, TestScenarios.Scenario scenario) {
+        ServerCommandSource source = context.getSource();
+        BlockPos origin = BlockPos.ofFloored(source.getPosition()).east(SCENARIO_OFFSET);
+        scenario.run(source.getWorld(), origin, result -> source.sendFeedback(() -> Text.literal(String.format("Scenario %s %s: %s",
+            result.scenario(), result.passed() ? "passed" : "FAILED", result.detail())), false));
+        source.sendFeedback(() -> Text.literal("Scenario started at " + origin.toShortString()), false);
+        return 1;
+    }
+    
+    private static int setEnabled(CommandContext<ServerCommandSource> context, boolean enabled) throws CommandSyntaxException {
+        DebugCategory category = getCategory(context);
+        category.setEnabled(enabled);
+        context.getSource().sendFeedback(() -> Text.literal("Debug category " + category.getId() + " " + (enabled ? "enabled" : "disabled")), true);
+        return 1;
+    }
+    
+    private static int setSampleEvery(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        DebugCategory category = getCategory(context);
+        int every = IntegerArgumentType.getInteger(context, "every");
+        category.setSampleEvery(every);
+        context.getSource().sendFeedback(() -> Text.literal("Debug category " + category.getId() + " now records 1 in " + every + " events"), true);
+        return every;
+    }
+    
+    private static int setMaxPerSecond(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        DebugCategory category = getCategory(context);
+        int perSecond = IntegerArgumentType.getInteger(context, "perSecond");
+        category.setMaxPerSecond(perSecond);
+        context.getSource().sendFeedback(() -> Text.literal("Debug category " + category.getId() + " rate limit set to "
+            + (perSecond == 0 ? "unlimited" : perSecond + " events/s")), true);
+        return perSecond;
+    }
+    
+    private static DebugCategory getCategory(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        String id = StringArgumentType.getString(context, "category");
+        DebugCategory category = DebugCategory.byId(id);
+        if (category == null) {
+            throw UNKNOWN_CATEGORY.create(id);
+        }
+        return category;
+    }
+}
@@ -0,0 +1,122 @@
+package com.persistentarrows.config;
+
+import com.persistentarrows.PersistentArrows;
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Server settings read from config/persistentarrows.properties.
+ * Missing keys fall back to their defaults, and the file is rewritten with every key
+ * so new settings show up for operators after an update.
+ */
+public class PersistentArrowsConfig {
+    
+    private static final String FILE_NAME = PersistentArrows.MOD_ID + ".properties";
+    
+    // Time each world may spend committing respawns at the end of a tick, in microseconds
+    public static int respawnBudgetMicros = 500;
+    // Fold respawned arrows into a compatible arrow already lying nearby instead of adding an entity
+    public static boolean mergeRespawnedArrows = false;
+    // How close (in blocks) a respawned arrow must land to an existing one to be merged into it
+    public static double mergeRadius = 0.5D;
+    // Most tracked arrows one chunk, one shooter or one world may hold; the oldest are discarded past it (0: no cap)
+    public static int maxArrowsPerChunk = 4096;
+    public static int maxArrowsPerOwner = 4096;
+    public static int maxArrowsPerWorld = 16384;
+    // Keep arrows parked with unloaded chunks in direct memory instead of on the heap
+    public static boolean offHeapArrowStore = false;
+    // Record arrow lifecycle events in a binary journal under each world's data/persistentarrows/journal
+    public static boolean arrowJournal = true;
+    // Records per journal segment (64 bytes each) and segments kept per world
+    public static int journalSegmentRecords = 16384;
+    public static int journalSegments = 8;
+    // Localhost port for the Prometheus metrics endpoint; 0 turns it off
+    public static int metricsPort = 0;
+    // Time every hook call from startup (per-hook histograms, /persistentarrows hooktime)
+    public static boolean hookTiming = false;
+    
+    /**
+     * Load the config file, creating it with defaults if it does not exist.
+     */
+    public static void load() {
+        Path file = FabricLoader.getInstance().getConfigDir().resolve(FILE_NAME);
+        Properties properties = new Properties();
+        
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                PersistentArrows.LOGGER.warn("Failed to read {}, using defaults: {}", file, e.getMessage());
+            }
+        }
+        
+        respawnBudgetMicros = getInt(properties, "respawnBudgetMicros", respawnBudgetMicros, 1);
+        mergeRespawnedArrows = Boolean.parseBoolean(properties.getProperty("mergeRespawnedArrows", String.valueOf(mergeRespawnedArrows)).trim());
+        mergeRadius = getDouble(properties, "mergeRadius", mergeRadius, 0.0D);
+        maxArrowsPerChunk = getInt(properties, "maxArrowsPerChunk", maxArrowsPerChunk, 0);
+        maxArrowsPerOwner = getInt(properties, "maxArrowsPerOwner", maxArrowsPerOwner, 0);
+        maxArrowsPerWorld = getInt(properties, "maxArrowsPerWorld", maxArrowsPerWorld, 0);
+        offHeapArrowStore = Boolean.parseBoolean(properties.getProperty("offHeapArrowStore", String.valueOf(offHeapArrowStore)).trim());
+        arrowJournal = Boolean.parseBoolean(properties.getProperty("arrowJournal", String.valueOf(arrowJournal)).trim());
+        journalSegmentRecords = Math.min(1 << 24, getInt(properties, "journalSegmentRecords", journalSegmentRecords, 64));
+        journalSegments = getInt(properties, "journalSegments", journalSegments, 1);
+        metricsPort = Math.min(65535, getInt(properties, "metricsPort", metricsPort, 0));
+        hookTiming = Boolean.parseBoolean(properties.getProperty("hookTiming", String.valueOf(hookTiming)).trim());
+        
+        save(file);
+    }
+    
+    private static void save(Path file) {
+        Properties properties = new Properties();
+        properties.setProperty("respawnBudgetMicros", String.valueOf(respawnBudgetMicros));
+        properties.setProperty("mergeRespawnedArrows", String.valueOf(mergeRespawnedArrows));
+        properties.setProperty("mergeRadius", String.valueOf(mergeRadius));
+        properties.setProperty("maxArrowsPerChunk", String.valueOf(maxArrowsPerChunk));
+        properties.setProperty("maxArrowsPerOwner", String.valueOf(maxArrowsPerOwner));
+        properties.setProperty("maxArrowsPerWorld", String.valueOf(maxArrowsPerWorld));
+        properties.setProperty("offHeapArrowStore", String.valueOf(offHeapArrowStore));
+        properties.setProperty("arrowJournal", String.valueOf(arrowJournal));
+        properties.setProperty("journalSegmentRecords", String.valueOf(journalSegmentRecords));
+        properties.setProperty("journalSegments", String.valueOf(journalSegments));
+        properties.setProperty("metricsPort", String.valueOf(metricsPort));
+        properties.setProperty("hookTiming", String.valueOf(hookTiming));
+        
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, "Persistent Arrows settings");
+        } catch (IOException e) {
+            PersistentArrows.LOGGER.warn("Failed to write {}: {}", file, e.getMessage());
+        }
+    }
+    
+    private static int getInt(Properties properties, String key, int fallback, int min) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Math.max(min, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            PersistentArrows.LOGGER.warn("Invalid value for {} in {}: {}", key, FILE_NAME, value);
+            return fallback;
+        }
+    }
+    
+    private static double getDouble(Properties properties, String key, double fallback, double min) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Math.max(min, Double.parseDouble(value.trim()));
+        } catch (NumberFormatException e) {
+            PersistentArrows.LOGGER.warn("Invalid value for {} in {}: {}", key, FILE_NAME, value);
+            return fallback;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.persistentarrows.debug;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Debug event categories with runtime toggles, sampling and rate limits.
+ * Everything is disabled by default; a disabled category costs one volatile read
+ * and no event is built or formatted for it.
+ */
+public enum DebugCategory {
+    ARROW_TRACKING,
+    DAMAGE_EVENTS,
+    CLOUD_EVENTS,
+    FIELD_ACCESS,
+    PERSISTENCE_DECISIONS,
+    VERBOSE;
+    
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    
+    private volatile boolean enabled = false;
+    // Record one in every 'sampleEvery' events (1 = record all)
+    private volatile int sampleEvery = 1;
+    // Maximum events recorded per second (0 = unlimited)
+    private volatile int maxPerSecond = 0;
+    
+    private final AtomicLong seen = new AtomicLong();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger windowCount = new AtomicInteger();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Check whether an event of this category should be recorded right now.
+     * Applies the toggle first, so disabled categories never reach sampling or rate limiting.
+     */
+    public boolean shouldRecord() {
+        if (!enabled) {
+            return false;
+        }
+        
+        int every = sampleEvery;
+        if (every > 1 && seen.incrementAndGet() % every != 0) {
+            sampledOut.increment();
+            return false;
+        }
+        
+        int limit = maxPerSecond;
+        if (limit > 0) {
+            long now = System.nanoTime();
+            long start = windowStart.get();
+            if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+                windowCount.set(0);
+            }
+            if (windowCount.incrementAndGet() > limit) {
+                rateLimited.increment();
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+    
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+    
+    public int getMaxPerSecond() {
+        return maxPerSecond;
+    }
+    
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = Math.max(0, maxPerSecond);
+    }
+    
+    public long getSampledOutCount() {
+        return sampledOut.sum();
+    }
+    
+    public long getRateLimitedCount() {
+        return rateLimited.sum();
+    }
+    
+    /**
+     * Lower-case name used in commands and system properties.
+     */
+    public String getId() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Find a category by its id, or null if there is none.
+     */
+    public static DebugCategory byId(String id) {
+        for (DebugCategory category : values()) {
+            if (category.getId().equals(id)) {
+                return category;
+            }
+        }
+        return null;
+    }
+}
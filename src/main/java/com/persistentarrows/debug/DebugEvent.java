@@ -0,0 +1,167 @@
+package com.persistentarrows.debug;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.UUID;
+
+/**
+ * Typed debug events. Events only capture values on the server thread;
+ * all string formatting happens later on the log writer thread.
+ */
+public sealed interface DebugEvent {
+    
+    long time();
+    
+    DebugCategory category();
+    
+    String name();
+    
+    /**
+     * Append the event's fields to a log line. Runs on the log writer thread.
+     */
+    void formatFields(StringBuilder out);
+    
+    record ArrowHit(long time, UUID arrowId, String arrowClass, UUID targetId, String targetType,
+                    float targetHealth, float targetMaxHealth, boolean livingTarget, long targetPos, long arrowPos,
+                    String arrowItem, boolean lingering, boolean inGround, int life) implements DebugEvent {
+        public DebugCategory category() { return DebugCategory.ARROW_TRACKING; }
+        public String name() { return "ARROW_HIT"; }
+        public void formatFields(StringBuilder out) {
+            field(out, "arrow", arrowId);
+            field(out, "arrowClass", arrowClass);
+            field(out, "target", targetType);
+            field(out, "targetId", targetId);
+            if (livingTarget) {
+                field(out, "health", targetHealth + "/" + targetMaxHealth);
+            }
+            field(out, "targetPos", BlockPos.fromLong(targetPos).toShortString());
+            field(out, "arrowPos", BlockPos.fromLong(arrowPos).toShortString());
+            field(out, "item", arrowItem);
+            field(out, "lingering", lingering);
+            field(out, "inGround", inGround);
+            field(out, "life", life);
+        }
+    }
+    
+    record ArrowCleanup(long time, UUID arrowId, String reason) implements DebugEvent {
+        public DebugCategory category() { return DebugCategory.ARROW_TRACKING; }
+        public String name() { return "ARROW_CLEANUP"; }
+        public void formatFields(StringBuilder out) {
+            field(out, "arrow", arrowId);
+            field(out, "reason", reason);
+        }
+    }
+    
+    record Damage(long time, String phase, UUID targetId, String targetType, float targetHealth, float targetMaxHealth,
+                  float amount, String sourceName, String sourceType, boolean fromCloud, boolean alive) implements DebugEvent {
+        public DebugCategory category() { return DebugCategory.DAMAGE_EVENTS; }
+        public String name() { return "DAMAGE_" + phase; }
+        public void formatFields(StringBuilder out) {
+            field(out, "target", targetType);
+            field(out, "targetId", targetId);
+            field(out, "health", targetHealth + "/" + targetMaxHealth);
+            field(out, "amount", amount);
+            field(out, "source", sourceName);
+            field(out, "sourceEntity", sourceType);
+            field(out, "cloud", fromCloud);
+            field(out, "lethal", amount >= targetHealth);
+            field(out, "alive", alive);
+        }
+    }
+    
+    record InstantKill(long time, UUID targetId, String targetType, float targetHealth, boolean alive,
+                       UUID cloudId, long cloudPos, String cloudOwnerType) implements DebugEvent {
+        public DebugCategory category() { return DebugCategory.DAMAGE_EVENTS; }
+        public String name() { return "INSTANT_KILL"; }
+        public void formatFields(StringBuilder out) {
+            field(out, "target", targetType);
+            field(out, "targetId", targetId);
+            field(out, "health", targetHealth);
+            field(out, "alive", alive);
+            field(out, "cloud", cloudId);
+            field(out, "cloudPos", BlockPos.fromLong(cloudPos).toShortString());
+            field(out, "cloudOwner", cloudOwnerType);
+        }
+    }
+    
+    record CloudTick(long time, UUID cloudId, long cloudPos, int age, int duration, int nearbyEntities) implements DebugEvent {
+        public DebugCategory category() { return DebugCategory.CLOUD_EVENTS; }
+        public String name() { return "CLOUD_TICK"; }
+        public void formatFields(StringBuilder out) {
+            field(out, "cloud", cloudId);
+            field(out, "pos", BlockPos.fromLong(cloudPos).toShortString());
+            field(out, "age", age);
+            field(out, "duration", duration);
+            field(out, "nearby", nearbyEntities);
+        }
+    }
+    
+    record FieldAccess(long time, UUID arrowId, String fieldName, Object value, boolean success, String arrowClass) implements DebugEvent {
+        public DebugCategory category() { return DebugCategory.FIELD_ACCESS; }
+        public String name() { return success ? "FIELD_ACCESS" : "FIELD_ACCESS_FAILED"; }
+        public void formatFields(StringBuilder out) {
+            field(out, "arrow", arrowId);
+            field(out, "field", fieldName);
+            field(out, "value", value);
+            field(out, "success", success);
+            field(out, "arrowClass", arrowClass);
+        }
+    }
+    
+    record PersistenceCheck(long time, UUID arrowId, boolean shouldPersist, String reason, long arrowPos,
+                            boolean inGround, int life) implements DebugEvent {
+        public DebugCategory category() { return DebugCategory.PERSISTENCE_DECISIONS; }
+        public String name() { return "PERSISTENCE_CHECK"; }
+        public void formatFields(StringBuilder out) {
+            field(out, "arrow", arrowId);
+            field(out, "persist", shouldPersist);
+            field(out, "reason", reason);
+            field(out, "pos", BlockPos.fromLong(arrowPos).toShortString());
+            field(out, "inGround", inGround);
+            field(out, "life", life);
+        }
+    }
+    
+    record PersistenceApplied(long time, UUID arrowId, boolean inGroundSet, boolean lifeReset, long arrowPos) implements DebugEvent {
+        public DebugCategory category() { return DebugCategory.PERSISTENCE_DECISIONS; }
+        public String name() { return "PERSISTENCE_APPLIED"; }
+        public void formatFields(StringBuilder out) {
+            field(out, "arrow", arrowId);
+            field(out, "inGroundCleared", inGroundSet);
+            field(out, "lifeReset", lifeReset);
+            field(out, "pos", BlockPos.fromLong(arrowPos).toShortString());
+        }
+    }
+    
+    record HelperState(long time, int trackedArrows, int persistentArrows) implements DebugEvent {
+        public DebugCategory category() { return DebugCategory.VERBOSE; }
+        public String name() { return "HELPER_STATE"; }
+        public void formatFields(StringBuilder out) {
+            field(out, "tracked", trackedArrows);
+            field(out, "persistent", persistentArrows);
+        }
+    }
+    
+    /**
+     * Free-form message with up to three arguments substituted for '{}' placeholders.
+     */
+    record Message(long time, DebugCategory category, String template, Object arg0, Object arg1, Object arg2) implements DebugEvent {
+        public String name() { return "MESSAGE"; }
+        public void formatFields(StringBuilder out) {
+            out.append(' ');
+            Object[] args = {arg0, arg1, arg2};
+            int argIndex = 0;
+            int start = 0;
+            int placeholder;
+            while ((placeholder = template.indexOf("{}", start)) >= 0 && argIndex < args.length) {
+                out.append(template, start, placeholder).append(args[argIndex++]);
+                start = placeholder + 2;
+            }
+            out.append(template, start, template.length());
+        }
+    }
+    
+    private static void field(StringBuilder out, String key, Object value) {
+        out.append(' ').append(key).append('=').append(value);
+    }
+}
@@ -0,0 +1,162 @@
+package com.persistentarrows.debug;
+
+import com.persistentarrows.PersistentArrows;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Background thread that drains the event ring buffer into a gzip-compressed log file.
+ * The active file is rotated once it reaches a size limit, keeping a fixed number of old files:
+ * events.log.gz is current, events.1.log.gz the newest rotated file, and so on.
+ */
+final class EventLogWriter implements Runnable {
+    private static final String FILE_PREFIX = "events";
+    private static final String FILE_SUFFIX = ".log.gz";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    
+    private final EventRingBuffer buffer;
+    private final Path directory;
+    private final long maxBytesPerFile;
+    private final int maxFiles;
+    
+    private volatile boolean running;
+    private Thread thread;
+    
+    // Writer thread state
+    private Writer out;
+    private long bytesWritten;
+    
+    EventLogWriter(EventRingBuffer buffer, Path directory, long maxBytesPerFile, int maxFiles) {
+        this.buffer = buffer;
+        this.directory = directory;
+        this.maxBytesPerFile = maxBytesPerFile;
+        this.maxFiles = maxFiles;
+    }
+    
+    /**
+     * Start the writer thread if it is not running.
+     */
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "PersistentArrows-EventLog");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+    
+    /**
+     * Stop the writer thread after it has drained everything queued so far.
+     */
+    synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+    
+    boolean isRunning() {
+        return running;
+    }
+    
+    @Override
+    public void run() {
+        StringBuilder line = new StringBuilder(256);
+        try {
+            open();
+            while (true) {
+                DebugEvent event = buffer.poll();
+                if (event == null) {
+                    if (!running) {
+                        break;
+                    }
+                    out.flush();
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                
+                line.setLength(0);
+                line.append(Instant.ofEpochMilli(event.time()))
+                    .append(' ').append(event.category().getId())
+                    .append(' ').append(event.name());
+                event.formatFields(line);
+                line.append('\n');
+                
+                out.append(line);
+                bytesWritten += line.length();
+                if (bytesWritten >= maxBytesPerFile) {
+                    rotate();
+                }
+            }
+        } catch (IOException e) {
+            PersistentArrows.LOGGER.error("[PersistentArrows Debug] Event log writer failed", e);
+            running = false;
+        } finally {
+            close();
+        }
+    }
+    
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        Path current = directory.resolve(FILE_PREFIX + FILE_SUFFIX);
+        if (Files.exists(current)) {
+            shiftRotatedFiles(); // Never append to a finished gzip stream from a previous run
+        }
+        out = new BufferedWriter(new OutputStreamWriter(
+            new GZIPOutputStream(Files.newOutputStream(current), 64 * 1024), StandardCharsets.UTF_8));
+        bytesWritten = 0;
+    }
+    
+    private void rotate() throws IOException {
+        out.close();
+        out = null;
+        open();
+    }
+    
+    private void shiftRotatedFiles() throws IOException {
+        Files.deleteIfExists(rotatedFile(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path file = rotatedFile(i);
+            if (Files.exists(file)) {
+                Files.move(file, rotatedFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(directory.resolve(FILE_PREFIX + FILE_SUFFIX), rotatedFile(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private Path rotatedFile(int index) {
+        return directory.resolve(FILE_PREFIX + "." + index + FILE_SUFFIX);
+    }
+    
+    private void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            PersistentArrows.LOGGER.error("[PersistentArrows Debug] Failed to close event log", e);
+        }
+        out = null;
+    }
+}
@@ -0,0 +1,76 @@
+package com.persistentarrows.debug;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer with many producers and a single consumer.
+ * Producers claim a slot with one CAS and never block; when the buffer is full
+ * the event is rejected so the server thread never waits on the log writer.
+ */
+final class EventRingBuffer {
+    private final DebugEvent[] events;
+    // Per-slot sequence: equals the claiming position when free, position + 1 when filled
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only touched by the consumer thread
+    private long head;
+    
+    EventRingBuffer(int capacityPowerOfTwo) {
+        if (Integer.bitCount(capacityPowerOfTwo) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacityPowerOfTwo);
+        }
+        this.events = new DebugEvent[capacityPowerOfTwo];
+        this.sequences = new AtomicLongArray(capacityPowerOfTwo);
+        this.mask = capacityPowerOfTwo - 1;
+        for (int i = 0; i < capacityPowerOfTwo; i++) {
+            sequences.set(i, i);
+        }
+    }
+    
+    /**
+     * Publish an event. Returns false if the buffer is full.
+     */
+    boolean offer(DebugEvent event) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events[index] = event;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false; // Consumer has not freed this slot yet
+            }
+            // Another producer claimed this position - retry with the new tail
+        }
+    }
+    
+    /**
+     * Take the next event, or null if none is ready. Consumer thread only.
+     */
+    DebugEvent poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        
+        DebugEvent event = events[index];
+        events[index] = null;
+        sequences.lazySet(index, head + events.length);
+        head++;
+        return event;
+    }
+    
+    /**
+     * Approximate number of queued events.
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
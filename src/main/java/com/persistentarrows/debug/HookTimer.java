@@ -0,0 +1,103 @@
+package com.persistentarrows.debug;
+
+import com.persistentarrows.metrics.Hook;
+
+import java.util.Arrays;
+
+/**
+ * Measures the time the server spends inside this mod's hooks, per server tick and
+ * per hook (see Hook). Off unless hookTiming is set in the config; while off, start()
+ * returns 0 and stop() only counts the call. Only touched from the server thread.
+ */
+public class HookTimer {
+
+    // Ticks kept for the summary (one minute)
+    private static final int WINDOW_TICKS = 1200;
+
+    private static boolean enabled;
+    private static long currentTickNanos;
+    private static final long[] samples = new long[WINDOW_TICKS];
+    private static int sampleCount;
+    private static int nextSample;
+
+    /**
+     * Timing figures over the recorded ticks, in nanoseconds.
+     */
+    public record Summary(int ticks, long meanNanos, long p99Nanos, long maxNanos) {
+        @Override
+        public String toString() {
+            return String.format("%d ticks, mean %.1f µs, p99 %.1f µs, max %.1f µs",
+                ticks, meanNanos / 1000.0, p99Nanos / 1000.0, maxNanos / 1000.0);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turn timing on or off. Turning it on starts a fresh window.
+     */
+    public static void setEnabled(boolean enabled) {
+        if (enabled && !HookTimer.enabled) {
+            reset();
+        }
+        HookTimer.enabled = enabled;
+    }
+
+    /**
+     * Forget every recorded tick.
+     */
+    public static void reset() {
+        currentTickNanos = 0;
+        sampleCount = 0;
+        nextSample = 0;
+    }
+
+    /**
+     * Mark the start of a hook. Pass the result to stop() when the hook returns.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public static void stop(Hook hook, long start) {
+        hook.getInvocations().increment();
+        if (start != 0L) {
+            long elapsed = System.nanoTime() - start;
+            currentTickNanos += elapsed;
+            hook.getDuration().record(elapsed);
+        }
+    }
+
+    /**
+     * Close the current tick's measurement. Called at the end of every server tick.
+     */
+    public static void endTick() {
+        if (!enabled) {
+            return;
+        }
+        samples[nextSample] = currentTickNanos;
+        nextSample = (nextSample + 1) % WINDOW_TICKS;
+        sampleCount = Math.min(sampleCount + 1, WINDOW_TICKS);
+        currentTickNanos = 0;
+    }
+
+    /**
+     * Summarize the recorded ticks (at most the last minute).
+     */
+    public static Summary summarize() {
+        if (sampleCount == 0) {
+            return new Summary(0, 0, 0, 0);
+        }
+
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long sample : sorted) {
+            total += sample;
+        }
+        int p99 = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.99D) - 1);
+        return new Summary(sorted.length, total / sorted.length, sorted[p99], sorted[sorted.length - 1]);
+    }
+}
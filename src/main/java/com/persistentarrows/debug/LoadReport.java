@@ -0,0 +1,101 @@
+package com.persistentarrows.debug;
+
+import com.persistentarrows.PersistentArrows;
+import com.persistentarrows.metrics.Hook;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.WorldSavePath;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Each hook's share of the server's tick time over a measured stretch of ticks, written
+ * out as the load scenario's report. Hook figures are the difference between the hook
+ * metrics when the report was created and when it is written, so HookTimer must be on
+ * in between; tick time is the server's own average, sampled once per tick.
+ */
+class LoadReport {
+
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'load-'yyyyMMdd-HHmmss'.txt'");
+
+    private final long[] startCalls = new long[Hook.values().length];
+    private final long[] startNanos = new long[Hook.values().length];
+    private long tickNanosTotal;
+    private int ticks;
+
+    LoadReport() {
+        for (Hook hook : Hook.values()) {
+            startCalls[hook.ordinal()] = hook.getInvocations().get();
+            startNanos[hook.ordinal()] = hook.getDuration().getSum();
+        }
+    }
+
+    /**
+     * Sample the server's tick time. Call once per measured tick.
+     */
+    void sampleTick(MinecraftServer server) {
+        tickNanosTotal += server.getAverageNanosPerTick();
+        ticks++;
+    }
+
+    int getTicks() {
+        return ticks;
+    }
+
+    double getMeanMspt() {
+        return ticks == 0 ? 0.0D : tickNanosTotal / (double) ticks / 1_000_000.0D;
+    }
+
+    /**
+     * The report: the given facts about the run, then one line per hook with its calls
+     * and time per tick and its share of the mean tick time.
+     */
+    List<String> lines(String title, List<String> facts, HookTimer.Summary timing) {
+        List<String> lines = new ArrayList<>();
+        String version = FabricLoader.getInstance().getModContainer(PersistentArrows.MOD_ID)
+            .map(mod -> mod.getMetadata().getVersion().getFriendlyString()).orElse("unknown");
+        lines.add(title + " (Persistent Arrows " + version + ", " + LocalDateTime.now().withNano(0) + ")");
+        lines.addAll(facts);
+        lines.add(String.format(Locale.ROOT, "Measured %d ticks, mean MSPT %.2f ms", ticks, getMeanMspt()));
+        lines.add("Hook time per tick: " + timing);
+        lines.add(String.format(Locale.ROOT, "%-14s %12s %12s %10s", "hook", "calls/tick", "µs/tick", "% of MSPT"));
+
+        double tickNanos = ticks == 0 ? 0.0D : tickNanosTotal / (double) ticks;
+        double totalNanos = 0.0D;
+        for (Hook hook : Hook.values()) {
+            double calls = perTick(hook.getInvocations().get() - startCalls[hook.ordinal()]);
+            double nanos = perTick(hook.getDuration().getSum() - startNanos[hook.ordinal()]);
+            totalNanos += nanos;
+            lines.add(String.format(Locale.ROOT, "%-14s %12.1f %12.1f %9.2f%%", hook.name().toLowerCase(Locale.ROOT),
+                calls, nanos / 1000.0D, share(nanos, tickNanos)));
+        }
+        lines.add(String.format(Locale.ROOT, "%-14s %12s %12.1f %9.2f%%", "total", "", totalNanos / 1000.0D, share(totalNanos, tickNanos)));
+        return lines;
+    }
+
+    /**
+     * Write the report to the save's persistentarrows/reports folder. Returns the file.
+     */
+    Path write(MinecraftServer server, List<String> lines) throws IOException {
+        Path directory = server.getSavePath(WorldSavePath.ROOT).resolve(PersistentArrows.MOD_ID).resolve("reports");
+        Files.createDirectories(directory);
+        Path file = directory.resolve(LocalDateTime.now().format(FILE_NAME));
+        Files.write(file, lines);
+        return file;
+    }
+
+    private double perTick(long total) {
+        return ticks == 0 ? 0.0D : total / (double) ticks;
+    }
+
+    private static double share(double nanos, double tickNanos) {
+        return tickNanos == 0.0D ? 0.0D : nanos * 100.0D / tickNanos;
+    }
+}
@@ -0,0 +1,101 @@
+package com.persistentarrows.debug;
+
+import com.persistentarrows.PersistentArrows;
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Properties;
+
+/**
+ * The stored hook time baseline the timed game tests are held to, used by ./gradlew perfTest.
+ * Every timed result is written to perf-results.properties in the game dir and compared
+ * against the baseline file. A baseline counts only once it was recorded by a run with
+ * -PupdateBaseline, which stamps it with the machine it was measured on; figures written
+ * by hand are rejected. Only touched from the server thread.
+ */
+public class PerfBaseline {
+
+    // Properties file holding the baseline timings; the timed tests fail if it is missing
+    private static final String BASELINE_PROPERTY = "persistentarrows.perfBaseline";
+    // Overwrite the baseline with this run's timings instead of comparing against it
+    private static final String UPDATE_BASELINE_PROPERTY = "persistentarrows.updateBaseline";
+    // Allowed slowdown against the baseline, as a fraction
+    private static final String TOLERANCE_PROPERTY = "persistentarrows.perfTolerance";
+    // Set only by a recording run; a baseline without it was never measured
+    private static final String MEASURED_ON_KEY = "measuredOn";
+
+    private static final Properties measured = new Properties();
+
+    /**
+     * Record a timed result and compare it against the baseline. Returns null if it is
+     * within the baseline, otherwise why not: the baseline is missing, unmeasured or has no
+     * figure for the scenario, or its mean or p99 regressed past the tolerance.
+     */
+    public static String check(TestScenarios.Result result) {
+        Properties figures = new Properties();
+        figures.setProperty(result.scenario() + ".meanMicros", String.valueOf(result.timing().meanNanos() / 1000.0D));
+        figures.setProperty(result.scenario() + ".p99Micros", String.valueOf(result.timing().p99Nanos() / 1000.0D));
+        measured.putAll(figures);
+        store(measured, FabricLoader.getInstance().getGameDir().resolve("perf-results.properties"), "Hook time of the last game test run");
+
+        String baselinePath = System.getProperty(BASELINE_PROPERTY);
+        if (baselinePath == null) {
+            return null;
+        }
+        Path baselineFile = Path.of(baselinePath);
+        Properties baseline = new Properties();
+        if (Files.exists(baselineFile)) {
+            try (Reader reader = Files.newBufferedReader(baselineFile)) {
+                baseline.load(reader);
+            } catch (IOException e) {
+                return "Failed to read performance baseline " + baselineFile + ": " + e.getMessage();
+            }
+        }
+
+        if (Boolean.getBoolean(UPDATE_BASELINE_PROPERTY)) {
+            baseline.putAll(figures);
+            baseline.setProperty(MEASURED_ON_KEY, String.format("%s %s, %d cores, Java %s, %s",
+                System.getProperty("os.name"), System.getProperty("os.arch"), Runtime.getRuntime().availableProcessors(),
+                System.getProperty("java.version"), LocalDate.now()));
+            store(baseline, baselineFile, "Hook time baseline for ./gradlew perfTest");
+            PersistentArrows.LOGGER.info("Recorded {} in performance baseline {}", result.scenario(), baselineFile);
+            return null;
+        }
+        if (!Files.exists(baselineFile)) {
+            return "No performance baseline at " + baselineFile + "; record one with ./gradlew perfTest -PupdateBaseline";
+        }
+        if (baseline.getProperty(MEASURED_ON_KEY) == null) {
+            return "Performance baseline " + baselineFile + " was never measured; record it on the reference machine with ./gradlew perfTest -PupdateBaseline";
+        }
+
+        double tolerance = Double.parseDouble(System.getProperty(TOLERANCE_PROPERTY, "0.25"));
+        StringBuilder failures = new StringBuilder();
+        for (String key : figures.stringPropertyNames()) {
+            String expected = baseline.getProperty(key);
+            if (expected == null) {
+                failures.append("Performance baseline has no ").append(key).append("; record it with ./gradlew perfTest -PupdateBaseline. ");
+                continue;
+            }
+            double limit = Double.parseDouble(expected) * (1.0D + tolerance);
+            double actual = Double.parseDouble(figures.getProperty(key));
+            if (actual > limit) {
+                failures.append(String.format("Performance regression in %s: %.1f µs, baseline %s µs (limit %.1f µs). ",
+                    key, actual, expected, limit));
+            }
+        }
+        return failures.isEmpty() ? null : failures.toString().trim();
+    }
+
+    private static void store(Properties properties, Path file, String comment) {
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, comment);
+        } catch (IOException e) {
+            PersistentArrows.LOGGER.warn("Failed to write {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -1,289 +1,226 @@
 package com.persistentarrows.debug;
 
 import com.persistentarrows.PersistentArrows;
+import com.persistentarrows.mixin.PersistentProjectileEntityAccessor;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.entity.AreaEffectCloudEntity;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.damage.DamageSource;
 import net.minecraft.entity.projectile.PersistentProjectileEntity;
-import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.LingeringPotionItem;
-import net.minecraft.text.Text;
-import net.minecraft.util.Formatting;
-import net.minecraft.world.World;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Comprehensive debugging class for Persistent Arrows mod.
- * Logs every possible interaction, error, and state change for thorough testing.
+ * Debugging class for Persistent Arrows mod.
+ * Records typed events into a lock-free ring buffer that a background thread writes
+ * to a rotating, compressed log under logs/persistentarrows. Each category can be
+ * toggled, sampled and rate limited at runtime; nothing is built or formatted
+ * on the server thread for a disabled category.
  */
 public class PersistentArrowsDebugger {
     
     private static final String PREFIX = "[PersistentArrows Debug] ";
     private static final String SEPARATOR = "================================================";
     
-    // Debug levels
-    public static boolean VERBOSE_LOGGING = true;
-    public static boolean LOG_ARROW_TRACKING = true;
-    public static boolean LOG_DAMAGE_EVENTS = true;
-    public static boolean LOG_CLOUD_EVENTS = true;
-    public static boolean LOG_FIELD_ACCESS = true;
-    public static boolean LOG_PERSISTENCE_DECISIONS = true;
+    // Comma-separated category ids to enable at startup, or "all"
+    private static final String CATEGORIES_PROPERTY = "persistentarrows.debug";
+    
+    private static final EventRingBuffer buffer = new EventRingBuffer(1 << 14);
+    private static final EventLogWriter writer = new EventLogWriter(buffer,
+        FabricLoader.getInstance().getGameDir().resolve("logs").resolve(PersistentArrows.MOD_ID),
+        32L * 1024 * 1024, 5);
+    private static final LongAdder droppedEvents = new LongAdder();
     
     /**
      * Initialize debugging system
      */
     public static void init() {
+        String enabled = System.getProperty(CATEGORIES_PROPERTY, "");
+        for (String id : enabled.split(",")) {
+            id = id.trim();
+            if (id.equals("all")) {
+                for (DebugCategory category : DebugCategory.values()) {
+                    category.setEnabled(true);
+                }
+            } else if (!id.isEmpty()) {
+                DebugCategory category = DebugCategory.byId(id);
+                if (category != null) {
+                    category.setEnabled(true);
+                } else {
+                    warn("Unknown debug category in -D" + CATEGORIES_PROPERTY + ": " + id);
+                }
+            }
+        }
+        
         info("=== PERSISTENT ARROWS DEBUG SYSTEM INITIALIZED ===");
-        info("Verbose Logging: " + VERBOSE_LOGGING);
-        info("Arrow Tracking: " + LOG_ARROW_TRACKING);
-        info("Damage Events: " + LOG_DAMAGE_EVENTS);
-        info("Cloud Events: " + LOG_CLOUD_EVENTS);
-        info("Field Access: " + LOG_FIELD_ACCESS);
-        info("Persistence Decisions: " + LOG_PERSISTENCE_DECISIONS);
+        for (DebugCategory category : DebugCategory.values()) {
+            info(category.getId() + ": " + category.isEnabled());
+        }
         info(SEPARATOR);
     }
     
+    /**
+     * Flush queued events and stop the writer thread. Called when the server stops.
+     */
+    public static void shutdown() {
+        writer.stop();
+    }
+    
     // === ARROW TRACKING DEBUG ===
     
     public static void logArrowHit(PersistentProjectileEntity arrow, LivingEntity target) {
-        if (!LOG_ARROW_TRACKING) return;
-        
-        info("ARROW HIT EVENT:");
-        info("  Arrow UUID: " + arrow.getUuid());
-        info("  Arrow Type: " + arrow.getClass().getSimpleName());
-        info("  Target: " + target.getType().getTranslationKey() + " (UUID: " + target.getUuid() + ")");
-        info("  Target Health: " + target.getHealth() + "/" + target.getMaxHealth());
-        info("  Target Position: " + target.getBlockPos());
-        info("  Arrow Position: " + arrow.getBlockPos());
-        info("  World: " + (arrow.getWorld().isClient ? "CLIENT" : "SERVER"));
-        
-        // Check arrow item
-        ItemStack arrowItem = arrow.getItemStack();
-        info("  Arrow Item: " + arrowItem.getItem().getTranslationKey());
-        info("  Is Lingering Potion: " + (arrowItem.getItem() instanceof LingeringPotionItem));
-        
-        if (arrowItem.getItem() instanceof LingeringPotionItem) {
-            try {
-                // Try to get potion information - may vary by version
-                info("  Potion Item: Lingering Potion detected");
-                info("  Item Components: " + arrowItem.getComponents().toString());
-            } catch (Exception e) {
-                info("  Potion Info: Unable to extract potion details");
-            }
-        }
-        
-        info("  Arrow InGround: " + getArrowInGroundState(arrow));
-        info("  Arrow Life: " + getArrowLifeState(arrow));
-        info(SEPARATOR);
+        if (!DebugCategory.ARROW_TRACKING.shouldRecord()) return;
+        recordArrowHit(arrow, target, true, target.getHealth(), target.getMaxHealth());
     }
     
     // Overloaded method for generic Entity targets
-    public static void logArrowHit(PersistentProjectileEntity arrow, net.minecraft.entity.Entity target) {
-        if (!LOG_ARROW_TRACKING) return;
-        
-        info("ARROW HIT EVENT:");
-        info("  Arrow UUID: " + arrow.getUuid());
-        info("  Arrow Type: " + arrow.getClass().getSimpleName());
-        info("  Target: " + target.getType().getTranslationKey() + " (UUID: " + target.getUuid() + ")");
-        info("  Target Position: " + target.getBlockPos());
-        info("  Arrow Position: " + arrow.getBlockPos());
-        info("  World: " + (arrow.getWorld().isClient ? "CLIENT" : "SERVER"));
-        
-        // Check arrow item
-        ItemStack arrowItem = arrow.getItemStack();
-        info("  Arrow Item: " + arrowItem.getItem().getTranslationKey());
-        info("  Is Lingering Potion: " + (arrowItem.getItem() instanceof LingeringPotionItem));
-        
-        if (arrowItem.getItem() instanceof LingeringPotionItem) {
-            try {
-                // Try to get potion information - may vary by version
-                info("  Potion Item: Lingering Potion detected");
-                info("  Item Components: " + arrowItem.getComponents().toString());
-            } catch (Exception e) {
-                info("  Potion Info: Unable to extract potion details");
-            }
-        }
-        
-        info("  Arrow InGround: " + getArrowInGroundState(arrow));
-        info("  Arrow Life: " + getArrowLifeState(arrow));
-        info(SEPARATOR);
+    public static void logArrowHit(PersistentProjectileEntity arrow, Entity target) {
+        if (!DebugCategory.ARROW_TRACKING.shouldRecord()) return;
+        recordArrowHit(arrow, target, false, 0.0f, 0.0f);
     }
     
-    public static void logArrowTracking(PersistentProjectileEntity arrow, LivingEntity target, boolean wasTracked) {
-        if (!LOG_ARROW_TRACKING) return;
-        
-        info("ARROW TRACKING DECISION:");
-        info("  Arrow UUID: " + arrow.getUuid());
-        info("  Target: " + target.getType().getTranslationKey());
-        info("  Was Tracked: " + wasTracked);
-        info("  Reason: " + (wasTracked ? "Lingering potion arrow detected" : "Not a lingering potion arrow"));
-        info(SEPARATOR);
+    private static void recordArrowHit(PersistentProjectileEntity arrow, Entity target, boolean living, float health, float maxHealth) {
+        ItemStack arrowItem = arrow.getItemStack();
+        publish(new DebugEvent.ArrowHit(System.currentTimeMillis(), arrow.getUuid(), arrow.getClass().getSimpleName(),
+            target.getUuid(), target.getType().getTranslationKey(), health, maxHealth, living,
+            target.getBlockPos().asLong(), arrow.getBlockPos().asLong(),
+            arrowItem.getItem().getTranslationKey(), arrowItem.getItem() instanceof LingeringPotionItem,
+            arrow.isInGround(), getArrowLife(arrow)));
     }
     
     // === DAMAGE EVENT DEBUG ===
     
     public static void logDamageEvent(LivingEntity target, DamageSource source, float amount, String phase) {
-        if (!LOG_DAMAGE_EVENTS) return;
-        
-        info("DAMAGE EVENT (" + phase + "):");
-        info("  Target: " + target.getType().getTranslationKey() + " (UUID: " + target.getUuid() + ")");
-        info("  Target Health Before: " + target.getHealth() + "/" + target.getMaxHealth());
-        info("  Damage Amount: " + amount);
-        info("  Damage Source: " + source.getName());
-        info("  Source Entity: " + (source.getSource() != null ? source.getSource().getType().getTranslationKey() : "null"));
-        info("  Is Area Effect Cloud: " + (source.getSource() instanceof AreaEffectCloudEntity));
-        info("  Would Be Lethal: " + (amount >= target.getHealth()));
-        info("  Target Is Alive: " + target.isAlive());
-        info("  World: " + (target.getWorld().isClient ? "CLIENT" : "SERVER"));
-        info(SEPARATOR);
+        if (!DebugCategory.DAMAGE_EVENTS.shouldRecord()) return;
+        Entity sourceEntity = source.getSource();
+        publish(new DebugEvent.Damage(System.currentTimeMillis(), phase, target.getUuid(),
+            target.getType().getTranslationKey(), target.getHealth(), target.getMaxHealth(), amount, source.getName(),
+            sourceEntity != null ? sourceEntity.getType().getTranslationKey() : "null",
+            sourceEntity instanceof AreaEffectCloudEntity, target.isAlive()));
     }
     
     public static void logInstantKill(LivingEntity target, AreaEffectCloudEntity cloud) {
-        if (!LOG_DAMAGE_EVENTS) return;
-        
-        info("INSTANT KILL DETECTED:");
-        info("  Target: " + target.getType().getTranslationKey() + " (UUID: " + target.getUuid() + ")");
-        info("  Target Health: " + target.getHealth());
-        info("  Target Is Alive: " + target.isAlive());
-        info("  Cloud UUID: " + cloud.getUuid());
-        info("  Cloud Position: " + cloud.getBlockPos());
-        info("  Cloud Effects: [Debug info unavailable - method not found]");
-        info("  Cloud Owner: " + (cloud.getOwner() != null ? cloud.getOwner().getType().getTranslationKey() : "null"));
-        info("  World: " + (target.getWorld().isClient ? "CLIENT" : "SERVER"));
-        info(SEPARATOR);
+        if (!DebugCategory.DAMAGE_EVENTS.shouldRecord()) return;
+        Entity owner = cloud.getOwner();
+        publish(new DebugEvent.InstantKill(System.currentTimeMillis(), target.getUuid(),
+            target.getType().getTranslationKey(), target.getHealth(), target.isAlive(), cloud.getUuid(),
+            cloud.getBlockPos().asLong(), owner != null ? owner.getType().getTranslationKey() : "null"));
     }
     
     // === CLOUD EVENT DEBUG ===
     
     public static void logCloudTick(AreaEffectCloudEntity cloud, int nearbyEntities) {
-        if (!LOG_CLOUD_EVENTS || !VERBOSE_LOGGING) return;
-        
-        debug("CLOUD TICK:");
-        debug("  Cloud UUID: " + cloud.getUuid());
-        debug("  Cloud Position: " + cloud.getBlockPos());
-        debug("  Cloud Age: " + cloud.age);
-        debug("  Cloud Duration: " + cloud.getDuration());
-        debug("  Nearby Entities: " + nearbyEntities);
-        debug("  Cloud Effects: [Debug info unavailable - method not found]");
-        debug("  World: " + (cloud.getWorld().isClient ? "CLIENT" : "SERVER"));
+        if (!DebugCategory.CLOUD_EVENTS.shouldRecord()) return;
+        publish(new DebugEvent.CloudTick(System.currentTimeMillis(), cloud.getUuid(), cloud.getBlockPos().asLong(),
+            cloud.age, cloud.getDuration(), nearbyEntities));
     }
     
     // === FIELD ACCESS DEBUG ===
     
     public static void logFieldAccess(PersistentProjectileEntity arrow, String fieldName, Object value, boolean success) {
-        if (!LOG_FIELD_ACCESS) return;
-        
-        info("FIELD ACCESS ATTEMPT:");
-        info("  Arrow UUID: " + arrow.getUuid());
-        info("  Field Name: " + fieldName);
-        info("  New Value: " + value);
-        info("  Success: " + success);
-        info("  Arrow Type: " + arrow.getClass().getSimpleName());
-        info("  World: " + (arrow.getWorld().isClient ? "CLIENT" : "SERVER"));
-        
-        if (!success) {
-            error("  FIELD ACCESS FAILED for " + fieldName);
-        }
-        
-        info(SEPARATOR);
+        if (!DebugCategory.FIELD_ACCESS.shouldRecord()) return;
+        publish(new DebugEvent.FieldAccess(System.currentTimeMillis(), arrow.getUuid(), fieldName, value, success,
+            arrow.getClass().getSimpleName()));
     }
     
     public static void logReflectionError(Exception e, String operation) {
-        if (!LOG_FIELD_ACCESS) return;
-        
-        error("REFLECTION ERROR during " + operation + ":");
-        error("  Exception Type: " + e.getClass().getSimpleName());
-        error("  Message: " + e.getMessage());
-        error("  Stack Trace: ");
-        for (StackTraceElement element : e.getStackTrace()) {
-            error("    " + element.toString());
-        }
-        error(SEPARATOR);
+        if (!DebugCategory.FIELD_ACCESS.isEnabled()) return;
+        PersistentArrows.LOGGER.error(PREFIX + "REFLECTION ERROR during " + operation, e);
     }
     
     // === PERSISTENCE DECISION DEBUG ===
     
     public static void logPersistenceCheck(PersistentProjectileEntity arrow, boolean shouldPersist, String reason) {
-        if (!LOG_PERSISTENCE_DECISIONS) return;
-        
-        info("PERSISTENCE CHECK:");
-        info("  Arrow UUID: " + arrow.getUuid());
-        info("  Should Persist: " + shouldPersist);
-        info("  Reason: " + reason);
-        info("  Arrow Position: " + arrow.getBlockPos());
-        info("  Arrow InGround: " + getArrowInGroundState(arrow));
-        info("  Arrow Life: " + getArrowLifeState(arrow));
-        info("  World: " + (arrow.getWorld().isClient ? "CLIENT" : "SERVER"));
-        info(SEPARATOR);
+        if (!DebugCategory.PERSISTENCE_DECISIONS.shouldRecord()) return;
+        publish(new DebugEvent.PersistenceCheck(System.currentTimeMillis(), arrow.getUuid(), shouldPersist, reason,
+            arrow.getBlockPos().asLong(), arrow.isInGround(), getArrowLife(arrow)));
     }
     
     public static void logArrowPersistenceApplied(PersistentProjectileEntity arrow, boolean inGroundSet, boolean lifeReset) {
-        if (!LOG_PERSISTENCE_DECISIONS) return;
-        
-        info("PERSISTENCE APPLIED:");
-        info("  Arrow UUID: " + arrow.getUuid());
-        info("  InGround Set to False: " + inGroundSet);
-        info("  Life Reset to Zero: " + lifeReset);
-        info("  Arrow Position: " + arrow.getBlockPos());
-        info("  World: " + (arrow.getWorld().isClient ? "CLIENT" : "SERVER"));
-        info(SEPARATOR);
+        if (!DebugCategory.PERSISTENCE_DECISIONS.shouldRecord()) return;
+        publish(new DebugEvent.PersistenceApplied(System.currentTimeMillis(), arrow.getUuid(), inGroundSet, lifeReset,
+            arrow.getBlockPos().asLong()));
     }
     
     // === HELPER TRACKING DEBUG ===
     
     public static void logHelperState(int trackedArrows, int persistentArrows) {
-        if (!LOG_PERSISTENCE_DECISIONS || !VERBOSE_LOGGING) return;
-        
-        debug("HELPER STATE:");
-        debug("  Tracked Arrows: " + trackedArrows);
-        debug("  Persistent Arrows: " + persistentArrows);
+        if (!DebugCategory.VERBOSE.shouldRecord()) return;
+        publish(new DebugEvent.HelperState(System.currentTimeMillis(), trackedArrows, persistentArrows));
     }
     
     public static void logArrowCleanup(UUID arrowId, String reason) {
-        if (!LOG_ARROW_TRACKING) return;
-        
-        info("ARROW CLEANUP:");
-        info("  Arrow UUID: " + arrowId);
-        info("  Reason: " + reason);
-        info(SEPARATOR);
+        if (!DebugCategory.ARROW_TRACKING.shouldRecord()) return;
+        publish(new DebugEvent.ArrowCleanup(System.currentTimeMillis(), arrowId, reason));
     }
     
     // === UTILITY METHODS ===
     
-    private static String getArrowInGroundState(PersistentProjectileEntity arrow) {
-        try {
-            java.lang.reflect.Field inGroundField = PersistentProjectileEntity.class.getDeclaredField("inGround");
-            inGroundField.setAccessible(true);
-            return String.valueOf(inGroundField.getBoolean(arrow));
-        } catch (Exception e) {
-            return "UNKNOWN (reflection failed)";
-        }
+    private static int getArrowLife(PersistentProjectileEntity arrow) {
+        return ((PersistentProjectileEntityAccessor) arrow).persistentarrows$getLife();
     }
     
-    private static String getArrowLifeState(PersistentProjectileEntity arrow) {
-        try {
-            java.lang.reflect.Field lifeField = PersistentProjectileEntity.class.getDeclaredField("life");
-            lifeField.setAccessible(true);
-            return String.valueOf(lifeField.getInt(arrow));
-        } catch (Exception e) {
-            return "UNKNOWN (reflection failed)";
+    // === EVENT PIPELINE ===
+    
+    /**
+     * Record a message in a category. The template uses '{}' placeholders that are
+     * only filled in on the writer thread, so callers pass values, never built strings.
+     * Callers whose arguments box a primitive or allocate check category.isEnabled() first.
+     */
+    public static void trace(DebugCategory category, String template) {
+        if (!category.shouldRecord()) return;
+        publish(new DebugEvent.Message(System.currentTimeMillis(), category, template, null, null, null));
+    }
+    
+    public static void trace(DebugCategory category, String template, Object arg0) {
+        if (!category.shouldRecord()) return;
+        publish(new DebugEvent.Message(System.currentTimeMillis(), category, template, arg0, null, null));
+    }
+    
+    public static void trace(DebugCategory category, String template, Object arg0, Object arg1) {
+        if (!category.shouldRecord()) return;
+        publish(new DebugEvent.Message(System.currentTimeMillis(), category, template, arg0, arg1, null));
+    }
+    
+    public static void trace(DebugCategory category, String template, Object arg0, Object arg1, Object arg2) {
+        if (!category.shouldRecord()) return;
+        publish(new DebugEvent.Message(System.currentTimeMillis(), category, template, arg0, arg1, arg2));
+    }
+    
+    private static void publish(DebugEvent event) {
+        if (!writer.isRunning()) {
+            writer.start();
+        }
+        if (!buffer.offer(event)) {
+            droppedEvents.increment(); // Writer is behind - drop rather than stall the tick
         }
     }
     
+    /**
+     * Number of events dropped because the ring buffer was full.
+     */
+    public static long getDroppedEventCount() {
+        return droppedEvents.sum();
+    }
+    
+    /**
+     * Number of events waiting to be written.
+     */
+    public static int getQueuedEventCount() {
+        return buffer.size();
+    }
+    
     // === LOGGING METHODS ===
+    // Written synchronously to the main log; reserve these for rare, important messages.
     
     public static void info(String message) {
         PersistentArrows.LOGGER.info(PREFIX + message);
     }
     
-    public static void debug(String message) {
-        if (VERBOSE_LOGGING) {
-            PersistentArrows.LOGGER.info(PREFIX + "[DEBUG] " + message);
-        }
-    }
-    
     public static void warn(String message) {
         PersistentArrows.LOGGER.warn(PREFIX + message);
     }
@@ -314,4 +251,4 @@ public class PersistentArrowsDebugger {
         }
         info(SEPARATOR);
     }
-}
\ No newline at end of file
+}
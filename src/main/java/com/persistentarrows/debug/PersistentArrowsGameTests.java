@@ -0,0 +1,96 @@
+package com.persistentarrows.debug;
+
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * The TestScenarios cases as headless Fabric GameTests, run by ./gradlew perfTest
+ * (registered as the fabric-gametest entrypoint).
+ * The behaviour cases run side by side in the default empty structure. Each timed case
+ * has a test environment of its own, so it runs in a batch by itself and no other test
+ * adds to its hook time; it builds in the larger arena structure and is held to the
+ * stored baseline (see PerfBaseline).
+ */
+public class PersistentArrowsGameTests {
+
+    // Behaviour cases build around this block of the default 8x8x8 structure
+    private static final BlockPos ORIGIN = new BlockPos(1, 1, 1);
+    // Timed cases build around this block of the arena; the idle husks stand two below it
+    private static final BlockPos ARENA_ORIGIN = new BlockPos(2, 3, 2);
+    private static final String ARENA = "persistentarrows:arena";
+    // Settle time plus room for setup
+    private static final int BEHAVIOUR_TICKS = 100;
+    // Warmup and measured ticks plus room for setup
+    private static final int TIMED_TICKS = 400;
+
+    @GameTest(maxTicks = BEHAVIOUR_TICKS)
+    public void basic(TestContext context) {
+        run(context, ORIGIN, TestScenarios::testBasicLingeringArrowKill);
+    }
+
+    @GameTest(maxTicks = BEHAVIOUR_TICKS)
+    public void regular(TestContext context) {
+        run(context, ORIGIN, TestScenarios::testRegularArrowKill);
+    }
+
+    @GameTest(maxTicks = BEHAVIOUR_TICKS)
+    public void nonfatal(TestContext context) {
+        run(context, ORIGIN, TestScenarios::testLingeringArrowNonFatal);
+    }
+
+    @GameTest(maxTicks = BEHAVIOUR_TICKS)
+    public void multiple(TestContext context) {
+        run(context, ORIGIN, TestScenarios::testMultipleLingeringArrows);
+    }
+
+    @GameTest(maxTicks = BEHAVIOUR_TICKS)
+    public void fields(TestContext context) {
+        run(context, ORIGIN, TestScenarios::testFieldAccess);
+    }
+
+    @GameTest(environment = "persistentarrows:scaled_1000", structure = ARENA, maxTicks = TIMED_TICKS)
+    public void scaled1000(TestContext context) {
+        run(context, ARENA_ORIGIN, TestScenarios.scaled(1000));
+    }
+
+    @GameTest(environment = "persistentarrows:scaled_5000", structure = ARENA, maxTicks = TIMED_TICKS)
+    public void scaled5000(TestContext context) {
+        run(context, ARENA_ORIGIN, TestScenarios.scaled(5000));
+    }
+
+    @GameTest(environment = "persistentarrows:scaled_10000", structure = ARENA, maxTicks = TIMED_TICKS)
+    public void scaled10000(TestContext context) {
+        run(context, ARENA_ORIGIN, TestScenarios.scaled(10000));
+    }
+
+    // Roughly what 100 players keep loaded around them, at ~50 entities each
+    @GameTest(environment = "persistentarrows:idle_5000", structure = ARENA, maxTicks = TIMED_TICKS)
+    public void idle5000(TestContext context) {
+        run(context, ARENA_ORIGIN, TestScenarios.idle(5000));
+    }
+
+    /**
+     * Start a scenario in the test's structure and pass the test once it reports back
+     * passed and, if it was timed, within the baseline.
+     */
+    private static void run(TestContext context, BlockPos origin, TestScenarios.Scenario scenario) {
+        TestScenarios.Result[] result = new TestScenarios.Result[1];
+        String[] failure = new String[1];
+        scenario.run(context.getWorld(), context.getAbsolutePos(origin), done -> {
+            result[0] = done;
+            if (!done.passed()) {
+                failure[0] = done.detail();
+            } else if (done.timing() != null) {
+                failure[0] = PerfBaseline.check(done);
+            }
+        });
+        context.addFinalTask(() -> {
+            context.assertTrue(result[0] != null, Text.literal("Scenario still running"));
+            if (failure[0] != null) {
+                context.assertTrue(false, Text.literal(failure[0]));
+            }
+        });
+    }
+}
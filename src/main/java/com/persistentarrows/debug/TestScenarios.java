@@ -1,126 +1,579 @@
 package com.persistentarrows.debug;
 
+import com.persistentarrows.PersistentArrows;
+import com.persistentarrows.mixin.PersistentProjectileEntityAccessor;
+import com.persistentarrows.tracking.ActiveArrows;
+import com.persistentarrows.tracking.ArrowClassifier;
+import com.persistentarrows.tracking.ArrowStacks;
+import com.persistentarrows.tracking.LingeringArrowTracker;
+import com.persistentarrows.tracking.RespawnPipeline;
+import com.persistentarrows.tracking.WorldArrowState;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.BubbleColumnBlock;
+import net.minecraft.component.type.PotionContentsComponent;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.SpawnReason;
+import net.minecraft.entity.decoration.ArmorStandEntity;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.entity.projectile.ArrowEntity;
+import net.minecraft.entity.projectile.PersistentProjectileEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.potion.Potions;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
 /**
  * Test scenarios and expected behaviors for the Persistent Arrows mod.
- * Use this class to validate that the mod is working correctly.
+ * Each scenario builds its own setup next to a given origin, lets the world run,
+ * checks the outcome and clears the area again. Run them in game with
+ * /persistentarrows scenario, or headless with ./gradlew perfTest (see PersistentArrowsGameTests).
+ * The load scenario is only run from the command, to load-test a build on a live server.
  */
 public class TestScenarios {
-    
+
+    // Ticks a behaviour scenario runs before its outcome is checked
+    private static final long SETTLE_TICKS = 40;
+    // Ticks a scaled scenario runs before measuring starts (tracking everything, JIT)
+    private static final long WARMUP_TICKS = 40;
+    // Ticks a scaled scenario is measured over
+    private static final long MEASURED_TICKS = 200;
+    // Arrows placed per bubble column in the scaled scenarios
+    private static final int ARROWS_PER_COLUMN = 64;
+    private static final int COLUMN_HEIGHT = 16;
+    // Shooters the load scenario's arrows are credited to, spread over the columns
+    private static final int MAX_SHOOTERS = 16;
+    // Ticks between the load scenario's checks for killed targets to replace
+    private static final long TARGET_WAVE_TICKS = 20;
+
+    /**
+     * A runnable scenario. Calls done exactly once, from the world's tick.
+     */
+    public interface Scenario {
+        void run(ServerWorld world, BlockPos origin, Consumer<Result> done);
+    }
+
+    /**
+     * Outcome of a scenario; timing is only set for the scaled scenarios.
+     */
+    public record Result(String scenario, boolean passed, String detail, HookTimer.Summary timing) {
+    }
+
+    /**
+     * The behaviour scenarios by id, in the order they are run.
+     */
+    public static final Map<String, Scenario> SCENARIOS = new LinkedHashMap<>();
+
+    static {
+        SCENARIOS.put("basic", TestScenarios::testBasicLingeringArrowKill);
+        SCENARIOS.put("regular", TestScenarios::testRegularArrowKill);
+        SCENARIOS.put("nonfatal", TestScenarios::testLingeringArrowNonFatal);
+        SCENARIOS.put("multiple", TestScenarios::testMultipleLingeringArrows);
+        SCENARIOS.put("fields", TestScenarios::testFieldAccess);
+    }
+
     /**
      * Test Scenario 1: Basic Lingering Arrow Instant Kill
-     * 
+     *
      * Setup:
-     * 1. Craft Lingering Potion of Harming II
-     * 2. Shoot arrow through the lingering potion cloud to create lingering arrow
-     * 3. Find a mob with low health (chicken, rabbit, etc.)
-     * 4. Shoot the lingering arrow at the mob
-     * 
+     * 1. A chicken at 1 health floats in a bubble column
+     * 2. A Harming II tipped arrow is fired up the column into it
+     *
      * Expected Behavior:
-     * - Arrow hits mob and creates lingering potion cloud
-     * - Mob takes instant damage from cloud and dies immediately
-     * - Arrow remains floating in place instead of despawning
-     * - Debug logs show: arrow tracking, damage events, instant kill detection, persistence applied
-     * 
-     * Debug Log Sequence:
-     * [PersistentArrows Debug] ARROW HIT EVENT: (arrow details)
-     * [PersistentArrows Debug] ARROW TRACKING DECISION: Was Tracked: true
-     * [PersistentArrows Debug] DAMAGE EVENT (START): (damage details)
-     * [PersistentArrows Debug] DAMAGE EVENT (END): (damage details)
-     * [PersistentArrows Debug] INSTANT KILL DETECTED: (kill details)
-     * [PersistentArrows Debug] PERSISTENCE CHECK: Should Persist: true
-     * [PersistentArrows Debug] PERSISTENCE APPLIED: (field changes)
-     */
-    public static void testBasicLingeringArrowKill() {
-        PersistentArrowsDebugger.logTestScenario("Basic Lingering Arrow Instant Kill");
-        PersistentArrowsDebugger.logExpectedBehavior("Arrow should persist after instant kill");
-    }
-    
+     * - Arrow is tracked in the column, hits the chicken and kills it
+     * - Arrow is respawned in place instead of being lost
+     */
+    public static void testBasicLingeringArrowKill(ServerWorld world, BlockPos origin, Consumer<Result> done) {
+        start("Basic Lingering Arrow Instant Kill", "Arrow should persist after instant kill");
+        BlockBox area = buildColumns(world, origin, 1, 4);
+        MobEntity target = spawnTarget(world, EntityType.CHICKEN, origin, 1.0F);
+        fireUp(world, origin, lingeringArrow());
+
+        after(world, SETTLE_TICKS, () -> {
+            int arrows = countEligibleArrows(world, area);
+            finish(world, area, done, "basic", !target.isAlive() && arrows == 1,
+                "target dead: " + !target.isAlive() + ", persisted arrows: " + arrows);
+        });
+    }
+
     /**
      * Test Scenario 2: Regular Arrow (Should NOT Persist)
-     * 
+     *
      * Setup:
-     * 1. Use regular arrow (not lingering)
-     * 2. Shoot at mob and kill it
-     * 
+     * 1. Same as scenario 1, with a plain arrow
+     *
      * Expected Behavior:
-     * - Arrow hits mob and kills it normally
-     * - Arrow despawns as usual (no persistence)
-     * - Debug logs show arrow was not tracked for persistence
-     * 
-     * Debug Log Sequence:
-     * [PersistentArrows Debug] ARROW HIT EVENT: (arrow details)
-     * [PersistentArrows Debug] Arrow hit but not a lingering potion - ignoring
+     * - Arrow kills the chicken and is gone as usual (not tracked, no respawn)
      */
-    public static void testRegularArrowKill() {
-        PersistentArrowsDebugger.logTestScenario("Regular Arrow Kill (Should NOT Persist)");
-        PersistentArrowsDebugger.logExpectedBehavior("Arrow should despawn normally");
+    public static void testRegularArrowKill(ServerWorld world, BlockPos origin, Consumer<Result> done) {
+        start("Regular Arrow Kill (Should NOT Persist)", "Arrow should despawn normally");
+        BlockBox area = buildColumns(world, origin, 1, 4);
+        MobEntity target = spawnTarget(world, EntityType.CHICKEN, origin, 1.0F);
+        fireUp(world, origin, new ItemStack(Items.ARROW));
+
+        after(world, SETTLE_TICKS, () -> {
+            int arrows = countArrows(world, area);
+            finish(world, area, done, "regular", !target.isAlive() && arrows == 0,
+                "target dead: " + !target.isAlive() + ", arrows left: " + arrows);
+        });
     }
-    
+
     /**
      * Test Scenario 3: Lingering Arrow Non-Fatal Damage
-     * 
+     *
      * Setup:
-     * 1. Use Lingering Potion of Harming I (weaker)
-     * 2. Shoot at mob with high health
-     * 3. Ensure damage doesn't kill the mob
-     * 
+     * 1. A zombie at full health floats in the bubble column
+     * 2. A Harming II tipped arrow is fired up the column into it
+     *
      * Expected Behavior:
-     * - Arrow hits mob and creates lingering cloud
-     * - Mob takes damage but survives
-     * - Arrow despawns normally (no persistence)
-     * - Debug logs show no instant kill detected
-     * 
-     * Debug Log Sequence:
-     * [PersistentArrows Debug] ARROW HIT EVENT: (arrow details)
-     * [PersistentArrows Debug] ARROW TRACKING DECISION: Was Tracked: true
-     * [PersistentArrows Debug] DAMAGE EVENT (START): Would Be Lethal: false
-     * [PersistentArrows Debug] DAMAGE EVENT (END): Target Is Alive: true
-     * [PersistentArrows Debug] Entity survived area effect cloud damage
-     */
-    public static void testLingeringArrowNonFatal() {
-        PersistentArrowsDebugger.logTestScenario("Lingering Arrow Non-Fatal Damage");
-        PersistentArrowsDebugger.logExpectedBehavior("Arrow should despawn normally (no instant kill)");
-    }
-    
+     * - Zombie takes damage but survives
+     * - Arrow is not respawned
+     */
+    public static void testLingeringArrowNonFatal(ServerWorld world, BlockPos origin, Consumer<Result> done) {
+        start("Lingering Arrow Non-Fatal Damage", "Arrow should despawn normally (no instant kill)");
+        BlockBox area = buildColumns(world, origin, 1, 4);
+        MobEntity target = spawnTarget(world, EntityType.ZOMBIE, origin, 0.0F);
+        fireUp(world, origin, lingeringArrow());
+
+        after(world, SETTLE_TICKS, () -> {
+            int arrows = countEligibleArrows(world, area);
+            finish(world, area, done, "nonfatal", target.isAlive() && arrows == 0,
+                "target alive: " + target.isAlive() + ", persisted arrows: " + arrows);
+        });
+    }
+
     /**
      * Test Scenario 4: Multiple Lingering Arrows
-     * 
+     *
      * Setup:
-     * 1. Shoot multiple lingering arrows at different mobs
-     * 2. Some should instant kill, others should not
-     * 
+     * 1. Three columns side by side: two weak chickens and one full-health zombie
+     * 2. One lingering arrow is fired into each
+     *
      * Expected Behavior:
-     * - Only arrows that cause instant kills should persist
-     * - Other arrows despawn normally
-     * - Debug logs track each arrow separately
+     * - Only the two arrows that killed persist
      */
-    public static void testMultipleLingeringArrows() {
-        PersistentArrowsDebugger.logTestScenario("Multiple Lingering Arrows");
-        PersistentArrowsDebugger.logExpectedBehavior("Only instant-kill arrows should persist");
+    public static void testMultipleLingeringArrows(ServerWorld world, BlockPos origin, Consumer<Result> done) {
+        start("Multiple Lingering Arrows", "Only instant-kill arrows should persist");
+        BlockBox area = buildColumns(world, origin, 3, 4);
+        List<MobEntity> targets = List.of(
+            spawnTarget(world, EntityType.CHICKEN, columnBase(origin, 0, 3), 1.0F),
+            spawnTarget(world, EntityType.CHICKEN, columnBase(origin, 1, 3), 1.0F),
+            spawnTarget(world, EntityType.ZOMBIE, columnBase(origin, 2, 3), 0.0F));
+        for (int column = 0; column < 3; column++) {
+            fireUp(world, columnBase(origin, column, 3), lingeringArrow());
+        }
+
+        after(world, SETTLE_TICKS, () -> {
+            int arrows = countEligibleArrows(world, area);
+            boolean killed = !targets.get(0).isAlive() && !targets.get(1).isAlive();
+            finish(world, area, done, "multiple", killed && targets.get(2).isAlive() && arrows == 2,
+                "kills: " + killed + ", survivor alive: " + targets.get(2).isAlive() + ", persisted arrows: " + arrows);
+        });
     }
-    
+
     /**
      * Test Scenario 5: Field Access Validation
-     * 
+     *
      * Setup:
-     * 1. Trigger arrow persistence
-     * 2. Check debug logs for field access attempts
-     * 
+     * 1. Trigger arrow persistence as in scenario 1
+     * 2. Read and write the respawned arrow's fields
+     *
      * Expected Behavior:
-     * - Reflection should successfully access inGround and life fields
-     * - Fields should be set to false and 0 respectively
-     * - No reflection errors in logs
-     * 
-     * Debug Log Sequence:
-     * [PersistentArrows Debug] FIELD ACCESS ATTEMPT: Field Name: inGround, Success: true
-     * [PersistentArrows Debug] FIELD ACCESS ATTEMPT: Field Name: life, Success: true
-     * [PersistentArrows Debug] PERSISTENCE APPLIED: InGround Set to False: true, Life Reset to Zero: true
+     * - The accessor mixin and access widener expose inGround and life
+     * - The respawned arrow is floating (not in ground) and its life can be reset to 0
      */
-    public static void testFieldAccess() {
-        PersistentArrowsDebugger.logTestScenario("Field Access Validation");
-        PersistentArrowsDebugger.logExpectedBehavior("Reflection should successfully modify arrow fields");
+    public static void testFieldAccess(ServerWorld world, BlockPos origin, Consumer<Result> done) {
+        start("Field Access Validation", "Accessors should successfully modify arrow fields");
+        BlockBox area = buildColumns(world, origin, 1, 4);
+        spawnTarget(world, EntityType.CHICKEN, origin, 1.0F);
+        fireUp(world, origin, lingeringArrow());
+
+        after(world, SETTLE_TICKS, () -> {
+            List<PersistentProjectileEntity> arrows = world.getEntitiesByClass(PersistentProjectileEntity.class,
+                Box.from(area), ArrowClassifier::isEligible);
+            boolean passed = false;
+            String detail = "no persisted arrow";
+            if (!arrows.isEmpty()) {
+                PersistentProjectileEntity arrow = arrows.get(0);
+                PersistentProjectileEntityAccessor accessor = (PersistentProjectileEntityAccessor) arrow;
+                accessor.persistentarrows$setLife(0);
+                boolean floating = !arrow.isInGround();
+                boolean lifeReset = accessor.persistentarrows$getLife() == 0;
+                PersistentArrowsDebugger.logArrowPersistenceApplied(arrow, floating, lifeReset);
+                passed = floating && lifeReset;
+                detail = "floating: " + floating + ", life reset: " + lifeReset;
+            }
+            finish(world, area, done, "fields", passed, detail);
+        });
+    }
+
+    /**
+     * Scaled scenario: the given number of lingering arrows spread over enclosed bubble
+     * columns, 64 to a column. After a warmup the time spent in the mod's hooks is
+     * measured per tick; passes if every arrow was tracked.
+     */
+    public static Scenario scaled(int arrowCount) {
+        return (world, origin, done) -> {
+            String name = "scaled-" + arrowCount;
+            start("Scaled Bubble Columns (" + arrowCount + " arrows)", "All arrows tracked; hook time within baseline");
+            int columns = (arrowCount + ARROWS_PER_COLUMN - 1) / ARROWS_PER_COLUMN;
+            BlockBox area = buildColumns(world, origin, columns, COLUMN_HEIGHT);
+
+            ItemStack stack = lingeringArrow();
+            for (int i = 0; i < arrowCount; i++) {
+                BlockPos base = columnBase(origin, i / ARROWS_PER_COLUMN, columns);
+                double y = base.getY() + 1.5D + (i % ARROWS_PER_COLUMN) * (COLUMN_HEIGHT - 2) / (double) ARROWS_PER_COLUMN;
+                ArrowEntity arrow = new ArrowEntity(world, base.getX() + 0.5D, y, base.getZ() + 0.5D, stack.copy(), null);
+                arrow.setVelocity(0, 0, 0);
+                world.spawnEntity(arrow);
+            }
+
+            after(world, WARMUP_TICKS, () -> {
+                boolean wasTiming = HookTimer.isEnabled();
+                HookTimer.setEnabled(true);
+                HookTimer.reset();
+                after(world, MEASURED_TICKS, () -> {
+                    HookTimer.Summary timing = HookTimer.summarize();
+                    HookTimer.setEnabled(wasTiming);
+                    int tracked = LingeringArrowTracker.getTrackedArrowCount(world);
+                    finish(world, area, done, name, tracked >= arrowCount,
+                        "tracked " + tracked + "/" + arrowCount + ", " + timing, timing);
+                });
+            });
+        };
     }
-    
+
+    /**
+     * Idle scenario: a server-sized entity load with no eligible arrow anywhere.
+     * Husks stand packed in a grid and take a harmless hit every 20 ticks, and plain
+     * arrows keep dropping onto them and being removed, so the damage, removal and arrow tick hooks
+     * are all hit. Measures their cost while the idle fast path is active; passes if
+     * the world stayed idle (see ActiveArrows).
+     */
+    public static Scenario idle(int entityCount) {
+        return (world, origin, done) -> {
+            String name = "idle-" + entityCount;
+            start("Idle Entity Load (" + entityCount + " entities)", "Hooks return immediately; no eligible arrows");
+            int side = (int) Math.ceil(Math.sqrt(entityCount));
+            BlockBox area = new BlockBox(origin.getX(), origin.getY(), origin.getZ(),
+                origin.getX() + side, origin.getY() + 4, origin.getZ() + side);
+
+            List<MobEntity> mobs = new ArrayList<>(entityCount);
+            for (int i = 0; i < entityCount; i++) {
+                mobs.add(spawnTarget(world, EntityType.HUSK, origin.add(i % side, -2, i / side), 0.0F));
+            }
+
+            boolean[] running = {true};
+            boolean[] stayedIdle = {true};
+            churn(world, origin, side, mobs, 0, running, stayedIdle);
+
+            after(world, WARMUP_TICKS, () -> {
+                boolean wasTiming = HookTimer.isEnabled();
+                HookTimer.setEnabled(true);
+                HookTimer.reset();
+                after(world, MEASURED_TICKS, () -> {
+                    running[0] = false;
+                    HookTimer.Summary timing = HookTimer.summarize();
+                    HookTimer.setEnabled(wasTiming);
+                    finish(world, area, done, name, stayedIdle[0],
+                        "stayed idle: " + stayedIdle[0] + ", " + timing, timing);
+                });
+            });
+        };
+    }
+
+    /**
+     * Load scenario: fires the given number of lingering arrows up a block of bubble
+     * columns at a steady rate over the whole run, credited to armor stands standing in
+     * as shooters, and keeps a 1-health chicken in every column so arrows keep killing
+     * and being respawned. After a warmup each hook's share of the server's tick time is
+     * measured for the given number of seconds (at most the minute HookTimer keeps) and
+     * written to the save's persistentarrows/reports folder. Passes if the
+     * kill-and-respawn cycle ran.
+     */
+    public static Scenario load(int columnCount, int arrowCount, int seconds) {
+        return (world, origin, done) -> {
+            String name = "load-" + columnCount + "x" + arrowCount;
+            start("Load (" + columnCount + " columns, " + arrowCount + " arrows)", "Arrows keep killing and respawning; hook share reported");
+            BlockBox area = buildColumns(world, origin, columnCount, COLUMN_HEIGHT);
+            LoadRun run = new LoadRun(world, origin, columnCount, arrowCount, WARMUP_TICKS + seconds * 20L);
+            for (int i = 0; i < Math.min(columnCount, MAX_SHOOTERS); i++) {
+                BlockPos base = columnBase(origin, i, columnCount);
+                ArmorStandEntity shooter = new ArmorStandEntity(world, base.getX() + 0.5D, area.getMaxY() + 1, base.getZ() + 0.5D);
+                shooter.setNoGravity(true);
+                shooter.setInvisible(true);
+                world.spawnEntity(shooter);
+                run.shooters.add(shooter);
+            }
+            run.tick();
+
+            after(world, WARMUP_TICKS, () -> {
+                boolean wasTiming = HookTimer.isEnabled();
+                HookTimer.setEnabled(true);
+                HookTimer.reset();
+                run.report = new LoadReport();
+                after(world, run.totalTicks - WARMUP_TICKS, () -> {
+                    run.running = false;
+                    HookTimer.Summary timing = HookTimer.summarize();
+                    HookTimer.setEnabled(wasTiming);
+                    run.countKills();
+                    run.shooters.forEach(Entity::discard);
+
+                    int tracked = LingeringArrowTracker.getTrackedArrowCount(world);
+                    long respawned = run.respawns.getCommittedTotal() - run.respawnsBefore;
+                    List<String> report = run.report.lines("Load scenario " + name, List.of(
+                        String.format("World %s, %d columns, %d shooters, %d warmup + %d measured ticks",
+                            world.getRegistryKey().getValue(), columnCount, run.shooters.size(), WARMUP_TICKS, run.report.getTicks()),
+                        String.format("Arrows fired %d, tracked at end %d (peak %d), targets spawned %d, killed %d, respawns committed %d",
+                            run.fired, tracked, run.peakTracked, run.targetsSpawned, run.targetsKilled, respawned)), timing);
+                    String written;
+                    try {
+                        written = "report " + run.report.write(world.getServer(), report);
+                    } catch (IOException e) {
+                        PersistentArrows.LOGGER.warn("Failed to write load report: {}", e.getMessage());
+                        written = "report not written";
+                    }
+                    report.forEach(PersistentArrowsDebugger::info);
+                    finish(world, area, done, name, run.targetsKilled > 0 && respawned > 0,
+                        String.format("fired %d, killed %d, respawned %d, mean MSPT %.2f ms, %s, %s",
+                            run.fired, run.targetsKilled, respawned, run.report.getMeanMspt(), timing, written), timing);
+                });
+            });
+        };
+    }
+
+    /**
+     * State of a running load scenario. tick() runs once per world tick until stopped.
+     */
+    private static final class LoadRun {
+        final ServerWorld world;
+        final BlockPos origin;
+        final int columns;
+        final int arrows;
+        final long totalTicks;
+        final List<Entity> shooters = new ArrayList<>();
+        final MobEntity[] targets;
+        final ItemStack stack = lingeringArrow();
+        final RespawnPipeline respawns;
+        final long respawnsBefore;
+        LoadReport report;
+        boolean running = true;
+        long tick;
+        int fired;
+        int peakTracked;
+        int targetsSpawned;
+        int targetsKilled;
+
+        LoadRun(ServerWorld world, BlockPos origin, int columns, int arrows, long totalTicks) {
+            this.world = world;
+            this.origin = origin;
+            this.columns = columns;
+            this.arrows = arrows;
+            this.totalTicks = totalTicks;
+            this.targets = new MobEntity[columns];
+            this.respawns = WorldArrowState.of(world).getRespawns();
+            this.respawnsBefore = respawns.getCommittedTotal();
+        }
+
+        void tick() {
+            if (!running) {
+                return;
+            }
+            if (tick % TARGET_WAVE_TICKS == 0) {
+                countKills();
+                for (int column = 0; column < columns; column++) {
+                    if (targets[column] == null) {
+                        targets[column] = spawnTarget(world, EntityType.CHICKEN, columnBase(origin, column, columns), 1.0F);
+                        targetsSpawned++;
+                    }
+                }
+            }
+
+            // Spread the arrows evenly over the run, round-robin over columns and shooters
+            int due = (int) Math.min(arrows, (long) arrows * (tick + 1) / totalTicks);
+            for (; fired < due; fired++) {
+                Entity shooter = shooters.isEmpty() ? null : shooters.get(fired % shooters.size());
+                fireUp(world, columnBase(origin, fired % columns, columns), stack.copy(), shooter);
+            }
+
+            peakTracked = Math.max(peakTracked, LingeringArrowTracker.getTrackedArrowCount(world));
+            if (report != null) {
+                report.sampleTick(world.getServer());
+            }
+            tick++;
+            after(world, 1, this::tick);
+        }
+
+        /**
+         * Count and forget targets that died since the last check.
+         */
+        void countKills() {
+            for (int column = 0; column < columns; column++) {
+                if (targets[column] != null && !targets[column].isAlive()) {
+                    targets[column] = null;
+                    targetsKilled++;
+                }
+            }
+        }
+    }
+
+    /**
+     * One tick of the idle scenario's activity; reschedules itself while running.
+     */
+    private static void churn(ServerWorld world, BlockPos origin, int side, List<MobEntity> mobs, int tick,
+                              boolean[] running, boolean[] stayedIdle) {
+        if (!running[0]) {
+            return;
+        }
+        stayedIdle[0] &= ActiveArrows.isIdle(world);
+
+        // A twentieth of the mobs take a harmless hit each tick
+        for (int i = tick % 20; i < mobs.size(); i += 20) {
+            mobs.get(i).damage(world, world.getDamageSources().generic(), 0.0F);
+        }
+        // Plain arrows drop onto the grid and are removed half a second later
+        for (int i = 0; i < side; i++) {
+            BlockPos pos = origin.add((tick + i) % side, 3, i);
+            ArrowEntity arrow = new ArrowEntity(world, pos.getX() + 0.5D, pos.getY() + 0.5D, pos.getZ() + 0.5D, new ItemStack(Items.ARROW), null);
+            world.spawnEntity(arrow);
+            after(world, 10, arrow::discard);
+        }
+        after(world, 1, () -> churn(world, origin, side, mobs, tick + 1, running, stayedIdle));
+    }
+
+    private static void start(String scenarioName, String expected) {
+        PersistentArrowsDebugger.logTestScenario(scenarioName);
+        PersistentArrowsDebugger.logExpectedBehavior(expected);
+    }
+
+    private static void finish(ServerWorld world, BlockBox area, Consumer<Result> done, String name, boolean passed, String detail) {
+        finish(world, area, done, name, passed, detail, null);
+    }
+
+    private static void finish(ServerWorld world, BlockBox area, Consumer<Result> done, String name, boolean passed, String detail,
+                               HookTimer.Summary timing) {
+        PersistentArrowsDebugger.logActualBehavior(detail);
+        PersistentArrowsDebugger.logTestResult(passed);
+        clear(world, area);
+        done.accept(new Result(name, passed, detail, timing));
+    }
+
+    /**
+     * Run an action after the given number of the world's ticks.
+     */
+    private static void after(ServerWorld world, long ticks, Runnable action) {
+        WorldArrowState.of(world).schedule(ticks, action);
+    }
+
+    private static ItemStack lingeringArrow() {
+        return PotionContentsComponent.createStack(Items.TIPPED_ARROW, Potions.STRONG_HARMING);
+    }
+
+    /**
+     * Base block of a column in a square grid of the given number of columns.
+     * Columns sit two blocks apart so each is walled in by glass.
+     */
+    private static BlockPos columnBase(BlockPos origin, int column, int columns) {
+        int side = (int) Math.ceil(Math.sqrt(columns));
+        return origin.add((column % side) * 2, 0, (column / side) * 2);
+    }
+
+    /**
+     * Build a glass block holding the given number of bubble columns over soul sand,
+     * capped so nothing floats out. Returns the area taken up.
+     */
+    private static BlockBox buildColumns(ServerWorld world, BlockPos origin, int columns, int height) {
+        int side = (int) Math.ceil(Math.sqrt(columns));
+        BlockBox area = new BlockBox(origin.getX() - 1, origin.getY(), origin.getZ() - 1,
+            origin.getX() + side * 2 - 1, origin.getY() + height + 1, origin.getZ() + side * 2 - 1);
+        fill(world, area, Blocks.GLASS.getDefaultState());
+
+        BlockState bubbles = Blocks.BUBBLE_COLUMN.getDefaultState().with(BubbleColumnBlock.DRAG, false);
+        for (int column = 0; column < columns; column++) {
+            BlockPos base = columnBase(origin, column, columns);
+            world.setBlockState(base, Blocks.SOUL_SAND.getDefaultState(), Block.NOTIFY_ALL);
+            for (int y = 1; y <= height; y++) {
+                world.setBlockState(base.up(y), bubbles, Block.NOTIFY_ALL);
+            }
+        }
+        return area;
+    }
+
+    /**
+     * Remove everything a scenario left behind.
+     */
+    private static void clear(ServerWorld world, BlockBox area) {
+        for (Entity entity : world.getOtherEntities(null, Box.from(area).expand(1.0D))) {
+            entity.discard();
+        }
+        fill(world, area, Blocks.AIR.getDefaultState());
+    }
+
+    private static void fill(ServerWorld world, BlockBox area, BlockState state) {
+        for (BlockPos pos : BlockPos.iterate(area.getMinX(), area.getMinY(), area.getMinZ(), area.getMaxX(), area.getMaxY(), area.getMaxZ())) {
+            world.setBlockState(pos, state, Block.NOTIFY_LISTENERS);
+        }
+    }
+
+    /**
+     * Spawn a motionless target in a column, in the path of fireUp. A health of 0 keeps the default.
+     */
+    private static <T extends MobEntity> T spawnTarget(ServerWorld world, EntityType<T> type, BlockPos base, float health) {
+        T target = type.create(world, SpawnReason.COMMAND);
+        target.refreshPositionAndAngles(base.getX() + 0.5D, base.getY() + 2.5D, base.getZ() + 0.5D, 0.0F, 0.0F);
+        target.setAiDisabled(true);
+        target.setNoGravity(true);
+        if (health > 0.0F) {
+            target.setHealth(health);
+        }
+        world.spawnEntity(target);
+        return target;
+    }
+
+    /**
+     * Fire an arrow straight up a column from just above its soul sand.
+     */
+    private static void fireUp(ServerWorld world, BlockPos base, ItemStack stack) {
+        fireUp(world, base, stack, null);
+    }
+
+    /**
+     * Fire an arrow up a column on behalf of a shooter (null for none).
+     */
+    private static void fireUp(ServerWorld world, BlockPos base, ItemStack stack, Entity shooter) {
+        ArrowEntity arrow = new ArrowEntity(world, base.getX() + 0.5D, base.getY() + 1.5D, base.getZ() + 0.5D, stack, null);
+        arrow.setOwner(shooter);
+        arrow.setVelocity(0.0D, 1.5D, 0.0D);
+        world.spawnEntity(arrow);
+    }
+
+    private static int countArrows(ServerWorld world, BlockBox area) {
+        return world.getEntitiesByClass(PersistentProjectileEntity.class, Box.from(area), arrow -> true).size();
+    }
+
+    /**
+     * Number of eligible arrows left in an area, counting merged arrows individually.
+     */
+    private static int countEligibleArrows(ServerWorld world, BlockBox area) {
+        int count = 0;
+        for (PersistentProjectileEntity arrow : world.getEntitiesByClass(PersistentProjectileEntity.class, Box.from(area), ArrowClassifier::isEligible)) {
+            count += ArrowStacks.getCount(arrow);
+        }
+        return count;
+    }
+
     /**
      * Troubleshooting Guide
      */
@@ -141,7 +594,7 @@ public class TestScenarios {
         PersistentArrowsDebugger.info("4. If arrows don't persist:");
         PersistentArrowsDebugger.info("   - Check 'PERSISTENCE CHECK' logs");
         PersistentArrowsDebugger.info("   - Look for 'FIELD ACCESS ATTEMPT' errors");
-        PersistentArrowsDebugger.info("   - Verify reflection is working");
+        PersistentArrowsDebugger.info("   - Verify the access widener and accessor mixin were applied");
         PersistentArrowsDebugger.info("");
         PersistentArrowsDebugger.info("5. Common issues:");
         PersistentArrowsDebugger.info("   - Using wrong arrow type (must be lingering)");
@@ -149,4 +602,4 @@ public class TestScenarios {
         PersistentArrowsDebugger.info("   - Server vs client side differences");
         PersistentArrowsDebugger.info("   - Access widener not working properly");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,100 @@
+package com.persistentarrows.debug;
+
+import com.persistentarrows.PersistentArrows;
+import com.persistentarrows.config.PersistentArrowsConfig;
+import com.persistentarrows.core.MappedJournal;
+import com.persistentarrows.core.TrackerTrace;
+import com.persistentarrows.tracking.WorldArrowState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.world.World;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * Records the inputs the tracker gets from one world (see TrackerTrace) into a trace
+ * folder under the save's persistentarrows/traces, for replaying offline with the core
+ * module's TraceReplayer. Off until started with /persistentarrows trace start; while
+ * off every hook pays one field compare. Only touched from the server thread.
+ */
+public class TraceRecorder {
+
+    private static final DateTimeFormatter FOLDER_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    // 4 MB segments; recording stops at 1 GB rather than dropping the start of the trace
+    private static final int SEGMENT_RECORDS = 65536;
+    private static final int MAX_SEGMENTS = 256;
+    private static final long MAX_RECORDS = (long) SEGMENT_RECORDS * MAX_SEGMENTS;
+
+    private static MappedJournal trace;
+    private static ServerWorld recordingWorld;
+
+    /**
+     * Start recording a world, stopping any recording in progress.
+     * Returns the trace folder.
+     */
+    public static Path start(ServerWorld world) throws IOException {
+        stop();
+        Path directory = world.getServer().getSavePath(WorldSavePath.ROOT).resolve(PersistentArrows.MOD_ID).resolve("traces")
+            .resolve(LocalDateTime.now().format(FOLDER_NAME));
+        trace = new MappedJournal(directory, SEGMENT_RECORDS, MAX_SEGMENTS);
+        recordingWorld = world;
+        // Replays need the settings the trace was recorded with
+        trace.append(TrackerTrace.CONFIG, PersistentArrowsConfig.respawnBudgetMicros, WorldArrowState.of(world).now(), 0L, 0L,
+            PersistentArrowsConfig.maxArrowsPerChunk, PersistentArrowsConfig.maxArrowsPerOwner, PersistentArrowsConfig.maxArrowsPerWorld);
+        PersistentArrows.LOGGER.info("Recording tracker trace of {} to {}", world.getRegistryKey().getValue(), directory);
+        return directory;
+    }
+
+    /**
+     * Stop recording and flush the trace. Returns the number of records written,
+     * or -1 if nothing was being recorded.
+     */
+    public static long stop() {
+        if (trace == null) {
+            return -1;
+        }
+        long records = trace.getAppendedCount();
+        trace.close();
+        PersistentArrows.LOGGER.info("Stopped tracker trace at {} records in {}", records, trace.getDirectory());
+        trace = null;
+        recordingWorld = null;
+        return records;
+    }
+
+    /**
+     * Whether hooks running in this world should record. Call before building anything to record.
+     */
+    public static boolean isRecording(World world) {
+        return recordingWorld == world;
+    }
+
+    public static long getRecordedCount() {
+        return trace != null ? trace.getAppendedCount() : 0L;
+    }
+
+    public static void record(int type, int aux, UUID id, double x, double y, double z) {
+        record(type, aux, id.getMostSignificantBits(), id.getLeastSignificantBits(), x, y, z);
+    }
+
+    public static void record(int type, int aux, long idHi, long idLo, double x, double y, double z) {
+        if (trace == null) {
+            return;
+        }
+        try {
+            trace.append(type, aux, WorldArrowState.of(recordingWorld).now(), idHi, idLo, x, y, z);
+        } catch (UncheckedIOException e) {
+            PersistentArrows.LOGGER.error("Tracker trace failed, recording stopped", e);
+            stop();
+            return;
+        }
+        if (trace.getAppendedCount() >= MAX_RECORDS) {
+            PersistentArrows.LOGGER.warn("Tracker trace reached {} records, recording stopped", MAX_RECORDS);
+            stop();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.persistentarrows.metrics;
+
+import com.persistentarrows.core.CappedIndex;
+import com.persistentarrows.tracking.ActiveArrows;
+import com.persistentarrows.tracking.LingeringArrowTracker;
+import com.persistentarrows.tracking.WorldArrowState;
+import com.persistentarrows.util.ArrowPersistenceHelper;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+
+/**
+ * Counters and gauges for arrow tracking, persistence and respawns.
+ * Counters are bumped where things happen; gauges are sampled from the worlds'
+ * state once a second on the server thread.
+ */
+public class ArrowMetrics {
+    
+    // Ticks between gauge samples
+    private static final int SAMPLE_INTERVAL_TICKS = 20;
+    
+    public static final Counter ARROWS_TRACKED = MetricsRegistry.counter("persistentarrows_arrows_tracked_total",
+        "Arrows that started being tracked");
+    public static final Counter ARROWS_UNTRACKED = MetricsRegistry.counter("persistentarrows_arrows_untracked_total",
+        "Arrows that stopped being tracked (despawn, respawn, dimension change)");
+    public static final Counter ARROWS_EXPIRED = MetricsRegistry.counter("persistentarrows_arrows_expired_total",
+        "Tracked arrows dropped after tracking for too long");
+    public static final Counter EVICTED_CHUNK_CAP = MetricsRegistry.counter("persistentarrows_arrows_evicted_total",
+        "Tracked arrows discarded to keep a chunk, owner or world under its cap", "cap=\"chunk\"");
+    public static final Counter EVICTED_OWNER_CAP = MetricsRegistry.counter("persistentarrows_arrows_evicted_total",
+        "Tracked arrows discarded to keep a chunk, owner or world under its cap", "cap=\"owner\"");
+    public static final Counter EVICTED_WORLD_CAP = MetricsRegistry.counter("persistentarrows_arrows_evicted_total",
+        "Tracked arrows discarded to keep a chunk, owner or world under its cap", "cap=\"world\"");
+    public static final Counter RESPAWNS_QUEUED = MetricsRegistry.counter("persistentarrows_respawns_queued_total",
+        "Respawns submitted to a world's respawn pipeline");
+    public static final Counter RESPAWNS_COMPLETED = MetricsRegistry.counter("persistentarrows_respawns_completed_total",
+        "Respawns committed");
+    public static final Counter RESPAWNS_EXPIRED = MetricsRegistry.counter("persistentarrows_respawns_expired_total",
+        "Respawns dropped because their arrow's data was gone by commit time");
+    public static final Histogram CLEANUP_SWEEP = MetricsRegistry.histogram("persistentarrows_cleanup_sweep_size",
+        "Expiry timeouts fired per world tick", "", Histogram.powersOfTwo(0, 16), 1.0D);
+    
+    public static final Gauge TRACKED_ARROWS = MetricsRegistry.gauge("persistentarrows_tracked_arrows",
+        "Arrows currently tracked, all worlds");
+    public static final Gauge HIBERNATED_ARROWS = MetricsRegistry.gauge("persistentarrows_hibernated_arrows",
+        "Tracked arrows parked with an unloaded chunk, all worlds");
+    public static final Gauge HIBERNATED_STORE_BYTES = MetricsRegistry.gauge("persistentarrows_hibernated_store_bytes",
+        "Memory held by the parked-arrow slabs (off the heap when offHeapArrowStore is set), all worlds");
+    public static final Gauge PERSISTENT_ARROWS = MetricsRegistry.gauge("persistentarrows_persistent_arrows",
+        "Arrows currently marked persistent, all worlds");
+    public static final Gauge PENDING_RESPAWNS = MetricsRegistry.gauge("persistentarrows_pending_respawns",
+        "Respawns waiting in the pipelines, all worlds");
+    public static final Gauge WAITING_RESPAWNS = MetricsRegistry.gauge("persistentarrows_waiting_respawns",
+        "Respawns held until their target chunk loads, all worlds");
+    public static final Gauge ARROW_TEMPLATES = MetricsRegistry.gauge("persistentarrows_arrow_templates",
+        "Distinct arrow item stacks held by tracked and parked arrows, all worlds");
+    public static final Gauge LOADED_ELIGIBLE_ARROWS = MetricsRegistry.gauge("persistentarrows_loaded_eligible_arrows",
+        "Eligible arrows loaded, all worlds; a world's hooks take the idle fast path while it has none");
+    public static final Gauge PENDING_EXPIRIES = MetricsRegistry.gauge("persistentarrows_pending_expiries",
+        "Expiry timeouts scheduled, all worlds");
+    
+    private static int ticksUntilSample;
+    
+    /**
+     * Eviction counter for the cap an arrow was evicted for.
+     */
+    public static Counter evictions(CappedIndex.Scope scope) {
+        return switch (scope) {
+            case CELL -> EVICTED_CHUNK_CAP;
+            case OWNER -> EVICTED_OWNER_CAP;
+            case TOTAL -> EVICTED_WORLD_CAP;
+        };
+    }
+    
+    /**
+     * Refresh the gauges every second. Called at the end of every server tick.
+     */
+    public static void onServerTick(MinecraftServer server) {
+        if (--ticksUntilSample > 0) {
+            return;
+        }
+        ticksUntilSample = SAMPLE_INTERVAL_TICKS;
+        
+        long tracked = 0;
+        long hibernated = 0;
+        long hibernatedBytes = 0;
+        long persistent = 0;
+        long respawns = 0;
+        long waiting = 0;
+        long expiries = 0;
+        long templates = 0;
+        long eligible = 0;
+        for (ServerWorld world : server.getWorlds()) {
+            WorldArrowState state = WorldArrowState.of(world);
+            tracked += LingeringArrowTracker.getTrackedArrowCount(world);
+            hibernated += LingeringArrowTracker.getHibernatedArrowCount(world);
+            hibernatedBytes += LingeringArrowTracker.getHibernatedStoreBytes(world);
+            persistent += ArrowPersistenceHelper.getPersistentArrowCount(world);
+            respawns += state.getRespawns().getQueueDepth();
+            waiting += state.getRespawns().getWaitingCount();
+            expiries += state.getPendingExpiryCount();
+            templates += state.getTemplateCount();
+            eligible += ActiveArrows.getEligibleArrowCount(world);
+        }
+        TRACKED_ARROWS.set(tracked);
+        HIBERNATED_ARROWS.set(hibernated);
+        HIBERNATED_STORE_BYTES.set(hibernatedBytes);
+        PERSISTENT_ARROWS.set(persistent);
+        PENDING_RESPAWNS.set(respawns);
+        WAITING_RESPAWNS.set(waiting);
+        PENDING_EXPIRIES.set(expiries);
+        LOADED_ELIGIBLE_ARROWS.set(eligible);
+        ARROW_TEMPLATES.set(templates);
+    }
+}
@@ -0,0 +1,41 @@
+package com.persistentarrows.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter. Striped, so concurrent increments don't contend.
+ */
+public class Counter extends Metric {
+    private final LongAdder value = new LongAdder();
+    
+    Counter(String name, String help, String labels) {
+        super(name, help, labels);
+    }
+    
+    public void increment() {
+        value.increment();
+    }
+    
+    public void add(long amount) {
+        value.add(amount);
+    }
+    
+    public long get() {
+        return value.sum();
+    }
+    
+    @Override
+    String getType() {
+        return "counter";
+    }
+    
+    @Override
+    void writeSamples(StringBuilder out) {
+        out.append(series("", "")).append(' ').append(get()).append('\n');
+    }
+    
+    @Override
+    public String describe() {
+        return String.valueOf(get());
+    }
+}
@@ -0,0 +1,35 @@
+package com.persistentarrows.metrics;
+
+/**
+ * Point-in-time value. Set from the server thread, read from anywhere.
+ */
+public class Gauge extends Metric {
+    private volatile long value;
+    
+    Gauge(String name, String help, String labels) {
+        super(name, help, labels);
+    }
+    
+    public void set(long value) {
+        this.value = value;
+    }
+    
+    public long get() {
+        return value;
+    }
+    
+    @Override
+    String getType() {
+        return "gauge";
+    }
+    
+    @Override
+    void writeSamples(StringBuilder out) {
+        out.append(series("", "")).append(' ').append(value).append('\n');
+    }
+    
+    @Override
+    public String describe() {
+        return String.valueOf(value);
+    }
+}
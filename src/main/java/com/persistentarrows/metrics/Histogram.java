@@ -0,0 +1,116 @@
+package com.persistentarrows.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution over fixed bucket bounds, each bucket a striped counter.
+ * Values are recorded in raw units (nanoseconds, entries); the exported bucket
+ * bounds and sum are multiplied by scale (1e-9 to export seconds).
+ */
+public class Histogram extends Metric {
+    private final long[] bounds;
+    private final double scale;
+    // One more bucket than bounds, for values above the last bound
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+    
+    Histogram(String name, String help, String labels, long[] bounds, double scale) {
+        super(name, help, labels);
+        this.bounds = bounds;
+        this.scale = scale;
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Bounds 0, 1, 2, 4, ... up to 2^maxExponent.
+     */
+    static long[] powersOfTwo(int minExponent, int maxExponent) {
+        long[] bounds = new long[maxExponent - minExponent + 2];
+        for (int i = 1; i < bounds.length; i++) {
+            bounds[i] = 1L << (minExponent + i - 1);
+        }
+        return bounds;
+    }
+    
+    public void record(long value) {
+        int low = 0;
+        int high = bounds.length;
+        // First bound >= value
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bounds[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        buckets[low].increment();
+        sum.add(value);
+    }
+    
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+    
+    public long getSum() {
+        return sum.sum();
+    }
+    
+    /**
+     * Upper bound of the bucket holding the given quantile, in raw units.
+     * Long.MAX_VALUE if it falls in the overflow bucket.
+     */
+    public long getQuantileBound(double quantile) {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bounds[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+    
+    @Override
+    String getType() {
+        return "histogram";
+    }
+    
+    @Override
+    void writeSamples(StringBuilder out) {
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += buckets[i].sum();
+            out.append(series("_bucket", "le=\"" + bounds[i] * scale + "\"")).append(' ').append(cumulative).append('\n');
+        }
+        cumulative += buckets[bounds.length].sum();
+        out.append(series("_bucket", "le=\"+Inf\"")).append(' ').append(cumulative).append('\n');
+        out.append(series("_sum", "")).append(' ').append(getSum() * scale).append('\n');
+        out.append(series("_count", "")).append(' ').append(cumulative).append('\n');
+    }
+    
+    @Override
+    public String describe() {
+        long count = getCount();
+        if (count == 0) {
+            return "no samples";
+        }
+        long p99 = getQuantileBound(0.99D);
+        return String.format("count %d, mean %.3g, p99 <= %s", count, getSum() * scale / count,
+            p99 == Long.MAX_VALUE ? "+Inf" : String.format("%.3g", p99 * scale));
+    }
+}
@@ -0,0 +1,40 @@
+package com.persistentarrows.metrics;
+
+import java.util.Locale;
+
+/**
+ * The mod's hooks into vanilla code, each with an invocation counter and a
+ * duration histogram. Durations are only recorded while HookTimer is on.
+ */
+public enum Hook {
+    WORLD_TICK,
+    BLOCK_CHANGE,
+    CHUNK_LOAD,
+    ENTITY_LOAD,
+    ENTITY_REMOVE,
+    ARROW_TICK,
+    ARROW_HIT,
+    DAMAGE_START,
+    DAMAGE_END,
+    CLOUD_TICK;
+    
+    private final Counter invocations;
+    private final Histogram duration;
+    
+    Hook() {
+        String label = "hook=\"" + name().toLowerCase(Locale.ROOT) + "\"";
+        this.invocations = MetricsRegistry.counter("persistentarrows_hook_invocations_total",
+            "Calls into each of the mod's hooks", label);
+        this.duration = MetricsRegistry.histogram("persistentarrows_hook_duration_seconds",
+            "Time spent in each of the mod's hooks while hook timing is on", label,
+            Histogram.powersOfTwo(7, 27), 1e-9D); // 128 ns to ~134 ms
+    }
+    
+    public Counter getInvocations() {
+        return invocations;
+    }
+    
+    public Histogram getDuration() {
+        return duration;
+    }
+}
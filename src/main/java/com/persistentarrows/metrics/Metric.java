@@ -0,0 +1,56 @@
+package com.persistentarrows.metrics;
+
+/**
+ * A named metric that can be written in the Prometheus text format.
+ * Series of one family share a name and differ by their labels.
+ */
+public abstract class Metric {
+    private final String name;
+    private final String help;
+    private final String labels;
+    
+    protected Metric(String name, String help, String labels) {
+        this.name = name;
+        this.help = help;
+        this.labels = labels;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getHelp() {
+        return help;
+    }
+    
+    /**
+     * Label set without braces, e.g. hook="arrow_tick", or an empty string.
+     */
+    public String getLabels() {
+        return labels;
+    }
+    
+    /**
+     * Name and labels as shown by /persistentarrows stats.
+     */
+    public String getDisplayName() {
+        return labels.isEmpty() ? name : name + "{" + labels + "}";
+    }
+    
+    abstract String getType();
+    
+    /**
+     * Append this series' sample lines (no HELP or TYPE).
+     */
+    abstract void writeSamples(StringBuilder out);
+    
+    /**
+     * One-line summary of the current value.
+     */
+    public abstract String describe();
+    
+    String series(String suffix, String extraLabel) {
+        String all = labels.isEmpty() ? extraLabel : (extraLabel.isEmpty() ? labels : labels + "," + extraLabel);
+        return all.isEmpty() ? name + suffix : name + suffix + "{" + all + "}";
+    }
+}
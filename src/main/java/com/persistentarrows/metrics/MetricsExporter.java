@@ -0,0 +1,60 @@
+package com.persistentarrows.metrics;
+
+import com.persistentarrows.PersistentArrows;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the registry in the Prometheus text format at http://127.0.0.1:port/metrics.
+ * Bound to the loopback address only; put a scraper or a proxy on the same machine.
+ */
+public class MetricsExporter {
+    
+    private static HttpServer server;
+    
+    /**
+     * Start serving on the given port. A port of 0 leaves the exporter off.
+     */
+    public static synchronized void start(int port) {
+        if (port <= 0 || server != null) {
+            return;
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", MetricsExporter::handle);
+            server.start();
+            PersistentArrows.LOGGER.info("Serving metrics on http://{}:{}/metrics", InetAddress.getLoopbackAddress().getHostAddress(), port);
+        } catch (IOException e) {
+            server = null;
+            PersistentArrows.LOGGER.warn("Failed to start metrics exporter on port {}: {}", port, e.getMessage());
+        }
+    }
+    
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+    
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = MetricsRegistry.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
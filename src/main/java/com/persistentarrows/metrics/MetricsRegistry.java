@@ -0,0 +1,63 @@
+package com.persistentarrows.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Every metric the mod exposes, in registration order.
+ * Metrics are created once at class init and never removed, so readers on other
+ * threads (the exporter) can walk the list without locking.
+ */
+public class MetricsRegistry {
+    private static final List<Metric> metrics = new CopyOnWriteArrayList<>();
+    
+    public static Counter counter(String name, String help) {
+        return counter(name, help, "");
+    }
+    
+    public static Counter counter(String name, String help, String labels) {
+        return register(new Counter(name, help, labels));
+    }
+    
+    public static Gauge gauge(String name, String help) {
+        return register(new Gauge(name, help, ""));
+    }
+    
+    public static Histogram histogram(String name, String help, String labels, long[] bounds, double scale) {
+        return register(new Histogram(name, help, labels, bounds, scale));
+    }
+    
+    private static <T extends Metric> T register(T metric) {
+        metrics.add(metric);
+        return metric;
+    }
+    
+    public static List<Metric> getAll() {
+        return metrics;
+    }
+    
+    /**
+     * Render every metric in the Prometheus text exposition format.
+     */
+    public static String toPrometheusText() {
+        // Series of a family have to be written together under one HELP/TYPE header
+        Map<String, List<Metric>> families = new LinkedHashMap<>();
+        for (Metric metric : metrics) {
+            families.computeIfAbsent(metric.getName(), name -> new ArrayList<>()).add(metric);
+        }
+        
+        StringBuilder out = new StringBuilder(8192);
+        for (List<Metric> family : families.values()) {
+            Metric first = family.get(0);
+            out.append("# HELP ").append(first.getName()).append(' ').append(first.getHelp()).append('\n');
+            out.append("# TYPE ").append(first.getName()).append(' ').append(first.getType()).append('\n');
+            for (Metric metric : family) {
+                metric.writeSamples(out);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -1,42 +1,90 @@
 package com.persistentarrows.mixin;
 
+import com.llamalad7.mixinextras.injector.ModifyExpressionValue;
+import com.persistentarrows.access.CloudProvenanceAccess;
+import com.persistentarrows.debug.DebugCategory;
+import com.persistentarrows.debug.HookTimer;
 import com.persistentarrows.debug.PersistentArrowsDebugger;
-import com.persistentarrows.util.ArrowPersistenceHelper;
+import com.persistentarrows.metrics.Hook;
+import com.persistentarrows.tracking.CloudProvenance;
 import net.minecraft.entity.AreaEffectCloudEntity;
+import net.minecraft.entity.EntityType;
 import net.minecraft.entity.LivingEntity;
+import net.minecraft.storage.ReadView;
+import net.minecraft.storage.WriteView;
+import net.minecraft.util.Uuids;
+import net.minecraft.world.World;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import java.util.List;
+import java.util.UUID;
 
 @Mixin(AreaEffectCloudEntity.class)
-public class AreaEffectCloudEntityMixin {
+public class AreaEffectCloudEntityMixin implements CloudProvenanceAccess {
     
-    @Inject(method = "tick", at = @At("HEAD"))
-    private void onCloudTick(CallbackInfo ci) {
+    @Unique
+    private UUID persistentarrows$sourceArrow;
+    
+    @Unique
+    private static final String SOURCE_ARROW_KEY = "persistentarrows:source_arrow";
+    
+    @Override
+    public UUID persistentarrows$getSourceArrow() {
+        return persistentarrows$sourceArrow;
+    }
+    
+    @Override
+    public void persistentarrows$setSourceArrow(UUID arrowId) {
+        this.persistentarrows$sourceArrow = arrowId;
+    }
+    
+    // The other constructor delegates here, so every new cloud passes through once
+    @Inject(method = "<init>(Lnet/minecraft/entity/EntityType;Lnet/minecraft/world/World;)V", at = @At("TAIL"))
+    private void onInit(EntityType<? extends AreaEffectCloudEntity> entityType, World world, CallbackInfo ci) {
+        if (!world.isClient()) {
+            CloudProvenance.onCloudCreated((AreaEffectCloudEntity)(Object)this);
+        }
+    }
+    
+    @Inject(method = "writeCustomData", at = @At("TAIL"))
+    private void onWriteCustomData(WriteView view, CallbackInfo ci) {
+        if (this.persistentarrows$sourceArrow != null) {
+            view.put(SOURCE_ARROW_KEY, Uuids.INT_STREAM_CODEC, this.persistentarrows$sourceArrow);
+        }
+    }
+    
+    @Inject(method = "readCustomData", at = @At("TAIL"))
+    private void onReadCustomData(ReadView view, CallbackInfo ci) {
+        this.persistentarrows$sourceArrow = view.read(SOURCE_ARROW_KEY, Uuids.INT_STREAM_CODEC).orElse(null);
+    }
+    
+    // Piggyback on the cloud's own affected-entity query instead of running a second one.
+    // Clouds not produced by a tracked arrow return straight away.
+    @ModifyExpressionValue(method = "serverTick", at = @At(value = "INVOKE",
+        target = "Lnet/minecraft/server/world/ServerWorld;getNonSpectatingEntities(Ljava/lang/Class;Lnet/minecraft/util/math/Box;)Ljava/util/List;"))
+    private List<LivingEntity> onAffectedEntities(List<LivingEntity> affectedEntities) {
+        if (persistentarrows$sourceArrow == null) {
+            return affectedEntities;
+        }
+        
+        long start = HookTimer.start();
         AreaEffectCloudEntity cloud = (AreaEffectCloudEntity)(Object)this;
+        PersistentArrowsDebugger.logCloudTick(cloud, affectedEntities.size());
         
-        // Track when lingering clouds apply damage
-        // This helps identify instant kills from potion effects
-        if (!cloud.getWorld().isClient) {
-            // Check for entities within the cloud that might be taking damage
-            List<LivingEntity> affectedEntities = cloud.getWorld().getEntitiesByClass(
-                LivingEntity.class, 
-                cloud.getBoundingBox().expand(0.5D),
-                entity -> true
-            );
-            
-            PersistentArrowsDebugger.logCloudTick(cloud, affectedEntities.size());
-            
+        if (DebugCategory.CLOUD_EVENTS.isEnabled()) {
             for (LivingEntity entity : affectedEntities) {
                 // Check if entity is about to die from cloud effects
                 if (entity.getHealth() <= 1.0F && entity.isAlive()) {
-                    PersistentArrowsDebugger.info("Low health entity in cloud: " + entity.getType().getTranslationKey() + 
-                        " (Health: " + entity.getHealth() + ") - potential instant kill target");
+                    PersistentArrowsDebugger.trace(DebugCategory.CLOUD_EVENTS, "Low health entity in cloud: {} (Health: {}) - potential instant kill target",
+                        entity.getType().getTranslationKey(), entity.getHealth());
                 }
             }
         }
+        HookTimer.stop(Hook.CLOUD_TICK, start);
+        return affectedEntities;
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,23 @@
 package com.persistentarrows.mixin;
 
+import com.persistentarrows.core.TrackerTrace;
+import com.persistentarrows.debug.HookTimer;
+import com.persistentarrows.debug.TraceRecorder;
+import com.persistentarrows.metrics.Hook;
+import com.persistentarrows.tracking.ActiveArrows;
+import com.persistentarrows.tracking.ArrowImpactDetector;
 import com.persistentarrows.tracking.LingeringArrowTracker;
+import com.persistentarrows.util.ArrowPersistenceHelper;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.projectile.PersistentProjectileEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.TeleportTarget;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 // This new mixin targets the 'remove' method in the base Entity class
 @Mixin(Entity.class)
@@ -17,6 +28,11 @@ public abstract class EntityMixin {
         // First, cast 'this' to an Entity to check its type
         Entity entity = (Entity)(Object)this;
 
+        // Runs for every entity on the server; with no eligible arrow loaded in its world there is nothing to clean up
+        if (ActiveArrows.isIdle(entity.getWorld())) {
+            return;
+        }
+
         // CRITICAL: We only want to run this code for arrows, not every entity.
         // This 'instanceof' check ensures your logic is applied correctly.
         if (entity instanceof PersistentProjectileEntity) {
@@ -24,9 +40,41 @@ public abstract class EntityMixin {
 
             // Only process on server side
             if (!arrow.getWorld().isClient()) {
+                long start = HookTimer.start();
+                if (TraceRecorder.isRecording(arrow.getWorld())) {
+                    int flags = (reason == Entity.RemovalReason.UNLOADED_TO_CHUNK ? TrackerTrace.REMOVE_UNLOADED : 0)
+                        | (reason.shouldDestroy() ? TrackerTrace.REMOVE_DESTROYED : 0);
+                    TraceRecorder.record(TrackerTrace.REMOVE, flags, arrow.getUuid(), arrow.getX(), arrow.getY(), arrow.getZ());
+                }
+                if (reason == Entity.RemovalReason.UNLOADED_TO_CHUNK) {
+                    // Saved with its chunk; park the tracking data until it comes back
+                    LingeringArrowTracker.hibernate(arrow);
+                    HookTimer.stop(Hook.ENTITY_REMOVE, start);
+                    return;
+                }
                 // Clean up tracking data
-                LingeringArrowTracker.stopTracking(arrow.getUuid(), "Arrow removed: " + reason);
+                LingeringArrowTracker.stopTracking(arrow.getWorld(), arrow.getUuid(), reason);
+                if (reason.shouldDestroy()) {
+                    ArrowPersistenceHelper.cleanupArrowData(arrow.getWorld(), arrow.getUuid());
+                }
+                HookTimer.stop(Hook.ENTITY_REMOVE, start);
             }
+        } else if (entity instanceof LivingEntity && reason.shouldDestroy() && !entity.getWorld().isClient()) {
+            // Hits recorded against a dead or discarded target can never be attributed again
+            ArrowImpactDetector.onTargetRemoved(entity.getWorld(), entity.getUuid());
+        }
+    }
+
+    @Inject(method = "teleportTo", at = @At("RETURN"))
+    private void onTeleportTo(TeleportTarget teleportTarget, CallbackInfoReturnable<Entity> cir) {
+        Entity entity = (Entity)(Object)this;
+        Entity result = cir.getReturnValue();
+
+        // Cross-dimension travel replaces the arrow with a copy in the destination world.
+        // Hand its tracking data over to that world instead of leaving it behind.
+        if (entity instanceof PersistentProjectileEntity && result != null
+                && result.getWorld() != entity.getWorld() && result.getWorld() instanceof ServerWorld destination) {
+            LingeringArrowTracker.transferToWorld(entity.getWorld(), entity.getUuid(), destination, result.getUuid());
         }
     }
-}
\ No newline at end of file
+}
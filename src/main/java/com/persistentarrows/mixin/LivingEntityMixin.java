@@ -1,10 +1,16 @@
 package com.persistentarrows.mixin;
 
+import com.persistentarrows.debug.DebugCategory;
+import com.persistentarrows.debug.HookTimer;
 import com.persistentarrows.debug.PersistentArrowsDebugger;
+import com.persistentarrows.metrics.Hook;
+import com.persistentarrows.tracking.ActiveArrows;
+import com.persistentarrows.tracking.ArrowImpactDetector;
 import com.persistentarrows.util.ArrowPersistenceHelper;
 import net.minecraft.entity.damage.DamageSource;
 import net.minecraft.entity.AreaEffectCloudEntity;
 import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.projectile.PersistentProjectileEntity;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -15,34 +21,54 @@ public class LivingEntityMixin {
     
     @Inject(method = "damage", at = @At("HEAD"))
     private void onPotionDamageStart(net.minecraft.server.world.ServerWorld world, DamageSource damageSource, float amount, CallbackInfoReturnable<Boolean> cir) {
+        if (ActiveArrows.isIdle(world)) {
+            return; // No arrow or arrow cloud that this damage could matter to
+        }
         LivingEntity entity = (LivingEntity)(Object)this;
         
         // Only log damage from area effect clouds to reduce spam
         if (damageSource.getSource() instanceof AreaEffectCloudEntity cloud) {
+            long start = HookTimer.start();
             PersistentArrowsDebugger.logDamageEvent(entity, damageSource, amount, "START");
             // Check if this damage would be instantly lethal
             if (amount >= entity.getHealth() && entity.isAlive()) {
-                PersistentArrowsDebugger.info("Potential instant kill detected - will confirm after damage application");
+                PersistentArrowsDebugger.trace(DebugCategory.DAMAGE_EVENTS, "Potential instant kill detected - will confirm after damage application");
             }
+            HookTimer.stop(Hook.DAMAGE_START, start);
         }
     }
     
     @Inject(method = "damage", at = @At("RETURN"))
     private void onPotionDamageEnd(net.minecraft.server.world.ServerWorld world, DamageSource damageSource, float amount, CallbackInfoReturnable<Boolean> cir) {
+        if (ActiveArrows.isIdle(world)) {
+            return;
+        }
         LivingEntity entity = (LivingEntity)(Object)this;
         
         // Only log damage from area effect clouds to reduce spam
         if (damageSource.getSource() instanceof AreaEffectCloudEntity cloud) {
+            long start = HookTimer.start();
             PersistentArrowsDebugger.logDamageEvent(entity, damageSource, amount, "END");
             if (!entity.isAlive() && cir.getReturnValue()) {
-                PersistentArrowsDebugger.info("INSTANT KILL CONFIRMED - Entity died from area effect cloud damage");
+                PersistentArrowsDebugger.trace(DebugCategory.DAMAGE_EVENTS, "INSTANT KILL CONFIRMED - Entity died from area effect cloud damage");
                 // Entity was instantly killed by lingering potion cloud
                 ArrowPersistenceHelper.onInstantKill(entity, cloud);
             } else if (!entity.isAlive()) {
-                PersistentArrowsDebugger.warn("Entity died but damage was not applied successfully");
+                PersistentArrowsDebugger.trace(DebugCategory.DAMAGE_EVENTS, "Entity died but damage was not applied successfully");
             } else {
-                PersistentArrowsDebugger.debug("Entity survived area effect cloud damage");
+                PersistentArrowsDebugger.trace(DebugCategory.VERBOSE, "Entity survived area effect cloud damage");
             }
+            HookTimer.stop(Hook.DAMAGE_END, start);
+        } else if (damageSource.getSource() instanceof PersistentProjectileEntity arrow && !entity.isAlive() && cir.getReturnValue()) {
+            // Killed by the arrow itself; the damage source names it, untracked arrows are ignored
+            long start = HookTimer.start();
+            ArrowImpactDetector.onArrowKill(entity.getWorld(), arrow.getUuid(), entity);
+            HookTimer.stop(Hook.DAMAGE_END, start);
+        } else if (damageSource.getSource() == null && !entity.isAlive() && cir.getReturnValue()) {
+            // Killed by an effect with no entity behind it; credit the arrow that hit last, if tracked
+            long start = HookTimer.start();
+            ArrowImpactDetector.onTargetKilled(entity.getWorld(), entity);
+            HookTimer.stop(Hook.DAMAGE_END, start);
         }
     }
 }
\ No newline at end of file
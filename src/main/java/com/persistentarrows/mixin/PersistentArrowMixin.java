@@ -1,28 +1,147 @@
 package com.persistentarrows.mixin;
 
+import com.persistentarrows.access.PersistentArrowAccess;
+import com.persistentarrows.debug.HookTimer;
 import com.persistentarrows.debug.PersistentArrowsDebugger;
+import com.persistentarrows.metrics.Hook;
+import com.persistentarrows.tracking.ActiveArrows;
+import com.persistentarrows.tracking.ArrowClassifier;
+import com.persistentarrows.tracking.ArrowNBTData;
+import com.persistentarrows.tracking.CloudProvenance;
 import com.persistentarrows.tracking.LingeringArrowTracker;
 import com.persistentarrows.tracking.ArrowImpactDetector;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.projectile.PersistentProjectileEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.storage.ReadView;
+import net.minecraft.storage.WriteView;
 import net.minecraft.util.hit.EntityHitResult;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 // This mixin correctly targets methods specific to PersistentProjectileEntity
 @Mixin(PersistentProjectileEntity.class)
-public class PersistentArrowMixin {
+public class PersistentArrowMixin implements PersistentArrowAccess {
+
+    // Cached eligibility verdict, reset whenever the arrow's item stack changes
+    @Unique
+    private byte persistentarrows$eligibility = PersistentArrowAccess.ELIGIBILITY_UNKNOWN;
+
+    @Override
+    public byte persistentarrows$getEligibility() {
+        return this.persistentarrows$eligibility;
+    }
+
+    @Override
+    public void persistentarrows$setEligibility(byte eligibility) {
+        this.persistentarrows$eligibility = eligibility;
+    }
+
+    // Tracking record for this arrow; the world's UUID map is only a secondary index
+    @Unique
+    private ArrowNBTData persistentarrows$trackingData;
+
+    @Override
+    public ArrowNBTData persistentarrows$getTrackingData() {
+        return this.persistentarrows$trackingData;
+    }
+
+    @Override
+    public void persistentarrows$setTrackingData(ArrowNBTData data) {
+        this.persistentarrows$trackingData = data;
+    }
+
+    // Arrows merged into this entity (see ArrowStacks); 1 for every ordinary arrow
+    @Unique
+    private int persistentarrows$stackCount = 1;
+
+    @Unique
+    private static final String STACK_COUNT_KEY = "persistentarrows:count";
+
+    @Override
+    public int persistentarrows$getStackCount() {
+        return this.persistentarrows$stackCount;
+    }
+
+    @Override
+    public void persistentarrows$setStackCount(int count) {
+        this.persistentarrows$stackCount = Math.max(1, count);
+    }
+
+    // Set on arrows ArrowRespawner spawned, so merges never land on shot or mob arrows
+    @Unique
+    private boolean persistentarrows$respawned;
+
+    @Unique
+    private static final String RESPAWNED_KEY = "persistentarrows:respawned";
+
+    @Override
+    public boolean persistentarrows$isRespawned() {
+        return this.persistentarrows$respawned;
+    }
+
+    @Override
+    public void persistentarrows$setRespawned(boolean respawned) {
+        this.persistentarrows$respawned = respawned;
+    }
+
+    // Whether this arrow's tick opened a cloud attribution scope that its tick end must close
+    @Unique
+    private boolean persistentarrows$inCloudScope;
+
+    // Whether ActiveArrows has counted this arrow as loaded and eligible
+    @Unique
+    private byte persistentarrows$liveState = PersistentArrowAccess.LIVE_NOT_LOADED;
+
+    @Override
+    public byte persistentarrows$getLiveState() {
+        return this.persistentarrows$liveState;
+    }
+
+    @Override
+    public void persistentarrows$setLiveState(byte state) {
+        this.persistentarrows$liveState = state;
+    }
+
+    @Inject(method = "writeCustomData", at = @At("TAIL"))
+    private void onWriteCustomData(WriteView view, CallbackInfo ci) {
+        if (this.persistentarrows$stackCount > 1) {
+            view.putInt(STACK_COUNT_KEY, this.persistentarrows$stackCount);
+        }
+        if (this.persistentarrows$respawned) {
+            view.putBoolean(RESPAWNED_KEY, true);
+        }
+    }
+
+    @Inject(method = "readCustomData", at = @At("TAIL"))
+    private void onReadCustomData(ReadView view, CallbackInfo ci) {
+        this.persistentarrows$stackCount = Math.max(1, view.getInt(STACK_COUNT_KEY, 1));
+        this.persistentarrows$respawned = view.getBoolean(RESPAWNED_KEY, false);
+    }
+
+    @Inject(method = "setStack", at = @At("TAIL"))
+    private void onSetStack(ItemStack stack, CallbackInfo ci) {
+        // Stack replaced (spawn, NBT load) - classify again on next check
+        PersistentProjectileEntity arrow = (PersistentProjectileEntity)(Object)this;
+        ArrowClassifier.invalidate(arrow);
+        ActiveArrows.onStackChanged(arrow);
+    }
 
     @Inject(method = "onEntityHit", at = @At("HEAD"))
     private void onArrowHitEntity(EntityHitResult entityHitResult, CallbackInfo ci) {
         PersistentProjectileEntity arrow = (PersistentProjectileEntity)(Object)this;
+        if (ActiveArrows.isIdle(arrow.getWorld())) {
+            return; // No eligible arrow in this world, this one included
+        }
         Entity target = entityHitResult.getEntity();
 
         // Only process on server side
         if (!arrow.getWorld().isClient()) {
+            long start = HookTimer.start();
             if (target instanceof LivingEntity livingTarget) {
                 PersistentArrowsDebugger.logArrowHit(arrow, livingTarget);
             } else {
@@ -31,17 +150,35 @@ public class PersistentArrowMixin {
 
             // Use new impact detection system
             ArrowImpactDetector.onArrowHitEntity(arrow, target);
+            HookTimer.stop(Hook.ARROW_HIT, start);
         }
     }
 
     @Inject(method = "tick", at = @At("HEAD"))
     private void onTick(CallbackInfo ci) {
         PersistentProjectileEntity arrow = (PersistentProjectileEntity)(Object)this;
+        if (ActiveArrows.isIdle(arrow.getWorld())) {
+            return;
+        }
 
         // Only process on server side
         if (!arrow.getWorld().isClient()) {
             // Use new tracking system instead of old reflection approach
+            long start = HookTimer.start();
             LingeringArrowTracker.checkAndTrackArrow(arrow);
+            if (this.persistentarrows$trackingData != null) {
+                // Any cloud made by this tick's hits belongs to this arrow
+                this.persistentarrows$inCloudScope = CloudProvenance.enterArrowTick(arrow.getWorld(), arrow.getUuid());
+            }
+            HookTimer.stop(Hook.ARROW_TICK, start);
+        }
+    }
+
+    @Inject(method = "tick", at = @At("RETURN"))
+    private void onTickEnd(CallbackInfo ci) {
+        if (this.persistentarrows$inCloudScope) {
+            this.persistentarrows$inCloudScope = false;
+            CloudProvenance.exitArrowTick(((PersistentProjectileEntity)(Object)this).getWorld());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.persistentarrows.mixin;
+
+import net.minecraft.entity.projectile.PersistentProjectileEntity;
+import net.minecraft.storage.ReadView;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+/**
+ * Direct access to PersistentProjectileEntity internals that used to be reached through reflection.
+ * inGround is widened in persistentarrows.accesswidener instead, since vanilla already has methods for it.
+ */
+@Mixin(PersistentProjectileEntity.class)
+public interface PersistentProjectileEntityAccessor {
+
+    @Accessor("life")
+    int persistentarrows$getLife();
+
+    @Accessor("life")
+    void persistentarrows$setLife(int life);
+
+    @Invoker("readCustomData")
+    void persistentarrows$readCustomData(ReadView view);
+}
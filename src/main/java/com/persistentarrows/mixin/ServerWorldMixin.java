@@ -1,34 +1,65 @@
 package com.persistentarrows.mixin;
 
-import com.persistentarrows.tracking.LingeringArrowTracker;
-import com.persistentarrows.tracking.RespawnScheduler;
+import com.persistentarrows.access.ArrowWorldAccess;
+import com.persistentarrows.debug.HookTimer;
+import com.persistentarrows.metrics.Hook;
+import com.persistentarrows.tracking.WorldArrowState;
+import net.minecraft.block.BlockState;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.ProgressListener;
+import net.minecraft.util.math.BlockPos;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 /**
- * Mixin for ServerWorld to handle periodic cleanup of tracking data.
+ * Mixin for ServerWorld that attaches the world's own tracking state,
+ * ticks it, saves it with the world, and keeps its bubble column index
+ * in sync with block changes.
  */
 @Mixin(ServerWorld.class)
-public class ServerWorldMixin {
-    
-    private int cleanupCounter = 0;
+public class ServerWorldMixin implements ArrowWorldAccess {
+
+    @Unique
+    private final WorldArrowState persistentarrows$arrowState = new WorldArrowState((ServerWorld)(Object)this);
+
+    @Override
+    public WorldArrowState persistentarrows$getArrowState() {
+        return this.persistentarrows$arrowState;
+    }
     
     /**
-     * Perform periodic cleanup and process respawn requests.
+     * Process this world's handoffs, expiry and respawn requests.
+     * Each world only touches its own state.
      */
     @Inject(method = "tick", at = @At("TAIL"))
     private void onServerTick(CallbackInfo ci) {
-        // Process pending arrow respawns every tick
-        RespawnScheduler.processPendingRespawns();
-        
-        // Clean up old data every 5 seconds (100 ticks)
-        cleanupCounter++;
-        if (cleanupCounter >= 100) {
-            LingeringArrowTracker.cleanupOldData();
-            cleanupCounter = 0;
+        long start = HookTimer.start();
+        this.persistentarrows$arrowState.tick();
+        HookTimer.stop(Hook.WORLD_TICK, start);
+    }
+
+    /**
+     * Save changed tracking state alongside the world. Writes run in the background
+     * unless the world is being flushed (shutdown, /save-all flush).
+     */
+    @Inject(method = "save", at = @At("HEAD"))
+    private void onSave(ProgressListener progressListener, boolean flush, boolean savingDisabled, CallbackInfo ci) {
+        if (!savingDisabled) {
+            this.persistentarrows$arrowState.save(flush);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Keep the bubble column index up to date. Every block change in a loaded chunk
+     * passes through here, including piston moves and bubble column updates.
+     */
+    @Inject(method = "onBlockStateChanged", at = @At("HEAD"))
+    private void onBlockStateChanged(BlockPos pos, BlockState oldBlock, BlockState newBlock, CallbackInfo ci) {
+        long start = HookTimer.start();
+        this.persistentarrows$arrowState.getBubbleColumns().onBlockChanged(pos, oldBlock, newBlock);
+        HookTimer.stop(Hook.BLOCK_CHANGE, start);
+    }
+}
@@ -0,0 +1,100 @@
+package com.persistentarrows.tracking;
+
+import com.persistentarrows.access.PersistentArrowAccess;
+import net.minecraft.entity.AreaEffectCloudEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.projectile.PersistentProjectileEntity;
+import net.minecraft.world.World;
+
+/**
+ * Per-world count of loaded eligible arrows and of clouds attributed to one.
+ * While both are zero in a world - which is most of the time - nothing the per-entity
+ * hooks look for can exist there, so they return straight away (see isIdle).
+ * The counts live in the world's WorldArrowState and are updated from entity load/unload
+ * events, so like the rest of it they are only touched from that world's tick.
+ */
+public class ActiveArrows {
+    
+    /**
+     * True while no eligible arrow is loaded in the world and no cloud there is attributed
+     * to one. Always true for worlds without tracking state (client worlds).
+     */
+    public static boolean isIdle(World world) {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state == null || state.eligibleArrows == 0 && state.attributedClouds == 0;
+    }
+    
+    public static int getEligibleArrowCount(World world) {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state != null ? state.eligibleArrows : 0;
+    }
+    
+    public static int getAttributedCloudCount(World world) {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state != null ? state.attributedClouds : 0;
+    }
+    
+    /**
+     * Count an entity joining a world. Called from ServerEntityEvents.ENTITY_LOAD,
+     * after clouds have been attributed.
+     */
+    public static void onEntityLoad(Entity entity, World world) {
+        WorldArrowState state = WorldArrowState.of(world);
+        if (state == null) {
+            return;
+        }
+        if (entity instanceof PersistentProjectileEntity arrow) {
+            PersistentArrowAccess access = (PersistentArrowAccess) arrow;
+            if (access.persistentarrows$getLiveState() == PersistentArrowAccess.LIVE_NOT_LOADED) {
+                count(state, arrow, access);
+            }
+        } else if (entity instanceof AreaEffectCloudEntity cloud && CloudProvenance.isFromTrackedArrow(cloud)) {
+            state.attributedClouds++;
+        }
+    }
+    
+    /**
+     * Stop counting an entity leaving a world for any reason. Called from
+     * ServerEntityEvents.ENTITY_UNLOAD with the world it leaves.
+     */
+    public static void onEntityUnload(Entity entity, World world) {
+        WorldArrowState state = WorldArrowState.of(world);
+        if (state == null) {
+            return;
+        }
+        if (entity instanceof PersistentProjectileEntity arrow) {
+            PersistentArrowAccess access = (PersistentArrowAccess) arrow;
+            if (access.persistentarrows$getLiveState() == PersistentArrowAccess.LIVE_COUNTED) {
+                state.eligibleArrows--;
+            }
+            access.persistentarrows$setLiveState(PersistentArrowAccess.LIVE_NOT_LOADED);
+        } else if (entity instanceof AreaEffectCloudEntity cloud && CloudProvenance.isFromTrackedArrow(cloud)) {
+            state.attributedClouds--;
+        }
+    }
+    
+    /**
+     * Re-count a loaded arrow whose item stack was replaced.
+     */
+    public static void onStackChanged(PersistentProjectileEntity arrow) {
+        PersistentArrowAccess access = (PersistentArrowAccess) arrow;
+        byte liveState = access.persistentarrows$getLiveState();
+        WorldArrowState state = WorldArrowState.of(arrow.getWorld());
+        if (liveState == PersistentArrowAccess.LIVE_NOT_LOADED || state == null) {
+            return; // Counted when it loads
+        }
+        if (liveState == PersistentArrowAccess.LIVE_COUNTED) {
+            state.eligibleArrows--;
+        }
+        count(state, arrow, access);
+    }
+    
+    private static void count(WorldArrowState state, PersistentProjectileEntity arrow, PersistentArrowAccess access) {
+        if (ArrowClassifier.isEligible(arrow)) {
+            state.eligibleArrows++;
+            access.persistentarrows$setLiveState(PersistentArrowAccess.LIVE_COUNTED);
+        } else {
+            access.persistentarrows$setLiveState(PersistentArrowAccess.LIVE_NOT_COUNTED);
+        }
+    }
+}
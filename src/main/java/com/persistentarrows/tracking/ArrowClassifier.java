@@ -0,0 +1,59 @@
+package com.persistentarrows.tracking;
+
+import com.persistentarrows.access.PersistentArrowAccess;
+import net.minecraft.component.DataComponentTypes;
+import net.minecraft.entity.projectile.PersistentProjectileEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.LingeringPotionItem;
+import net.minecraft.item.TippedArrowItem;
+
+/**
+ * Decides whether an arrow is eligible for persistence tracking.
+ * The verdict is computed once from the arrow's item stack components and cached
+ * on the entity, so the per-tick check is a single field read.
+ */
+public class ArrowClassifier {
+
+    /**
+     * Check if an arrow is a lingering potion arrow or tipped arrow with potion effects.
+     * Classifies the arrow on first use and whenever its item stack has been replaced.
+     */
+    public static boolean isEligible(PersistentProjectileEntity arrow) {
+        PersistentArrowAccess access = (PersistentArrowAccess) arrow;
+        byte eligibility = access.persistentarrows$getEligibility();
+
+        if (eligibility == PersistentArrowAccess.ELIGIBILITY_UNKNOWN) {
+            eligibility = classify(arrow.getItemStack())
+                ? PersistentArrowAccess.ELIGIBILITY_ELIGIBLE
+                : PersistentArrowAccess.ELIGIBILITY_INELIGIBLE;
+            access.persistentarrows$setEligibility(eligibility);
+        }
+
+        return eligibility == PersistentArrowAccess.ELIGIBILITY_ELIGIBLE;
+    }
+
+    /**
+     * Classify an arrow item stack by reading its components directly.
+     */
+    public static boolean classify(ItemStack stack) {
+        // Lingering potion items are always eligible
+        if (stack.getItem() instanceof LingeringPotionItem) {
+            return true;
+        }
+
+        // Tipped arrows are eligible when they carry potion contents
+        if (stack.getItem() instanceof TippedArrowItem) {
+            return stack.contains(DataComponentTypes.POTION_CONTENTS);
+        }
+
+        return false;
+    }
+
+    /**
+     * Drop the cached verdict so the arrow is classified again on its next check.
+     * Called when the arrow's item stack is replaced.
+     */
+    public static void invalidate(PersistentProjectileEntity arrow) {
+        ((PersistentArrowAccess) arrow).persistentarrows$setEligibility(PersistentArrowAccess.ELIGIBILITY_UNKNOWN);
+    }
+}
@@ -1,24 +1,27 @@
 package com.persistentarrows.tracking;
 
+import com.persistentarrows.core.TrackerTrace;
+import com.persistentarrows.core.TrackingRules;
+import com.persistentarrows.debug.DebugCategory;
 import com.persistentarrows.debug.PersistentArrowsDebugger;
+import com.persistentarrows.debug.TraceRecorder;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.projectile.PersistentProjectileEntity;
-import net.minecraft.item.LingeringPotionItem;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
 
-import java.util.Map;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Detects when lingering arrows hit entities and monitors for death after impact.
  * This triggers the arrow respawn mechanism when entities die from arrow effects.
+ * Hits waiting for a potential death are kept per world in WorldArrowState, indexed
+ * by target as well so a death can be traced back to the arrows that hit the target.
  */
 public class ArrowImpactDetector {
     
-    // Track arrows that have hit entities and are waiting for potential death
-    private static final Map<UUID, ArrowHitData> pendingHits = new ConcurrentHashMap<>();
-    
     /**
      * Handle arrow-entity collision events.
      * Called when an arrow hits any entity.
@@ -28,46 +31,109 @@ public class ArrowImpactDetector {
             return; // Only care about lingering arrows
         }
         
+        WorldArrowState state = WorldArrowState.of(arrow.getWorld());
+        if (state == null) {
+            return;
+        }
+        
         UUID arrowId = arrow.getUuid();
         
         // Check if this arrow is being tracked
-        if (!LingeringArrowTracker.isTracked(arrowId)) {
-            PersistentArrowsDebugger.debug("Lingering arrow hit entity but was not tracked: " + arrowId);
+        ArrowNBTData arrowData = LingeringArrowTracker.getTrackedArrowData(arrow);
+        if (arrowData == null) {
+            PersistentArrowsDebugger.trace(DebugCategory.VERBOSE, "Lingering arrow hit entity but was not tracked: {}", arrowId);
             return;
         }
         
-        PersistentArrowsDebugger.info("Tracked lingering arrow hit entity: " + target.getType().getTranslationKey());
-        PersistentArrowsDebugger.info("Arrow ID: " + arrowId);
-        PersistentArrowsDebugger.info("Target Health: " + (target instanceof LivingEntity living ? living.getHealth() : "N/A"));
+        PersistentArrowsDebugger.trace(DebugCategory.ARROW_TRACKING, "Tracked lingering arrow {} hit entity: {}",
+            arrowId, target.getType().getTranslationKey());
         
         // Store impact data for potential respawn
         if (target instanceof LivingEntity livingTarget) {
-            handleLivingEntityImpact(arrow, livingTarget);
+            handleLivingEntityImpact(state, arrow, livingTarget);
         }
     }
     
     /**
      * Handle impact with living entities specifically.
      */
-    private static void handleLivingEntityImpact(PersistentProjectileEntity arrow, LivingEntity target) {
+    private static void handleLivingEntityImpact(WorldArrowState state, PersistentProjectileEntity arrow, LivingEntity target) {
         UUID arrowId = arrow.getUuid();
         float targetHealth = target.getHealth();
         
-        PersistentArrowsDebugger.info("Lingering arrow impact details:");
-        PersistentArrowsDebugger.info("  Arrow: " + arrowId);
-        PersistentArrowsDebugger.info("  Target: " + target.getType().getTranslationKey());
-        PersistentArrowsDebugger.info("  Target Health: " + targetHealth + "/" + target.getMaxHealth());
-        PersistentArrowsDebugger.info("  Target Alive: " + target.isAlive());
-        
-        // Store hit data for health-based detection
-        ArrowHitData hitData = new ArrowHitData(arrowId, target.getUuid(), targetHealth, System.currentTimeMillis());
-        pendingHits.put(arrowId, hitData);
+        if (DebugCategory.ARROW_TRACKING.isEnabled()) {
+            PersistentArrowsDebugger.trace(DebugCategory.ARROW_TRACKING, "Lingering arrow impact: arrow={} target={} health={}",
+                arrowId, target.getType().getTranslationKey(), targetHealth);
+        }
         
-        // Mark arrow data for potential respawn based on target health
-        ArrowNBTData arrowData = LingeringArrowTracker.getTrackedArrowData(arrowId);
-        if (arrowData != null && targetHealth <= 10.0f) {
-            arrowData.markForRespawn(target.getWorld());
-            PersistentArrowsDebugger.info("Arrow marked for respawn - target health: " + targetHealth);
+        // Store hit data; the arrow is only marked for respawn once its cloud kills (see onArrowKill)
+        ArrowHitData hitData = new ArrowHitData(arrowId, target.getUuid(), arrow.getPos(), targetHealth, state.now());
+        ArrowHitData previous = state.pendingHits.put(arrowId, hitData, TrackingRules.HIT_TTL_TICKS);
+        if (previous != null) {
+            state.hitsByTarget.remove(previous.getTargetId(), previous);
+        }
+        state.hitsByTarget.add(target.getUuid(), hitData);
+        state.journal.record(ArrowJournal.Event.HIT, arrowId, arrow.getPos(), Math.round(targetHealth * 100.0F));
+        if (TraceRecorder.isRecording(state.getWorld())) {
+            TraceRecorder.record(TrackerTrace.HIT, Math.round(targetHealth * 100.0F), arrowId, arrow.getX(), arrow.getY(), arrow.getZ());
+        }
+    }
+    
+    /**
+     * Mark an arrow for respawn after it killed an entity, directly or through its cloud.
+     * The arrow comes from the damage source or the cloud's provenance tag, never from
+     * a search, so no other arrow can be marked. Returns false if it is not tracked.
+     */
+    public static boolean onArrowKill(World world, UUID arrowId, LivingEntity target) {
+        if (TraceRecorder.isRecording(world)) {
+            TraceRecorder.record(TrackerTrace.KILL, 0, arrowId, target.getX(), target.getY(), target.getZ());
+        }
+        WorldArrowState state = WorldArrowState.of(world);
+        ArrowNBTData arrowData = LingeringArrowTracker.getTrackedArrowData(world, arrowId);
+        if (state == null || arrowData == null) {
+            return false;
+        }
+        if (!arrowData.isMarkedForRespawn()) {
+            arrowData.markForRespawn(world);
+            state.markDirty(arrowData.getPosition());
+            state.journal.record(ArrowJournal.Event.MARKED, arrowId, arrowData.getPosition(), 0);
+            PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Arrow {} marked for respawn - it killed {}",
+                arrowId, target.getType().getTranslationKey());
+        }
+        return true;
+    }
+    
+    /**
+     * Attribute a death no entity caused (the wither or other effect a tipped arrow left on
+     * its target) to the tracked arrow that hit the target last. Hits are looked up by
+     * target, so this costs the same however many arrows are tracked. Returns false if no
+     * tracked arrow hit the target.
+     */
+    public static boolean onTargetKilled(World world, LivingEntity target) {
+        WorldArrowState state = WorldArrowState.of(world);
+        if (state == null) {
+            return false;
+        }
+        List<ArrowHitData> hits = state.hitsByTarget.get(target.getUuid());
+        for (int i = hits.size() - 1; i >= 0; i--) {
+            if (onArrowKill(world, hits.get(i).getArrowId(), target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Forget every hit on a target that has left the world for good; they can never lead
+     * to a kill. Called from the entity removal hook.
+     */
+    public static void onTargetRemoved(World world, UUID targetId) {
+        WorldArrowState state = WorldArrowState.of(world);
+        if (state == null) {
+            return;
+        }
+        for (ArrowHitData hitData : state.hitsByTarget.removeAll(targetId)) {
+            state.pendingHits.remove(hitData.getArrowId(), hitData);
         }
     }
     
@@ -75,37 +141,21 @@ public class ArrowImpactDetector {
      * Handle arrow despawn - check if arrow was marked for respawn.
      * Called when an arrow is removed from tracking.
      */
-    public static void onArrowDespawn(UUID arrowId) {
-        ArrowHitData hitData = pendingHits.remove(arrowId);
+    static void onArrowDespawn(WorldArrowState state, UUID arrowId) {
+        ArrowHitData hitData = state.pendingHits.remove(arrowId);
         if (hitData != null) {
-            PersistentArrowsDebugger.info("Arrow despawned, checking for respawn: " + arrowId);
+            state.hitsByTarget.remove(hitData.getTargetId(), hitData);
+            PersistentArrowsDebugger.trace(DebugCategory.ARROW_TRACKING, "Arrow despawned, checking for respawn: {}", arrowId);
             // Cleanup - no longer needed since we use health-based detection
         }
     }
     
     /**
      * Check if an arrow is a lingering potion arrow or tipped arrow with potion effects.
+     * Uses the verdict cached on the arrow by ArrowClassifier.
      */
     public static boolean isLingeringArrow(PersistentProjectileEntity arrow) {
-        // Check if it's a lingering potion item
-        if (arrow.getItemStack().getItem() instanceof LingeringPotionItem) {
-            return true;
-        }
-        
-        // Check if it's a tipped arrow with potion effects
-        if (arrow.getItemStack().getItem() instanceof net.minecraft.item.TippedArrowItem) {
-            // Tipped arrows with any potion effects should be considered "lingering" for our purposes
-            try {
-                // Use reflection to check for potion contents to avoid version-specific imports
-                return arrow.getItemStack().getComponents().toString().contains("potion_contents") ||
-                       arrow.getItemStack().getComponents().toString().contains("PotionContents");
-            } catch (Exception e) {
-                // Fallback: assume tipped arrows have potion contents
-                return true;
-            }
-        }
-        
-        return false;
+        return ArrowClassifier.isEligible(arrow);
     }
     
     /**
@@ -118,22 +168,25 @@ public class ArrowImpactDetector {
     /**
      * Simple data class to track arrow hits for cleanup purposes.
      */
-    private static class ArrowHitData {
+    static class ArrowHitData {
         private final UUID arrowId;
         private final UUID targetId;
+        private final Vec3d hitPosition;
         private final float originalHealth;
-        private final long hitTime;
+        private final long hitTick;
         
-        public ArrowHitData(UUID arrowId, UUID targetId, float originalHealth, long hitTime) {
+        public ArrowHitData(UUID arrowId, UUID targetId, Vec3d hitPosition, float originalHealth, long hitTick) {
             this.arrowId = arrowId;
             this.targetId = targetId;
+            this.hitPosition = hitPosition;
             this.originalHealth = originalHealth;
-            this.hitTime = hitTime;
+            this.hitTick = hitTick;
         }
         
         public UUID getArrowId() { return arrowId; }
         public UUID getTargetId() { return targetId; }
+        public Vec3d getHitPosition() { return hitPosition; }
         public float getOriginalHealth() { return originalHealth; }
-        public long getHitTime() { return hitTime; }
+        public long getHitTick() { return hitTick; }
     }
 }
\ No newline at end of file
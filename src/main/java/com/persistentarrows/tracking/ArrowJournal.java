@@ -0,0 +1,138 @@
+package com.persistentarrows.tracking;
+
+import com.persistentarrows.PersistentArrows;
+import com.persistentarrows.config.PersistentArrowsConfig;
+import com.persistentarrows.core.MappedJournal;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Binary journal of tracked arrow lifecycle events in one world, kept in memory-mapped
+ * segments under the dimension's data/persistentarrows/journal folder. Recording an
+ * event writes one fixed-size record straight into the mapping, so it is cheap enough
+ * for the tick loop and survives a crash; read it back with read().
+ * 
+ * The journal is opened on the first event. If a segment cannot be created the journal
+ * turns itself off for the rest of the run rather than failing the tick.
+ */
+public class ArrowJournal {
+    
+    /**
+     * Lifecycle events, with the meaning of each record's aux field.
+     */
+    public enum Event {
+        // aux: stack count
+        TRACKED(1),
+        // aux: unused
+        LEFT_COLUMN(2),
+        // aux: target health in hundredths of a point
+        HIT(3),
+        // aux: unused
+        MARKED(4),
+        // aux: 1 if it was marked for respawn
+        DESPAWNED(5),
+        // aux: 1 if merged into an arrow already lying there
+        RESPAWNED(6),
+        // aux: unused
+        EXPIRED(7),
+        // aux: CappedIndex.Scope ordinal of the cap it was evicted for
+        EVICTED(8);
+        
+        private static final Event[] BY_CODE = new Event[9];
+        
+        static {
+            for (Event event : values()) {
+                BY_CODE[event.code] = event;
+            }
+        }
+        
+        private final int code;
+        
+        Event(int code) {
+            this.code = code;
+        }
+        
+        public int getCode() {
+            return code;
+        }
+        
+        /**
+         * The event a record's type stands for, or null for types this version doesn't know.
+         */
+        public static Event byCode(int code) {
+            return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        }
+    }
+    
+    private final WorldArrowState state;
+    private MappedJournal journal;
+    private boolean disabled;
+    
+    ArrowJournal(WorldArrowState state) {
+        this.state = state;
+    }
+    
+    void record(Event event, UUID arrowId, Vec3d pos, int aux) {
+        record(event, arrowId, pos.x, pos.y, pos.z, aux);
+    }
+    
+    void record(Event event, UUID arrowId, double x, double y, double z, int aux) {
+        if (disabled || !PersistentArrowsConfig.arrowJournal) {
+            return;
+        }
+        try {
+            if (journal == null) {
+                journal = new MappedJournal(getDirectory(state), PersistentArrowsConfig.journalSegmentRecords, PersistentArrowsConfig.journalSegments);
+            }
+            journal.append(event.code, aux, state.now(), arrowId.getMostSignificantBits(), arrowId.getLeastSignificantBits(), x, y, z);
+        } catch (IOException | UncheckedIOException e) {
+            disabled = true;
+            PersistentArrows.LOGGER.error("Arrow journal for {} failed, recording stopped", state.getWorld().getRegistryKey().getValue(), e);
+        }
+    }
+    
+    /**
+     * Push recorded events to disk. Called when the world is flushed.
+     */
+    void flush() {
+        if (journal != null) {
+            journal.force();
+        }
+    }
+    
+    /**
+     * Flush and let go of the current segment. Recording again opens a new one.
+     */
+    void close() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+    
+    /**
+     * Records written in this world since the journal was opened.
+     */
+    public long getRecordedCount() {
+        return journal != null ? journal.getAppendedCount() : 0L;
+    }
+    
+    /**
+     * Stream a world's journal, oldest record first, including earlier runs.
+     * Close the stream when done.
+     */
+    public static Stream<MappedJournal.Entry> read(World world) throws IOException {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state != null ? MappedJournal.read(getDirectory(state)) : Stream.empty();
+    }
+    
+    private static Path getDirectory(WorldArrowState state) {
+        return state.getDataDirectory().resolve("journal");
+    }
+}
\ No newline at end of file
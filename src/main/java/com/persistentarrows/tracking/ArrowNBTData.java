@@ -1,5 +1,6 @@
 package com.persistentarrows.tracking;
 
+import com.persistentarrows.core.TrackingRules;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
@@ -9,46 +10,54 @@ import java.util.UUID;
  * Lightweight data class to store essential information for tracked arrows.
  * Optimized for performance with minimal memory footprint.
  */
-public class ArrowNBTData {
+public class ArrowNBTData implements TrackingRules.Arrow {
     private final UUID arrowId;
-    private final ItemStack arrowItem;
-    private final String arrowType;
+    private final ArrowTemplates.Template template;
     private final Vec3d position;
     private final Vec3d velocity;
-    private final long trackingStartTime;
+    private final long trackingStartTick;
     private boolean inBubbleColumn;
-    private long lastSeenTime;
+    private long lastSeenTick;
     private boolean markedForRespawn;
     private World respawnWorld;
+    private boolean tracked;
+    private int stackCount = 1;
+    private UUID owner;
     
-    public ArrowNBTData(UUID arrowId, ItemStack arrowItem, Vec3d position, Vec3d velocity) {
+    public ArrowNBTData(UUID arrowId, ArrowTemplates.Template template, Vec3d position, Vec3d velocity, long currentTick) {
         this.arrowId = arrowId;
-        this.arrowItem = arrowItem.copy(); // Store a copy to preserve original properties
-        this.arrowType = arrowItem.getItem().getTranslationKey();
+        this.template = template;
         this.position = position;
         this.velocity = velocity;
-        this.trackingStartTime = System.currentTimeMillis();
-        this.lastSeenTime = this.trackingStartTime;
+        this.trackingStartTick = currentTick;
+        this.lastSeenTick = this.trackingStartTick;
         this.inBubbleColumn = false;
         this.markedForRespawn = false;
         this.respawnWorld = null;
     }
     
-    // Convenience constructor with zero velocity
-    public ArrowNBTData(UUID arrowId, ItemStack arrowItem, Vec3d position) {
-        this(arrowId, arrowItem, position, Vec3d.ZERO);
-    }
-    
+    @Override
     public UUID getArrowId() {
         return arrowId;
     }
     
+    /**
+     * Make a new stack of the arrow's item, for spawning it. Anything that only needs to
+     * look at the item should use the template.
+     */
     public ItemStack getArrowItem() {
-        return arrowItem.copy(); // Return a copy to prevent external mutations
+        return template.create();
+    }
+    
+    /**
+     * The arrow's item, shared with every arrow of the same stack (see ArrowTemplates).
+     */
+    public ArrowTemplates.Template getTemplate() {
+        return template;
     }
     
     public String getArrowType() {
-        return arrowType;
+        return template.type();
     }
     
     public Vec3d getPosition() {
@@ -59,24 +68,29 @@ public class ArrowNBTData {
         return velocity;
     }
     
-    public long getTrackingStartTime() {
-        return trackingStartTime;
+    @Override
+    public long getTrackingStartTick() {
+        return trackingStartTick;
     }
     
+    @Override
     public boolean isInBubbleColumn() {
         return inBubbleColumn;
     }
     
+    @Override
     public void setInBubbleColumn(boolean inBubbleColumn) {
         this.inBubbleColumn = inBubbleColumn;
     }
     
-    public long getLastSeenTime() {
-        return lastSeenTime;
+    @Override
+    public long getLastSeenTick() {
+        return lastSeenTick;
     }
     
-    public void resetLastSeenTime() {
-        this.lastSeenTime = System.currentTimeMillis();
+    @Override
+    public void resetLastSeenTick(long currentTick) {
+        this.lastSeenTick = currentTick;
     }
     
     public boolean isMarkedForRespawn() {
@@ -93,33 +107,68 @@ public class ArrowNBTData {
     }
     
     /**
-     * Check if this arrow data is still valid (not too old).
-     * Prevents memory leaks from arrows that disappeared.
-     * Optimized based on knowledgebase performance patterns.
+     * Number of arrows the entity stands for; above 1 only for merged respawns.
      */
-    public boolean isValid() {
-        long maxAge = 5 * 60 * 1000; // 5 minutes - reasonable cleanup interval
-        return (System.currentTimeMillis() - trackingStartTime) < maxAge;
+    public int getStackCount() {
+        return stackCount;
+    }
+    
+    public void setStackCount(int stackCount) {
+        this.stackCount = Math.max(1, stackCount);
+    }
+    
+    /**
+     * Entity that shot the arrow, carried over to its respawns; null if unknown.
+     */
+    public UUID getOwner() {
+        return owner;
+    }
+    
+    public void setOwner(UUID owner) {
+        this.owner = owner;
+    }
+    
+    /**
+     * Whether this data is still in its world's tracking index. Arrows drop a
+     * record they hold once it stops being tracked.
+     */
+    public boolean isTracked() {
+        return tracked;
+    }
+    
+    /**
+     * Called as the record enters and leaves the index; a tracked record holds its template.
+     */
+    @Override
+    public void setTracked(boolean tracked) {
+        if (tracked != this.tracked) {
+            if (tracked) {
+                template.retain();
+            } else {
+                template.release();
+            }
+        }
+        this.tracked = tracked;
     }
     
     /**
      * Check if this is a tipped arrow (for respawn logic).
      */
     public boolean isTippedArrow() {
-        return arrowType.contains("tipped_arrow");
+        return getArrowType().contains("tipped_arrow");
     }
     
     /**
      * Check if this is a lingering potion arrow.
      */
     public boolean isLingeringArrow() {
-        return arrowType.contains("lingering");
+        return getArrowType().contains("lingering");
     }
     
     @Override
     public String toString() {
-        return String.format("ArrowData{id=%s, type=%s, pos=%s, inBubble=%s, age=%dms}", 
-            arrowId.toString().substring(0, 8), arrowType, position, inBubbleColumn, 
-            System.currentTimeMillis() - trackingStartTime);
+        return String.format("ArrowData{id=%s, type=%s, pos=%s, inBubble=%s, since=%dt}", 
+            arrowId.toString().substring(0, 8), getArrowType(), position, inBubbleColumn, 
+            trackingStartTick);
     }
 }
\ No newline at end of file
@@ -0,0 +1,269 @@
+package com.persistentarrows.tracking;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.NbtSizeTracker;
+import net.minecraft.registry.RegistryWrapper;
+import net.minecraft.util.math.Vec3d;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Saved tracking state of one 32x32 chunk region of a world.
+ * 
+ * Layout: magic, version, the distinct arrow item stacks as NBT, then the arrows
+ * sorted by position with each position stored as a zigzag varint delta from the
+ * previous one in 1/4096 block steps, then the queued respawns encoded the same way.
+ * A respawn either carries its own item template (its arrow already left tracking)
+ * or none, in which case it refers to one of the tracked arrows.
+ * Version 2 adds the merged arrow count to arrows and respawns.
+ * Version 3 adds the shooter's UUID to arrows and respawns, behind a flag.
+ */
+class ArrowRegionFile {
+    private static final int MAGIC = 0x50415231; // "PAR1"
+    private static final int VERSION = 3;
+    
+    // Fixed-point scales: 1/4096 block for positions, 1/8000 block per tick for velocity
+    private static final double POSITION_SCALE = 4096.0D;
+    private static final double VELOCITY_SCALE = 8000.0D;
+    
+    private static final int FLAG_IN_BUBBLE_COLUMN = 1;
+    private static final int FLAG_MARKED_FOR_RESPAWN = 2;
+    private static final int FLAG_HAS_OWNER = 4;
+    
+    // count is the number of arrows merged into the entity (1 unless respawn merging is on)
+    record Arrow(UUID id, int template, int count, Vec3d position, Vec3d velocity, long age, boolean inBubbleColumn, boolean markedForRespawn, UUID owner) {}
+    
+    // template is -1 for respawns of arrows that are still tracked
+    record Respawn(UUID arrowId, int template, int count, Vec3d position, UUID owner) {}
+    
+    final List<ItemStack> templates = new ArrayList<>();
+    final List<Arrow> arrows = new ArrayList<>();
+    final List<Respawn> respawns = new ArrayList<>();
+    // Template -> index in templates
+    private final Reference2IntOpenHashMap<ArrowTemplates.Template> templateIndex = new Reference2IntOpenHashMap<>();
+    
+    ArrowRegionFile() {
+        templateIndex.defaultReturnValue(-1);
+    }
+    
+    boolean isEmpty() {
+        return arrows.isEmpty() && respawns.isEmpty();
+    }
+    
+    /**
+     * Add a tracked arrow, sharing its item stack with any identical one already added.
+     */
+    void addArrow(ArrowNBTData data, long now) {
+        int template = templateOf(data);
+        if (template < 0) {
+            return; // Nothing to respawn from
+        }
+        arrows.add(new Arrow(data.getArrowId(), template, data.getStackCount(), data.getPosition(), data.getVelocity(),
+            now - data.getTrackingStartTick(), data.isInBubbleColumn(), data.isMarkedForRespawn(), data.getOwner()));
+    }
+    
+    /**
+     * Add a queued respawn; data is null when the arrow is still tracked.
+     */
+    void addRespawn(UUID arrowId, Vec3d position, ArrowNBTData data) {
+        int template = data != null ? templateOf(data) : -1;
+        if (data != null && template < 0) {
+            return;
+        }
+        respawns.add(new Respawn(arrowId, template, data != null ? data.getStackCount() : 1, position, data != null ? data.getOwner() : null));
+    }
+    
+    private int templateOf(ArrowNBTData data) {
+        ArrowTemplates.Template shared = data.getTemplate();
+        if (shared == ArrowTemplates.EMPTY) {
+            return -1;
+        }
+        int template = templateIndex.getInt(shared);
+        if (template < 0) {
+            template = templates.size();
+            // Shared and only read when encoding, so it needs no copy
+            templates.add(shared.stack());
+            templateIndex.put(shared, template);
+        }
+        return template;
+    }
+    
+    void write(DataOutput out, RegistryWrapper.WrapperLookup registries) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        
+        writeVarInt(out, templates.size());
+        for (ItemStack stack : templates) {
+            NbtCompound nbt = (NbtCompound) ItemStack.CODEC.encodeStart(registries.getOps(NbtOps.INSTANCE), stack).getOrThrow();
+            NbtIo.write(nbt, out);
+        }
+        
+        // Sorting keeps neighbouring arrows next to each other so their deltas stay small
+        arrows.sort(Comparator.comparingDouble((Arrow a) -> a.position().x).thenComparingDouble(a -> a.position().z));
+        writeVarInt(out, arrows.size());
+        long[] previous = new long[3];
+        for (Arrow arrow : arrows) {
+            writeUuid(out, arrow.id());
+            writeVarInt(out, arrow.template());
+            writeVarInt(out, arrow.count());
+            writePositionDelta(out, arrow.position(), previous);
+            writeVarLong(out, zigzag(Math.round(arrow.velocity().x * VELOCITY_SCALE)));
+            writeVarLong(out, zigzag(Math.round(arrow.velocity().y * VELOCITY_SCALE)));
+            writeVarLong(out, zigzag(Math.round(arrow.velocity().z * VELOCITY_SCALE)));
+            writeVarLong(out, Math.max(0, arrow.age()));
+            out.writeByte((arrow.inBubbleColumn() ? FLAG_IN_BUBBLE_COLUMN : 0) | (arrow.markedForRespawn() ? FLAG_MARKED_FOR_RESPAWN : 0)
+                | (arrow.owner() != null ? FLAG_HAS_OWNER : 0));
+            if (arrow.owner() != null) {
+                writeUuid(out, arrow.owner());
+            }
+        }
+        
+        writeVarInt(out, respawns.size());
+        previous = new long[3];
+        for (Respawn respawn : respawns) {
+            writeUuid(out, respawn.arrowId());
+            writeVarInt(out, respawn.template() + 1);
+            writeVarInt(out, respawn.count());
+            writePositionDelta(out, respawn.position(), previous);
+            out.writeByte(respawn.owner() != null ? FLAG_HAS_OWNER : 0);
+            if (respawn.owner() != null) {
+                writeUuid(out, respawn.owner());
+            }
+        }
+    }
+    
+    static ArrowRegionFile read(DataInput in, RegistryWrapper.WrapperLookup registries) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a persistent arrows region file");
+        }
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported region file version " + version);
+        }
+        
+        ArrowRegionFile file = new ArrowRegionFile();
+        int templateCount = readVarInt(in);
+        for (int i = 0; i < templateCount; i++) {
+            NbtCompound nbt = NbtIo.readCompound(in, NbtSizeTracker.ofUnlimitedBytes());
+            // Items that no longer exist decode as empty and are skipped when restoring
+            file.templates.add(ItemStack.CODEC.parse(registries.getOps(NbtOps.INSTANCE), nbt).result().orElse(ItemStack.EMPTY));
+        }
+        
+        int arrowCount = readVarInt(in);
+        long[] previous = new long[3];
+        for (int i = 0; i < arrowCount; i++) {
+            UUID id = readUuid(in);
+            int template = readVarInt(in);
+            int count = version >= 2 ? Math.max(1, readVarInt(in)) : 1;
+            Vec3d position = readPositionDelta(in, previous);
+            Vec3d velocity = new Vec3d(
+                unzigzag(readVarLong(in)) / VELOCITY_SCALE,
+                unzigzag(readVarLong(in)) / VELOCITY_SCALE,
+                unzigzag(readVarLong(in)) / VELOCITY_SCALE);
+            long age = readVarLong(in);
+            int flags = in.readUnsignedByte();
+            UUID owner = (flags & FLAG_HAS_OWNER) != 0 ? readUuid(in) : null;
+            if (template >= templateCount) {
+                throw new IOException("Arrow references missing item template " + template);
+            }
+            file.arrows.add(new Arrow(id, template, count, position, velocity, age,
+                (flags & FLAG_IN_BUBBLE_COLUMN) != 0, (flags & FLAG_MARKED_FOR_RESPAWN) != 0, owner));
+        }
+        
+        int respawnCount = readVarInt(in);
+        previous = new long[3];
+        for (int i = 0; i < respawnCount; i++) {
+            UUID id = readUuid(in);
+            int template = readVarInt(in) - 1;
+            int count = version >= 2 ? Math.max(1, readVarInt(in)) : 1;
+            if (template >= templateCount) {
+                throw new IOException("Respawn references missing item template " + template);
+            }
+            Vec3d position = readPositionDelta(in, previous);
+            // Respawns before version 3 have no flags byte
+            UUID owner = version >= 3 && (in.readUnsignedByte() & FLAG_HAS_OWNER) != 0 ? readUuid(in) : null;
+            file.respawns.add(new Respawn(id, template, count, position, owner));
+        }
+        return file;
+    }
+    
+    // === ENCODING HELPERS ===
+    
+    private static void writePositionDelta(DataOutput out, Vec3d position, long[] previous) throws IOException {
+        long x = Math.round(position.x * POSITION_SCALE);
+        long y = Math.round(position.y * POSITION_SCALE);
+        long z = Math.round(position.z * POSITION_SCALE);
+        writeVarLong(out, zigzag(x - previous[0]));
+        writeVarLong(out, zigzag(y - previous[1]));
+        writeVarLong(out, zigzag(z - previous[2]));
+        previous[0] = x;
+        previous[1] = y;
+        previous[2] = z;
+    }
+    
+    private static Vec3d readPositionDelta(DataInput in, long[] previous) throws IOException {
+        previous[0] += unzigzag(readVarLong(in));
+        previous[1] += unzigzag(readVarLong(in));
+        previous[2] += unzigzag(readVarLong(in));
+        return new Vec3d(previous[0] / POSITION_SCALE, previous[1] / POSITION_SCALE, previous[2] / POSITION_SCALE);
+    }
+    
+    private static void writeUuid(DataOutput out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+    
+    private static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+    
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+    
+    private static int readVarInt(DataInput in) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("VarInt out of range: " + value);
+        }
+        return (int) value;
+    }
+    
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+    
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarLong too long");
+    }
+}
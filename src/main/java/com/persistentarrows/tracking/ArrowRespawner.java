@@ -1,11 +1,15 @@
 package com.persistentarrows.tracking;
 
+import com.persistentarrows.debug.DebugCategory;
 import com.persistentarrows.debug.PersistentArrowsDebugger;
+import com.persistentarrows.mixin.PersistentProjectileEntityAccessor;
 import net.minecraft.entity.projectile.ArrowEntity;
 import net.minecraft.entity.projectile.PersistentProjectileEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.storage.NbtReadView;
+import net.minecraft.util.ErrorReporter;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 
@@ -21,17 +25,15 @@ public class ArrowRespawner {
      * Handle respawning an arrow after it caused an instant kill.
      */
     public static void handleInstantKillRespawn(UUID originalArrowId, Vec3d impactPosition, ServerWorld world) {
-        ArrowNBTData arrowData = LingeringArrowTracker.getTrackedArrowData(originalArrowId);
+        ArrowNBTData arrowData = LingeringArrowTracker.getTrackedArrowData(world, originalArrowId);
         
         if (arrowData == null) {
-            PersistentArrowsDebugger.warn("Cannot respawn arrow - no tracked data found for: " + originalArrowId);
+            PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Cannot respawn arrow - no tracked data found for: {}", originalArrowId);
             return;
         }
         
-        PersistentArrowsDebugger.info("Respawning arrow after instant kill:");
-        PersistentArrowsDebugger.info("  Original Arrow ID: " + originalArrowId);
-        PersistentArrowsDebugger.info("  Impact Position: " + impactPosition);
-        PersistentArrowsDebugger.info("  Original Position: " + arrowData.getPosition());
+        PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Respawning arrow {} after instant kill: impact={} original={}",
+            originalArrowId, impactPosition, arrowData.getPosition());
         
         // Schedule the respawn for the next server tick
         RespawnScheduler.scheduleRespawn(originalArrowId, impactPosition, world);
@@ -45,11 +47,22 @@ public class ArrowRespawner {
             return; // Only respawn on server side
         }
         
-        PersistentArrowsDebugger.info("Respawning arrow: " + arrowData.getArrowId());
-        PersistentArrowsDebugger.info("  Type: " + arrowData.getArrowType());
-        PersistentArrowsDebugger.info("  Position: " + arrowData.getPosition());
+        if (DebugCategory.PERSISTENCE_DECISIONS.isEnabled()) {
+            PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Respawning arrow {}: type={} pos={}",
+                arrowData.getArrowId(), arrowData.getArrowType(), arrowData.getPosition());
+        }
         
         try {
+            WorldArrowState state = WorldArrowState.of(world);
+            
+            // Merge into an identical arrow already lying here, if merging is enabled
+            if (ArrowStacks.tryMerge(world, arrowData)) {
+                if (state != null) {
+                    state.journal.record(ArrowJournal.Event.RESPAWNED, arrowData.getArrowId(), arrowData.getPosition(), 1);
+                }
+                return;
+            }
+            
             // Create new arrow entity with the same item stack (preserves potion effects)
             ArrowEntity newArrow = new ArrowEntity(world, arrowData.getPosition().x, 
                 arrowData.getPosition().y, arrowData.getPosition().z, 
@@ -57,17 +70,22 @@ public class ArrowRespawner {
             
             // Set velocity to zero (floating arrow)
             newArrow.setVelocity(0, 0, 0);
+            ArrowStacks.setCount(newArrow, arrowData.getStackCount());
+            ArrowStacks.markRespawned(newArrow);
             
             // Spawn the arrow
             world.spawnEntity(newArrow);
+            if (state != null) {
+                state.journal.record(ArrowJournal.Event.RESPAWNED, arrowData.getArrowId(), arrowData.getPosition(), 0);
+            }
             
             // Critical: Start tracking the respawned arrow to continue the persistence loop
             if (LingeringArrowTracker.isLingeringArrow(newArrow)) {
-                LingeringArrowTracker.startTracking(newArrow);
-                PersistentArrowsDebugger.info("Started tracking respawned arrow: " + newArrow.getUuid());
+                LingeringArrowTracker.startTracking(newArrow, arrowData.getOwner());
+                PersistentArrowsDebugger.trace(DebugCategory.ARROW_TRACKING, "Started tracking respawned arrow: {}", newArrow.getUuid());
             }
             
-            PersistentArrowsDebugger.info("Successfully respawned and re-tracked arrow at " + arrowData.getPosition());
+            PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Successfully respawned and re-tracked arrow at {}", arrowData.getPosition());
             
         } catch (Exception e) {
             PersistentArrowsDebugger.error("Failed to respawn arrow: " + e.getMessage());
@@ -88,44 +106,19 @@ public class ArrowRespawner {
             ArrowEntity newArrow = new ArrowEntity(world, position.x, position.y, position.z, ItemStack.EMPTY, ItemStack.EMPTY);
             
             // Apply original NBT data (excluding position and UUID)
-            NbtCompound cleanedNBT = cleanNBTForRespawn(originalNBT);
-            // Use reflection-based approach for reading NBT
-            try {
-                java.lang.reflect.Method readNbtMethod = newArrow.getClass().getMethod("readNbt", NbtCompound.class);
-                readNbtMethod.invoke(newArrow, cleanedNBT);
-            } catch (Exception e) {
-                PersistentArrowsDebugger.warn("Failed to read NBT data via reflection: " + e.getMessage());
-                // Fallback: apply basic properties manually
-                if (cleanedNBT.contains("damage")) {
-                    float damage = cleanedNBT.getFloat("damage").orElse(2.0f);
-                    newArrow.setDamage(damage);
-                }
-                if (cleanedNBT.contains("pickup")) {
-                    // Set pickup type if available
-                    byte pickupValue = cleanedNBT.getByte("pickup").orElse((byte) 1);
-                    // Note: May need additional reflection for pickup type
-                }
-            }
+            readArrowData(newArrow, cleanNBTForRespawn(originalNBT), serverWorld);
             
             // Set position explicitly
             newArrow.setPosition(position);
             
             // Set arrow to "stuck" state (not moving)
             newArrow.setVelocity(Vec3d.ZERO);
-            // Set arrow to stuck state using reflection since inGround is private
-            try {
-                java.lang.reflect.Field inGroundField = PersistentProjectileEntity.class.getDeclaredField("inGround");
-                inGroundField.setAccessible(true);
-                inGroundField.setBoolean(newArrow, true);
-            } catch (Exception e) {
-                PersistentArrowsDebugger.warn("Could not set inGround field: " + e.getMessage());
-            }
+            newArrow.setInGround(true);
             
             // Spawn the arrow in the world
             world.spawnEntity(newArrow);
             
-            PersistentArrowsDebugger.info("Successfully respawned arrow at: " + position);
-            PersistentArrowsDebugger.info("New arrow ID: " + newArrow.getUuid());
+            PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Successfully respawned arrow {} at: {}", newArrow.getUuid(), position);
             
             return newArrow;
             
@@ -164,24 +157,21 @@ public class ArrowRespawner {
      */
     public static void applyNBTData(PersistentProjectileEntity arrow, NbtCompound nbt) {
         try {
-            NbtCompound cleanedNBT = cleanNBTForRespawn(nbt);
-            // Use reflection-based approach for reading NBT
-            try {
-                java.lang.reflect.Method readNbtMethod = arrow.getClass().getMethod("readNbt", NbtCompound.class);
-                readNbtMethod.invoke(arrow, cleanedNBT);
-            } catch (Exception reflectionException) {
-                PersistentArrowsDebugger.warn("Failed to read NBT data via reflection: " + reflectionException.getMessage());
-                // Fallback: apply basic properties manually
-                if (cleanedNBT.contains("damage")) {
-                    float damage = cleanedNBT.getFloat("damage").orElse(2.0f);
-                    arrow.setDamage(damage);
-                }
-            }
+            readArrowData(arrow, cleanNBTForRespawn(nbt), arrow.getWorld());
             
-            PersistentArrowsDebugger.debug("Applied NBT data to arrow: " + arrow.getUuid());
+            PersistentArrowsDebugger.trace(DebugCategory.VERBOSE, "Applied NBT data to arrow: {}", arrow.getUuid());
             
         } catch (Exception e) {
             PersistentArrowsDebugger.warn("Failed to apply NBT data: " + e.getMessage());
         }
     }
+    
+    /**
+     * Read the arrow-specific part of saved entity data (item, damage, pickup, inGround, life).
+     * Position, rotation and UUID stay as they are on the new entity.
+     */
+    private static void readArrowData(PersistentProjectileEntity arrow, NbtCompound nbt, World world) {
+        ((PersistentProjectileEntityAccessor) arrow).persistentarrows$readCustomData(
+            NbtReadView.create(ErrorReporter.EMPTY, world.getRegistryManager(), nbt));
+    }
 }
\ No newline at end of file
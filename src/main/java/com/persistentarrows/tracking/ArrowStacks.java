@@ -0,0 +1,103 @@
+package com.persistentarrows.tracking;
+
+import com.persistentarrows.access.PersistentArrowAccess;
+import com.persistentarrows.config.PersistentArrowsConfig;
+import com.persistentarrows.debug.DebugCategory;
+import com.persistentarrows.debug.PersistentArrowsDebugger;
+import net.minecraft.entity.projectile.ArrowEntity;
+import net.minecraft.entity.projectile.PersistentProjectileEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.util.List;
+
+/**
+ * Merging of co-located respawned arrows into one entity that carries a count.
+ * Only active when mergeRespawnedArrows is enabled in the config; the count is
+ * saved with the entity and carried into the arrow's next respawn. Only arrows
+ * ArrowRespawner spawned take merges, never shot, dispensed or mob arrows.
+ * 
+ * The count is never handed out as items: respawned arrows cannot be picked up, and
+ * a merged arrow is no exception. Merging gives up nothing a player could have picked
+ * up, but the count only ever comes back as respawns.
+ */
+public class ArrowStacks {
+    
+    /**
+     * Number of arrows an entity stands for.
+     */
+    public static int getCount(PersistentProjectileEntity arrow) {
+        return ((PersistentArrowAccess) arrow).persistentarrows$getStackCount();
+    }
+    
+    /**
+     * Change an arrow's count, keeping its tracking data (used to respawn it) in step.
+     */
+    public static void setCount(PersistentProjectileEntity arrow, int count) {
+        ((PersistentArrowAccess) arrow).persistentarrows$setStackCount(count);
+        
+        ArrowNBTData data = LingeringArrowTracker.getTrackedArrowData(arrow);
+        if (data != null) {
+            data.setStackCount(count);
+            WorldArrowState state = WorldArrowState.of(arrow.getWorld());
+            if (state != null) {
+                state.markDirty(data.getPosition());
+            }
+        }
+    }
+    
+    /**
+     * Tag an arrow as spawned by ArrowRespawner, so later respawns may merge into it.
+     */
+    static void markRespawned(PersistentProjectileEntity arrow) {
+        ((PersistentArrowAccess) arrow).persistentarrows$setRespawned(true);
+    }
+    
+    /**
+     * Fold a respawn into a compatible arrow already near its position.
+     * Returns false if merging is disabled or there is nothing to merge into.
+     */
+    static boolean tryMerge(World world, ArrowNBTData data) {
+        if (!PersistentArrowsConfig.mergeRespawnedArrows) {
+            return false;
+        }
+        
+        ArrowEntity target = findMergeTarget(world, data.getPosition(), data.getTemplate().stack());
+        if (target == null) {
+            return false;
+        }
+        
+        setCount(target, getCount(target) + data.getStackCount());
+        if (DebugCategory.PERSISTENCE_DECISIONS.isEnabled()) {
+            PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Merged respawn of {} into {} (count {})",
+                data.getArrowId(), target.getUuid(), getCount(target));
+        }
+        return true;
+    }
+    
+    /**
+     * Find the closest live respawned arrow within the merge radius with the same item and
+     * components and the pickup rule a fresh respawn would get.
+     */
+    private static ArrowEntity findMergeTarget(World world, Vec3d position, ItemStack stack) {
+        double radius = PersistentArrowsConfig.mergeRadius;
+        double maxDistance = radius * radius;
+        List<ArrowEntity> candidates = world.getEntitiesByClass(ArrowEntity.class, Box.of(position, radius * 2, radius * 2, radius * 2),
+            arrow -> arrow.isAlive()
+                && ((PersistentArrowAccess) arrow).persistentarrows$isRespawned()
+                && arrow.pickupType == PersistentProjectileEntity.PickupPermission.DISALLOWED
+                && ItemStack.areItemsAndComponentsEqual(arrow.getItemStack(), stack));
+        
+        ArrowEntity closest = null;
+        for (ArrowEntity candidate : candidates) {
+            double distance = candidate.squaredDistanceTo(position);
+            if (distance <= maxDistance) {
+                maxDistance = distance;
+                closest = candidate;
+            }
+        }
+        return closest;
+    }
+}
@@ -0,0 +1,366 @@
+package com.persistentarrows.tracking;
+
+import com.persistentarrows.debug.DebugCategory;
+import com.persistentarrows.debug.PersistentArrowsDebugger;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.registry.RegistryWrapper;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Saves a world's tracked arrows and pending respawns so they survive restarts.
+ * 
+ * State is stored per 32x32 chunk region under the dimension's data/persistentarrows
+ * folder. A region is read the first time one of its chunks loads, and only regions
+ * whose contents changed are written when the world saves. Tracked and parked arrows
+ * and pending respawns are filed by region as they come in, so a save snapshots the
+ * dirty regions' entries without walking the rest. Reading and writing happen on a
+ * background thread; only snapshotting and restoring touch the server thread.
+ */
+public class ArrowStateStorage {
+    
+    // One thread shared by all worlds keeps writes to a region file ordered
+    private static final ExecutorService IO = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PersistentArrows-IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final WorldArrowState state;
+    
+    // Returned by readRegion when a file could not be read or moved aside
+    private static final ArrowRegionFile FAILED = new ArrowRegionFile();
+    
+    // Regions whose file has been merged into memory; only these may be overwritten
+    private final LongSet loadedRegions = new LongOpenHashSet();
+    private final Long2ObjectMap<CompletableFuture<ArrowRegionFile>> loadingRegions = new Long2ObjectOpenHashMap<>();
+    // Regions whose file could not be read; they are never written so the file stays intact
+    private final LongSet failedRegions = new LongOpenHashSet();
+    private final LongSet dirtyRegions = new LongOpenHashSet();
+    // Dirty regions that were never loaded, written as soon as their read finishes
+    private final LongSet savingAfterLoad = new LongOpenHashSet();
+    // Tracked and parked arrows by the region they are saved in, filed as they start being
+    // tracked or are parked from the save. Arrows that left both are dropped the next time
+    // their region is snapshotted; everything that ends an arrow's tracking marks it dirty.
+    private final Long2ObjectMap<Set<UUID>> arrowsByRegion = new Long2ObjectOpenHashMap<>();
+    // Queued and held respawns by the region they are saved in
+    private final Long2ObjectMap<Set<RespawnPipeline.Job>> respawnsByRegion = new Long2ObjectOpenHashMap<>();
+    private CompletableFuture<Void> pendingWrites = CompletableFuture.completedFuture(null);
+    
+    ArrowStateStorage(WorldArrowState state) {
+        this.state = state;
+    }
+    
+    /**
+     * Start reading a chunk's region if it has not been read yet.
+     * Called from ServerChunkEvents.CHUNK_LOAD.
+     */
+    public void onChunkLoad(ChunkPos pos) {
+        startLoading(ChunkPos.toLong(pos.x >> 5, pos.z >> 5));
+    }
+    
+    private CompletableFuture<ArrowRegionFile> startLoading(long region) {
+        CompletableFuture<ArrowRegionFile> loading = loadingRegions.get(region);
+        if (loading != null || loadedRegions.contains(region) || failedRegions.contains(region)) {
+            return loading;
+        }
+        
+        Path file = getRegionFile(region);
+        RegistryWrapper.WrapperLookup registries = state.getWorld().getRegistryManager();
+        CompletableFuture<ArrowRegionFile> future = CompletableFuture.supplyAsync(() -> readRegion(file, registries), IO);
+        loadingRegions.put(region, future);
+        future.thenAccept(data -> state.post(s -> finishLoading(region, data)));
+        return future;
+    }
+    
+    /**
+     * File a tracked or parked arrow under the region it is saved in.
+     */
+    void fileArrow(ArrowNBTData data) {
+        arrowsByRegion.computeIfAbsent(regionOf(data.getPosition()), r -> new ObjectOpenHashSet<>()).add(data.getArrowId());
+    }
+    
+    void fileRespawn(RespawnPipeline.Job job) {
+        respawnsByRegion.computeIfAbsent(regionOf(job.position), r -> new ReferenceOpenHashSet<>()).add(job);
+    }
+    
+    void unfileRespawn(RespawnPipeline.Job job) {
+        long region = regionOf(job.position);
+        Set<RespawnPipeline.Job> jobs = respawnsByRegion.get(region);
+        if (jobs != null && jobs.remove(job) && jobs.isEmpty()) {
+            respawnsByRegion.remove(region);
+        }
+    }
+    
+    /**
+     * Remember that the region containing a position has unsaved changes.
+     */
+    void markDirty(Vec3d pos) {
+        dirtyRegions.add(regionOf(pos));
+    }
+    
+    /**
+     * Write every changed region. With flush set, also wait for outstanding reads
+     * and for the writes to reach disk (used on shutdown).
+     */
+    public void save(boolean flush) {
+        if (dirtyRegions.isEmpty()) {
+            if (flush) {
+                pendingWrites.join();
+            }
+            return;
+        }
+        
+        LongSet saving = new LongOpenHashSet();
+        for (long region : dirtyRegions.toLongArray()) {
+            // A region that is not read yet cannot be written without losing its saved contents.
+            // It may have changed without any of its chunks loading (e.g. a respawn aimed at unloaded terrain).
+            if (!loadedRegions.contains(region) && !failedRegions.contains(region)) {
+                CompletableFuture<ArrowRegionFile> loading = startLoading(region);
+                if (!flush) {
+                    savingAfterLoad.add(region);
+                    continue;
+                }
+                savingAfterLoad.remove(region);
+                finishLoading(region, loading.join());
+            }
+            if (loadedRegions.contains(region)) {
+                saving.add(region);
+            } else {
+                // Unreadable, so never written, but arrows that left it are still forgotten
+                collectArrows(region, null, state.now());
+            }
+            dirtyRegions.remove(region);
+        }
+        
+        write(saving);
+        if (flush) {
+            pendingWrites.join();
+        }
+    }
+    
+    /**
+     * Snapshot the given loaded regions and queue their files for writing.
+     */
+    private void write(LongSet saving) {
+        if (saving.isEmpty()) {
+            return;
+        }
+        Long2ObjectMap<ArrowRegionFile> snapshot = snapshot(saving);
+        RegistryWrapper.WrapperLookup registries = state.getWorld().getRegistryManager();
+        List<CompletableFuture<Void>> writes = new ArrayList<>(saving.size());
+        for (LongIterator it = saving.iterator(); it.hasNext(); ) {
+            long region = it.nextLong();
+            ArrowRegionFile data = snapshot.get(region);
+            Path file = getRegionFile(region);
+            writes.add(CompletableFuture.runAsync(() -> writeRegion(file, data, registries), IO));
+        }
+        writes.add(pendingWrites);
+        pendingWrites = CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new));
+    }
+    
+    /**
+     * Copy the tracked state of the given regions into region files, on the server thread.
+     * Only the entries filed under those regions are visited.
+     */
+    private Long2ObjectMap<ArrowRegionFile> snapshot(LongSet regions) {
+        Long2ObjectMap<ArrowRegionFile> files = new Long2ObjectOpenHashMap<>();
+        long now = state.now();
+        for (LongIterator it = regions.iterator(); it.hasNext(); ) {
+            long region = it.nextLong();
+            ArrowRegionFile file = new ArrowRegionFile();
+            files.put(region, file);
+            collectArrows(region, file, now);
+            
+            Set<RespawnPipeline.Job> jobs = respawnsByRegion.get(region);
+            if (jobs != null) {
+                for (RespawnPipeline.Job job : jobs) {
+                    file.addRespawn(job.arrowId, job.position, job.data);
+                }
+            }
+        }
+        return files;
+    }
+    
+    /**
+     * Add the arrows filed under a region to its file, or with no file only drop the
+     * filed arrows that are gone.
+     */
+    private void collectArrows(long region, ArrowRegionFile file, long now) {
+        Set<UUID> arrows = arrowsByRegion.get(region);
+        if (arrows == null) {
+            return;
+        }
+        for (Iterator<UUID> ids = arrows.iterator(); ids.hasNext(); ) {
+            UUID id = ids.next();
+            ArrowNBTData data = state.tracking.get(id);
+            if (data != null) {
+                if (regionOf(data.getPosition()) != region) {
+                    ids.remove(); // Tracked again from elsewhere, and filed there
+                } else if (file != null) {
+                    file.addArrow(data, now);
+                }
+            } else if (!state.hibernated.visit(id, (parked, parkedAt) -> {
+                // Parked arrows are saved with the age they had when their chunk unloaded
+                if (file != null) {
+                    file.addArrow(parked, parkedAt);
+                }
+            })) {
+                ids.remove(); // Neither tracked nor parked any more
+            }
+        }
+        if (arrows.isEmpty()) {
+            arrowsByRegion.remove(region);
+        }
+    }
+    
+    /**
+     * Merge a region's saved state into memory. Entries already tracked in memory are newer and win.
+     */
+    private void finishLoading(long region, ArrowRegionFile data) {
+        if (loadingRegions.remove(region) == null) {
+            return; // Already merged by a flushing save
+        }
+        boolean saveNow = savingAfterLoad.remove(region);
+        if (data == FAILED) {
+            failedRegions.add(region);
+            dirtyRegions.remove(region);
+            return;
+        }
+        loadedRegions.add(region);
+        if (data == null) {
+            if (saveNow && dirtyRegions.remove(region)) {
+                write(LongSet.of(region));
+            }
+            return;
+        }
+        
+        // Restoring goes through the normal tracking path, which would mark the region dirty again
+        boolean wasDirty = dirtyRegions.contains(region);
+        long now = state.now();
+        int restored = 0;
+        ArrowTemplates.Template[] templates = new ArrowTemplates.Template[data.templates.size()];
+        for (int i = 0; i < templates.length; i++) {
+            templates[i] = state.templates.intern(data.templates.get(i));
+        }
+        for (ArrowRegionFile.Arrow arrow : data.arrows) {
+            ArrowTemplates.Template template = templates[arrow.template()];
+            if (template == ArrowTemplates.EMPTY || state.tracking.isTracked(arrow.id()) || state.hibernated.contains(arrow.id())) {
+                continue;
+            }
+            ArrowNBTData restoredData = new ArrowNBTData(arrow.id(), template, arrow.position(), arrow.velocity(), now - arrow.age());
+            restoredData.resetLastSeenTick(now);
+            restoredData.setInBubbleColumn(arrow.inBubbleColumn());
+            restoredData.setStackCount(arrow.count());
+            restoredData.setOwner(arrow.owner());
+            if (arrow.markedForRespawn()) {
+                restoredData.markForRespawn(state.getWorld());
+            }
+            LingeringArrowTracker.restore(state, restoredData);
+            restored++;
+        }
+        for (ArrowRegionFile.Respawn respawn : data.respawns) {
+            if (respawn.template() < 0) {
+                state.getRespawns().submit(respawn.arrowId(), respawn.position());
+            } else if (templates[respawn.template()] != ArrowTemplates.EMPTY) {
+                ArrowNBTData respawnData = new ArrowNBTData(respawn.arrowId(), templates[respawn.template()], respawn.position(), Vec3d.ZERO, now);
+                respawnData.setStackCount(respawn.count());
+                respawnData.setOwner(respawn.owner());
+                state.getRespawns().submit(respawnData);
+            }
+        }
+        if (!wasDirty) {
+            dirtyRegions.remove(region);
+        } else if (saveNow) {
+            dirtyRegions.remove(region);
+            write(LongSet.of(region));
+        }
+        
+        if (DebugCategory.PERSISTENCE_DECISIONS.isEnabled()) {
+            PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Restored {} arrows and {} respawns from region {}",
+                restored, data.respawns.size(), new ChunkPos(region));
+        }
+    }
+    
+    private static long regionOf(Vec3d pos) {
+        return ChunkPos.toLong(MathHelper.floor(pos.x) >> 9, MathHelper.floor(pos.z) >> 9);
+    }
+    
+    private Path getRegionFile(long region) {
+        return state.getDataDirectory().resolve("r." + ChunkPos.getPackedX(region) + "." + ChunkPos.getPackedZ(region) + ".pab");
+    }
+    
+    // === BACKGROUND IO ===
+    
+    /**
+     * Read a region file; null when there is none. A file that cannot be read is moved
+     * aside as *.corrupt so the region can start over, or FAILED if even that fails.
+     */
+    private static ArrowRegionFile readRegion(Path file, RegistryWrapper.WrapperLookup registries) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(raw)))) {
+            return ArrowRegionFile.read(in, registries);
+        } catch (IOException | RuntimeException e) {
+            PersistentArrowsDebugger.error("Failed to read arrow region " + file + ": " + e.getMessage());
+        }
+        Path corrupt = file.resolveSibling(file.getFileName() + "." + System.currentTimeMillis() + ".corrupt");
+        try {
+            Files.move(file, corrupt);
+            PersistentArrowsDebugger.error("Moved unreadable arrow region to " + corrupt);
+            return null;
+        } catch (IOException e) {
+            PersistentArrowsDebugger.error("Failed to move unreadable arrow region " + file + " aside, it will not be saved: " + e.getMessage());
+            return FAILED;
+        }
+    }
+    
+    private static void writeRegion(Path file, ArrowRegionFile data, RegistryWrapper.WrapperLookup registries) {
+        try {
+            if (data == null || data.isEmpty()) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            Files.createDirectories(file.getParent());
+            // Write beside the real file and swap it in, so a crash never leaves half a region behind
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream raw = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(raw)))) {
+                data.write(out, registries);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            PersistentArrowsDebugger.error("Failed to write arrow region " + file + ": " + e.getMessage());
+        }
+    }
+}
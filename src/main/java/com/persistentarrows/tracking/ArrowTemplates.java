@@ -0,0 +1,120 @@
+package com.persistentarrows.tracking;
+
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenCustomHashMap;
+import net.minecraft.item.ItemStack;
+
+/**
+ * A world's registry of arrow item stacks. Tracked arrows hold a shared Template instead
+ * of their own copy of the stack; identical stacks (same item, components and count)
+ * share one template, and a real ItemStack is only made when an arrow is respawned.
+ * 
+ * Each WorldArrowState owns one, so like the rest of that state the registry is only
+ * touched from its world's tick and takes no lock. A template's stack never changes:
+ * reading one needs no registry, and a record handed to another world keeps its
+ * template until that world interns the stack in its own registry.
+ * 
+ * Templates are reference counted by their holders in the world: tracked records (see
+ * ArrowNBTData.setTracked) and parked slots (HibernatedArrows). A template is only
+ * registered while its count is above zero, so the registry holds the distinct stacks
+ * of the arrows the world keeps right now. A released template stays valid for whoever
+ * still has it (a queued respawn, a region snapshot being written); the next arrow with
+ * that stack just interns a new one.
+ */
+public class ArrowTemplates {
+    
+    // Stacks are the same template when item, components and count all match
+    static final Hash.Strategy<ItemStack> STACK_STRATEGY = new Hash.Strategy<>() {
+        @Override
+        public int hashCode(ItemStack stack) {
+            return 31 * ItemStack.hashCode(stack) + (stack != null ? stack.getCount() : 0);
+        }
+        
+        @Override
+        public boolean equals(ItemStack a, ItemStack b) {
+            return a == b || a != null && b != null && ItemStack.areEqual(a, b);
+        }
+    };
+    
+    /**
+     * An interned arrow stack with its item's translation key.
+     */
+    public static final class Template {
+        // Registry it joins while held; null for EMPTY, which is never counted
+        private final ArrowTemplates registry;
+        private final ItemStack stack;
+        private final String type;
+        private int refs;
+        
+        private Template(ArrowTemplates registry, ItemStack stack) {
+            this.registry = registry;
+            this.stack = stack;
+            this.type = stack.getItem().getTranslationKey();
+        }
+        
+        /**
+         * Count a holder, registering the template again if it had been released.
+         * Only call it from the tick of the world whose registry made the template.
+         */
+        void retain() {
+            if (registry != null && refs++ == 0) {
+                registry.templates.putIfAbsent(stack, this);
+            }
+        }
+        
+        /**
+         * Drop a holder; the last one takes the template out of the registry.
+         */
+        void release() {
+            if (registry != null && --refs == 0) {
+                registry.templates.remove(stack, this);
+            }
+        }
+        
+        /**
+         * The shared stack. Must not be modified or handed to code that might (entity
+         * constructors do); use create() for that.
+         */
+        public ItemStack stack() {
+            return stack;
+        }
+        
+        /**
+         * A new stack made from the template, for spawning an arrow.
+         */
+        public ItemStack create() {
+            return stack.copy();
+        }
+        
+        /**
+         * Translation key of the template's item.
+         */
+        public String type() {
+            return type;
+        }
+    }
+    
+    // The empty stack, shared by every world and never registered
+    public static final Template EMPTY = new Template(null, ItemStack.EMPTY);
+    
+    private final Object2ObjectOpenCustomHashMap<ItemStack, Template> templates = new Object2ObjectOpenCustomHashMap<>(STACK_STRATEGY);
+    
+    /**
+     * Get the registered template for a stack, or a new one holding a copy of it. A new
+     * template is registered once something holds it.
+     */
+    public Template intern(ItemStack stack) {
+        if (stack.isEmpty()) {
+            return EMPTY;
+        }
+        Template template = templates.get(stack);
+        return template != null ? template : new Template(this, stack.copy());
+    }
+    
+    /**
+     * Number of templates currently held (for debugging).
+     */
+    public int size() {
+        return templates.size();
+    }
+}
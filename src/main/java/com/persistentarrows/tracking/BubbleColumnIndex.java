@@ -0,0 +1,161 @@
+package com.persistentarrows.tracking;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * Per-world index of bubble column blocks, kept as one 4096-bit mask per chunk section.
+ * Built from section palettes when a chunk loads and updated on every block state change,
+ * so the per-tick "is this arrow in a bubble column?" check never touches the world.
+ * Sections without bubble columns have no entry and are rejected with a single map miss.
+ */
+public class BubbleColumnIndex {
+    private static final int WORDS_PER_SECTION = 16 * 16 * 16 / 64;
+
+    // Section key (ChunkSectionPos.asLong) -> occupancy bits indexed by (y << 8 | z << 4 | x)
+    private final Long2ObjectOpenHashMap<long[]> sections = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Get the index attached to a world, or null for worlds without one (client worlds).
+     */
+    public static BubbleColumnIndex of(World world) {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state != null ? state.getBubbleColumns() : null;
+    }
+
+    /**
+     * Check if the block containing a position is a bubble column.
+     */
+    public boolean contains(double x, double y, double z) {
+        return contains(MathHelper.floor(x), MathHelper.floor(y), MathHelper.floor(z));
+    }
+
+    /**
+     * Check if a block position is a bubble column.
+     */
+    public boolean contains(int x, int y, int z) {
+        long[] bits = sections.get(ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4));
+        if (bits == null) {
+            return false; // No bubble columns anywhere in this section
+        }
+        int index = localIndex(x, y, z);
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Check if a chunk section contains any bubble column blocks.
+     */
+    public boolean hasColumnsInSection(int sectionX, int sectionY, int sectionZ) {
+        return sections.containsKey(ChunkSectionPos.asLong(sectionX, sectionY, sectionZ));
+    }
+
+    /**
+     * Build index entries for every section of a freshly loaded chunk.
+     * Sections whose palette has no bubble column are skipped without a block scan.
+     */
+    public void indexChunk(WorldChunk chunk) {
+        ChunkSection[] chunkSections = chunk.getSectionArray();
+        int chunkX = chunk.getPos().x;
+        int chunkZ = chunk.getPos().z;
+
+        for (int i = 0; i < chunkSections.length; i++) {
+            long key = ChunkSectionPos.asLong(chunkX, chunk.sectionIndexToCoord(i), chunkZ);
+            ChunkSection section = chunkSections[i];
+
+            if (section == null || section.isEmpty() || !section.hasAny(BubbleColumnIndex::isBubbleColumn)) {
+                sections.remove(key);
+                continue;
+            }
+
+            long[] bits = new long[WORDS_PER_SECTION];
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        if (isBubbleColumn(section.getBlockState(x, y, z))) {
+                            int index = localIndex(x, y, z);
+                            bits[index >>> 6] |= 1L << index;
+                        }
+                    }
+                }
+            }
+            sections.put(key, bits);
+        }
+    }
+
+    /**
+     * Drop index entries for every section of an unloading chunk.
+     */
+    public void removeChunk(WorldChunk chunk) {
+        int sectionCount = chunk.getSectionArray().length;
+        int chunkX = chunk.getPos().x;
+        int chunkZ = chunk.getPos().z;
+
+        for (int i = 0; i < sectionCount; i++) {
+            sections.remove(ChunkSectionPos.asLong(chunkX, chunk.sectionIndexToCoord(i), chunkZ));
+        }
+    }
+
+    /**
+     * Update the index after a block state change.
+     * Covers bubble columns forming or collapsing, piston moves and soul sand/magma swaps,
+     * since all of them end in a block state change at the column position.
+     */
+    public void onBlockChanged(BlockPos pos, BlockState oldState, BlockState newState) {
+        boolean wasColumn = isBubbleColumn(oldState);
+        boolean isColumn = isBubbleColumn(newState);
+        if (wasColumn == isColumn) {
+            return;
+        }
+
+        int x = pos.getX();
+        int y = pos.getY();
+        int z = pos.getZ();
+        long key = ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4);
+        int index = localIndex(x, y, z);
+        long[] bits = sections.get(key);
+
+        if (isColumn) {
+            if (bits == null) {
+                bits = new long[WORDS_PER_SECTION];
+                sections.put(key, bits);
+            }
+            bits[index >>> 6] |= 1L << index;
+        } else if (bits != null) {
+            bits[index >>> 6] &= ~(1L << index);
+            if (isEmpty(bits)) {
+                sections.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Get the number of sections that contain bubble columns (for debugging).
+     */
+    public int getIndexedSectionCount() {
+        return sections.size();
+    }
+
+    private static boolean isBubbleColumn(BlockState state) {
+        return state.isOf(Blocks.BUBBLE_COLUMN);
+    }
+
+    private static int localIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+package com.persistentarrows.tracking;
+
+import com.persistentarrows.access.CloudProvenanceAccess;
+import com.persistentarrows.debug.DebugCategory;
+import com.persistentarrows.debug.PersistentArrowsDebugger;
+import net.minecraft.entity.AreaEffectCloudEntity;
+import net.minecraft.world.World;
+
+import java.util.UUID;
+
+/**
+ * Tags area effect clouds with the tracked arrow that produced them.
+ * A cloud is tagged as it is constructed: clouds made while a tracked arrow is
+ * ticking (its entity and block hits run inside its tick) belong to that arrow.
+ * The ticking arrow is held per world, so only that world's tick thread sees it.
+ * The tag is saved with the cloud, so attribution is a single field read for as
+ * long as the cloud exists, and per-tick cloud logic can skip every untagged cloud.
+ */
+public class CloudProvenance {
+    
+    /**
+     * Open the attribution scope of a tracked arrow's tick. Called from the arrow tick hook.
+     * Returns false for worlds without tracking state, where there is nothing to close.
+     */
+    public static boolean enterArrowTick(World world, UUID arrowId) {
+        WorldArrowState state = WorldArrowState.of(world);
+        if (state == null) {
+            return false;
+        }
+        state.tickingArrow = arrowId;
+        return true;
+    }
+    
+    /**
+     * Close the scope opened by enterArrowTick. Only call it when enterArrowTick returned true.
+     */
+    public static void exitArrowTick(World world) {
+        WorldArrowState state = WorldArrowState.of(world);
+        if (state != null) {
+            state.tickingArrow = null;
+        }
+    }
+    
+    /**
+     * Tag a cloud that was just constructed with the arrow whose tick made it, if any.
+     * Called from the cloud constructor.
+     */
+    public static void onCloudCreated(AreaEffectCloudEntity cloud) {
+        WorldArrowState state = WorldArrowState.of(cloud.getWorld());
+        UUID source = state != null ? state.tickingArrow : null;
+        if (source != null) {
+            ((CloudProvenanceAccess) cloud).persistentarrows$setSourceArrow(source);
+            PersistentArrowsDebugger.trace(DebugCategory.CLOUD_EVENTS, "Cloud {} created by arrow {}", cloud.getUuid(), source);
+        }
+    }
+    
+    /**
+     * The tracked arrow a cloud was created by, or null if it has none.
+     */
+    public static UUID getSourceArrow(AreaEffectCloudEntity cloud) {
+        return ((CloudProvenanceAccess) cloud).persistentarrows$getSourceArrow();
+    }
+    
+    /**
+     * Whether a cloud was produced by a tracked arrow.
+     */
+    public static boolean isFromTrackedArrow(AreaEffectCloudEntity cloud) {
+        return getSourceArrow(cloud) != null;
+    }
+}
\ No newline at end of file
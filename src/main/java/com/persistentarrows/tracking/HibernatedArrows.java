@@ -0,0 +1,191 @@
+package com.persistentarrows.tracking;
+
+import com.persistentarrows.core.ArrowSlab;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cold store for the tracking data of arrows whose chunk unloaded.
+ * 
+ * Parked data leaves the tracking map and the expiry wheel, so it costs nothing
+ * per tick and does not age while the chunk is away. It is put back when the chunk
+ * (or the arrow) loads again, with the parked time taken off its age.
+ * 
+ * Arrows pile up here on large worlds, so they are kept in an ArrowSlab (optionally
+ * off the heap) rather than as ArrowNBTData objects, with the item's template in an
+ * array next to it. Records are rebuilt when they leave the store.
+ */
+class HibernatedArrows {
+    
+    private static final int FLAG_IN_BUBBLE_COLUMN = 1;
+    private static final int FLAG_MARKED_FOR_RESPAWN = 2;
+    
+    /**
+     * Receives a parked arrow's data as it was when parked, and the tick it was parked at.
+     */
+    @FunctionalInterface
+    interface Visitor {
+        void visit(ArrowNBTData data, long parkedAt);
+    }
+    
+    private final World world;
+    private final ArrowSlab slab;
+    // Item template of each slot, held for as long as the slot is live
+    private ArrowTemplates.Template[] templates;
+    // Chunk -> slots parked while it is unloaded
+    private final Long2ObjectMap<IntArrayList> byChunk = new Long2ObjectOpenHashMap<>();
+    // Arrow -> its slot, for arrows that load before their chunk's event
+    private final Object2IntMap<UUID> slotOf = new Object2IntOpenHashMap<>();
+    
+    HibernatedArrows(World world, boolean offHeap) {
+        this.world = world;
+        this.slab = new ArrowSlab(64, offHeap);
+        this.templates = new ArrowTemplates.Template[slab.capacity()];
+        slotOf.defaultReturnValue(-1);
+    }
+    
+    void park(long chunk, ArrowNBTData data, long now) {
+        UUID id = data.getArrowId();
+        if (slotOf.containsKey(id)) {
+            release(slotOf.getInt(id));
+        }
+        
+        int slot = slab.allocate();
+        if (slot >= templates.length) {
+            templates = Arrays.copyOf(templates, slab.capacity());
+        }
+        Vec3d pos = data.getPosition();
+        Vec3d velocity = data.getVelocity();
+        slab.setId(slot, id.getMostSignificantBits(), id.getLeastSignificantBits());
+        slab.setPosition(slot, pos.x, pos.y, pos.z);
+        slab.setVelocity(slot, velocity.x, velocity.y, velocity.z);
+        slab.setTicks(slot, data.getTrackingStartTick(), now);
+        slab.setCountAndFlags(slot, data.getStackCount(), (data.isInBubbleColumn() ? FLAG_IN_BUBBLE_COLUMN : 0)
+            | (data.isMarkedForRespawn() ? FLAG_MARKED_FOR_RESPAWN : 0));
+        UUID owner = data.getOwner();
+        slab.setOwner(slot, owner != null ? owner.getMostSignificantBits() : 0L, owner != null ? owner.getLeastSignificantBits() : 0L);
+        slab.setKey(slot, chunk);
+        templates[slot] = data.getTemplate();
+        templates[slot].retain();
+        
+        byChunk.computeIfAbsent(chunk, c -> new IntArrayList(4)).add(slot);
+        slotOf.put(id, slot);
+    }
+    
+    /**
+     * Take every arrow parked under a chunk, or null if there are none.
+     */
+    List<ArrowNBTData> takeChunk(long chunk, long now) {
+        IntArrayList slots = byChunk.remove(chunk);
+        if (slots == null) {
+            return null;
+        }
+        List<ArrowNBTData> taken = new ArrayList<>(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.getInt(i);
+            taken.add(wake(slot, now));
+            slotOf.removeInt(new UUID(slab.idHi(slot), slab.idLo(slot)));
+            free(slot);
+        }
+        return taken;
+    }
+    
+    /**
+     * Take a single parked arrow, or null if it is not parked.
+     */
+    ArrowNBTData remove(UUID arrowId, long now) {
+        int slot = slotOf.getInt(arrowId);
+        if (slot < 0) {
+            return null;
+        }
+        ArrowNBTData data = wake(slot, now);
+        release(slot);
+        return data;
+    }
+    
+    boolean contains(UUID arrowId) {
+        return slotOf.containsKey(arrowId);
+    }
+    
+    boolean isEmpty() {
+        return slotOf.isEmpty();
+    }
+    
+    int size() {
+        return slotOf.size();
+    }
+    
+    /**
+     * Visit one parked arrow, leaving it parked (used when saving). Returns false if it is not parked.
+     */
+    boolean visit(UUID arrowId, Visitor visitor) {
+        int slot = slotOf.getInt(arrowId);
+        if (slot < 0) {
+            return false;
+        }
+        visitor.visit(load(slot, slab.startTick(slot)), slab.stampTick(slot));
+        return true;
+    }
+    
+    /**
+     * Rebuild a slot's data as it would be if it had been tracked all along except for the parked time.
+     */
+    private ArrowNBTData wake(int slot, long now) {
+        ArrowNBTData data = load(slot, slab.startTick(slot) + (now - slab.stampTick(slot)));
+        data.resetLastSeenTick(now);
+        return data;
+    }
+    
+    private ArrowNBTData load(int slot, long trackingStartTick) {
+        ArrowNBTData data = new ArrowNBTData(new UUID(slab.idHi(slot), slab.idLo(slot)), templates[slot],
+            new Vec3d(slab.x(slot), slab.y(slot), slab.z(slot)),
+            new Vec3d(slab.velocityX(slot), slab.velocityY(slot), slab.velocityZ(slot)), trackingStartTick);
+        int flags = slab.flags(slot);
+        data.setInBubbleColumn((flags & FLAG_IN_BUBBLE_COLUMN) != 0);
+        data.setStackCount(slab.count(slot));
+        if ((flags & FLAG_MARKED_FOR_RESPAWN) != 0) {
+            data.markForRespawn(world);
+        }
+        if (slab.hasOwner(slot)) {
+            data.setOwner(new UUID(slab.ownerHi(slot), slab.ownerLo(slot)));
+        }
+        return data;
+    }
+    
+    /**
+     * Remove a slot from its chunk and the id index, then free it.
+     */
+    private void release(int slot) {
+        long chunk = slab.key(slot);
+        IntArrayList slots = byChunk.get(chunk);
+        slots.rem(slot);
+        if (slots.isEmpty()) {
+            byChunk.remove(chunk);
+        }
+        slotOf.removeInt(new UUID(slab.idHi(slot), slab.idLo(slot)));
+        free(slot);
+    }
+    
+    private void free(int slot) {
+        templates[slot].release();
+        templates[slot] = null;
+        slab.free(slot);
+    }
+    
+    /**
+     * Bytes held by the slab's columns.
+     */
+    long getFootprintBytes() {
+        return slab.footprintBytes();
+    }
+}
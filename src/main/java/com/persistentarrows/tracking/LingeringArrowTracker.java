@@ -1,26 +1,37 @@
 package com.persistentarrows.tracking;
 
+import com.persistentarrows.access.PersistentArrowAccess;
+import com.persistentarrows.core.CappedIndex;
+import com.persistentarrows.core.SpatialGrid;
+import com.persistentarrows.core.TrackerTrace;
+import com.persistentarrows.core.TrackingRules;
+import com.persistentarrows.debug.DebugCategory;
 import com.persistentarrows.debug.PersistentArrowsDebugger;
-import net.minecraft.block.BlockState;
+import com.persistentarrows.debug.TraceRecorder;
+import com.persistentarrows.metrics.ArrowMetrics;
 import net.minecraft.block.Blocks;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.projectile.PersistentProjectileEntity;
-import net.minecraft.item.ItemStack;
-import net.minecraft.item.LingeringPotionItem;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Tracks lingering arrows floating in bubble columns and stores their NBT data.
  * This is the core component for the NBT tracking & respawn system.
+ * Tracked arrows are kept per world in WorldArrowState, under core's TrackingRules
+ * (bubble column grace, expiry, caps); this class adds what they mean in the world.
  */
 public class LingeringArrowTracker {
-    // Thread-safe storage for tracked arrows
-    private static final Map<UUID, ArrowNBTData> trackedArrows = new ConcurrentHashMap<>();
     
     /**
      * Check if an arrow should be tracked (lingering arrow in bubble column).
@@ -31,155 +42,430 @@ public class LingeringArrowTracker {
             return;
         }
         
-        UUID arrowId = arrow.getUuid();
-        Vec3d position = arrow.getPos();
-        boolean inBubbleColumn = isInBubbleColumn(arrow.getWorld(), position);
+        WorldArrowState state = WorldArrowState.of(arrow.getWorld());
+        if (state == null) {
+            return;
+        }
         
-        ArrowNBTData existingData = trackedArrows.get(arrowId);
+        UUID arrowId = arrow.getUuid();
+        boolean inBubbleColumn = isInBubbleColumn(arrow.getWorld(), arrow.getX(), arrow.getY(), arrow.getZ());
+        if (TraceRecorder.isRecording(arrow.getWorld())) {
+            Entity owner = arrow.getOwner();
+            TraceRecorder.record(TrackerTrace.ARROW_TICK, TrackerTrace.tickAux(inBubbleColumn, owner != null ? owner.getUuid() : null),
+                arrowId, arrow.getX(), arrow.getY(), arrow.getZ());
+        }
         
-        if (inBubbleColumn) {
-            if (existingData == null) {
-                // Start tracking new arrow in bubble column
-                startTracking(arrow);
-            } else {
-                // Update bubble column status and reset timeout
-                existingData.setInBubbleColumn(true);
-                existingData.resetLastSeenTime();
+        // Leaving the column and running out of grace come back through rulesListener
+        ArrowNBTData existingData = getTrackedArrowData(arrow);
+        if (state.tracking.tick(existingData, arrow.getX(), arrow.getY(), arrow.getZ(), inBubbleColumn)) {
+            // Start tracking new arrow in bubble column
+            startTracking(arrow);
+        }
+    }
+    
+    /**
+     * What a world's tracking rules report back: journal entries, metrics and the
+     * despawn handling of arrows that leave tracking on their own.
+     */
+    static TrackingRules.Listener<ArrowNBTData> rulesListener(WorldArrowState state) {
+        return new TrackingRules.Listener<>() {
+            @Override
+            public void leftColumn(ArrowNBTData data, double x, double y, double z) {
+                state.journal.record(ArrowJournal.Event.LEFT_COLUMN, data.getArrowId(), x, y, z, 0);
             }
-        } else {
-            if (existingData != null) {
-                // Arrow temporarily left bubble column, but don't stop tracking immediately
-                existingData.setInBubbleColumn(false);
-                
-                // Only stop tracking if arrow has been outside bubble column for too long
-                long timeSinceLastSeen = System.currentTimeMillis() - existingData.getLastSeenTime();
-                if (timeSinceLastSeen > 2000) { // 2 seconds grace period
-                    stopTracking(arrowId, "Left bubble column for too long");
-                }
+            
+            @Override
+            public void graceOver(ArrowNBTData data) {
+                stopTracking(state, data.getArrowId(), "Left bubble column for too long");
             }
-        }
+            
+            @Override
+            public void evicted(ArrowNBTData data, CappedIndex.Scope scope) {
+                evict(state, data, scope);
+            }
+            
+            @Override
+            public void expired(ArrowNBTData data) {
+                onExpired(state, data);
+            }
+        };
     }
     
     /**
      * Start tracking a lingering arrow by storing its complete NBT data.
      */
     public static void startTracking(PersistentProjectileEntity arrow) {
-        UUID arrowId = arrow.getUuid();
+        Entity owner = arrow.getOwner();
+        startTracking(arrow, owner != null ? owner.getUuid() : null);
+    }
+    
+    /**
+     * Start tracking a lingering arrow on behalf of the given shooter (respawns have no owner entity).
+     */
+    public static void startTracking(PersistentProjectileEntity arrow, UUID owner) {
+        WorldArrowState state = WorldArrowState.of(arrow.getWorld());
+        if (state == null) {
+            return;
+        }
         
-        // Store essential arrow data for respawning (no complex NBT needed)
-        ItemStack arrowItem = arrow.getItemStack();
-        String arrowType = arrowItem.getItem().getTranslationKey();
+        UUID arrowId = arrow.getUuid();
         
-        PersistentArrowsDebugger.info("Storing arrow data - Type: " + arrowType);
+        // The item is interned as a shared template; it is only copied if it is new
+        ArrowTemplates.Template template = state.templates.intern(arrow.getItemStack());
         
         Vec3d position = arrow.getPos();
         Vec3d velocity = arrow.getVelocity();
         
-        ArrowNBTData arrowData = new ArrowNBTData(arrowId, arrowItem, position, velocity);
+        ArrowNBTData arrowData = new ArrowNBTData(arrowId, template, position, velocity, state.now());
         arrowData.setInBubbleColumn(true);
+        arrowData.setStackCount(ArrowStacks.getCount(arrow));
+        arrowData.setOwner(owner);
+        track(state, arrowData, arrow);
+        ArrowMetrics.ARROWS_TRACKED.increment();
+        state.journal.record(ArrowJournal.Event.TRACKED, arrowId, position, arrowData.getStackCount());
         
-        trackedArrows.put(arrowId, arrowData);
-        
-        PersistentArrowsDebugger.info("Started tracking lingering arrow: " + arrowId + " at " + position);
-        PersistentArrowsDebugger.info("Total tracked arrows: " + trackedArrows.size());
+        if (DebugCategory.ARROW_TRACKING.isEnabled()) {
+            PersistentArrowsDebugger.trace(DebugCategory.ARROW_TRACKING, "Started tracking lingering arrow: {} at {} (total: {})",
+                arrowId, position, state.tracking.size());
+        }
     }
     
     /**
      * Stop tracking an arrow and clean up its data.
-     * Check if arrow was marked for respawn and handle it.
+     * Check if arrow was marked for respawn and handle it. The reason is only
+     * formatted into the debug log, so pass the value rather than a built string.
      */
-    public static void stopTracking(UUID arrowId, String reason) {
-        ArrowNBTData removed = trackedArrows.remove(arrowId);
+    public static void stopTracking(World world, UUID arrowId, Object reason) {
+        WorldArrowState state = WorldArrowState.of(world);
+        if (state != null) {
+            stopTracking(state, arrowId, reason);
+        }
+    }
+    
+    static void stopTracking(WorldArrowState state, UUID arrowId, Object reason) {
+        ArrowNBTData removed = untrack(state, arrowId);
         if (removed != null) {
-            PersistentArrowsDebugger.info("Stopped tracking arrow " + arrowId + " - Reason: " + reason);
-            PersistentArrowsDebugger.info("Total tracked arrows: " + trackedArrows.size());
+            if (DebugCategory.ARROW_TRACKING.isEnabled()) {
+                PersistentArrowsDebugger.trace(DebugCategory.ARROW_TRACKING, "Stopped tracking arrow {} - Reason: {} (total: {})",
+                    arrowId, reason, state.tracking.size());
+            }
             
-            // Check if arrow was marked for respawn
-            if (removed.isMarkedForRespawn() && removed.getRespawnWorld() != null) {
-                PersistentArrowsDebugger.info("Respawning arrow after despawn: " + arrowId);
-                ArrowRespawner.respawnArrow(removed, removed.getRespawnWorld());
+            // Check if arrow was marked for respawn. This can run in the middle of entity
+            // iteration, so the respawn is only queued and committed at the end of the tick.
+            state.journal.record(ArrowJournal.Event.DESPAWNED, arrowId, removed.getPosition(), removed.isMarkedForRespawn() ? 1 : 0);
+            if (removed.isMarkedForRespawn() && removed.getRespawnWorld() instanceof ServerWorld respawnWorld) {
+                PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Queueing respawn after despawn: {}", arrowId);
+                if (respawnWorld == state.getWorld()) {
+                    state.getRespawns().submit(removed);
+                } else {
+                    // Respawn belongs to another world - hand it over instead of touching its state
+                    WorldArrowState target = WorldArrowState.of(respawnWorld);
+                    if (target != null) {
+                        target.post(s -> s.getRespawns().submit(removed));
+                    }
+                }
             }
             
             // Notify impact detector of despawn
-            ArrowImpactDetector.onArrowDespawn(arrowId);
+            ArrowImpactDetector.onArrowDespawn(state, arrowId);
         }
     }
     
     /**
-     * Get stored NBT data for a tracked arrow.
+     * Take a tracked arrow's data out of tracking so it can be respawned.
+     * Unlike stopTracking this never queues a respawn of its own.
      */
-    public static ArrowNBTData getTrackedArrowData(UUID arrowId) {
-        return trackedArrows.get(arrowId);
+    static ArrowNBTData untrackForRespawn(WorldArrowState state, UUID arrowId) {
+        ArrowNBTData removed = untrack(state, arrowId);
+        if (removed == null) {
+            removed = state.hibernated.remove(arrowId, state.now());
+            if (removed != null) {
+                state.markDirty(removed.getPosition());
+                ArrowMetrics.ARROWS_UNTRACKED.increment();
+            }
+        }
+        if (removed != null) {
+            if (DebugCategory.ARROW_TRACKING.isEnabled()) {
+                PersistentArrowsDebugger.trace(DebugCategory.ARROW_TRACKING, "Stopped tracking arrow {} - Reason: respawning (total: {})",
+                    arrowId, state.tracking.size());
+            }
+            ArrowImpactDetector.onArrowDespawn(state, arrowId);
+        }
+        return removed;
+    }
+    
+    /**
+     * Park a tracked arrow's data while the chunk it is in unloads. The entity is saved
+     * with the chunk and comes back with it, so this is neither a despawn nor a reason
+     * to respawn; the data is restored in onArrowLoad or when the chunk loads.
+     */
+    public static void hibernate(PersistentProjectileEntity arrow) {
+        WorldArrowState state = WorldArrowState.of(arrow.getWorld());
+        if (state == null) {
+            return;
+        }
+        
+        // Parked arrows have no entity ticking, so they don't count towards the caps
+        ArrowNBTData data = state.tracking.untrack(arrow.getUuid());
+        if (data == null) {
+            return;
+        }
+        state.hibernated.park(arrow.getChunkPos().toLong(), data, state.now());
+        if (DebugCategory.ARROW_TRACKING.isEnabled()) {
+            PersistentArrowsDebugger.trace(DebugCategory.ARROW_TRACKING, "Parked tracked arrow {} with its unloading chunk (parked: {})",
+                arrow.getUuid(), state.hibernated.size());
+        }
+    }
+    
+    /**
+     * Put back every arrow parked under a chunk that loaded again.
+     */
+    static void wakeChunk(WorldArrowState state, long chunk) {
+        List<ArrowNBTData> woken = state.hibernated.takeChunk(chunk, state.now());
+        if (woken != null) {
+            for (ArrowNBTData data : woken) {
+                track(state, data, null);
+            }
+            if (DebugCategory.ARROW_TRACKING.isEnabled()) {
+                PersistentArrowsDebugger.trace(DebugCategory.ARROW_TRACKING, "Restored {} parked arrows in chunk {}", woken.size(), new ChunkPos(chunk));
+            }
+        }
+    }
+    
+    /**
+     * Move an arrow's tracking data to the world it travelled to.
+     * Called after a tracked arrow changed dimension; the data is detached here and
+     * adopted by the destination world through its mailbox.
+     */
+    public static void transferToWorld(World from, UUID oldArrowId, ServerWorld to, UUID newArrowId) {
+        WorldArrowState source = WorldArrowState.of(from);
+        WorldArrowState target = WorldArrowState.of(to);
+        if (source == null || target == null || source == target) {
+            return;
+        }
+        
+        ArrowNBTData data = untrack(source, oldArrowId);
+        ArrowImpactDetector.onArrowDespawn(source, oldArrowId);
+        if (data == null) {
+            return;
+        }
+        
+        target.post(s -> {
+            // Templates are per world; intern the item in the one the arrow moved to
+            ArrowNBTData adopted = new ArrowNBTData(newArrowId, s.templates.intern(data.getTemplate().stack()),
+                data.getPosition(), data.getVelocity(), s.now());
+            adopted.setInBubbleColumn(data.isInBubbleColumn());
+            adopted.setStackCount(data.getStackCount());
+            adopted.setOwner(data.getOwner());
+            if (data.isMarkedForRespawn()) {
+                adopted.markForRespawn(s.getWorld());
+            }
+            track(s, adopted, null);
+            PersistentArrowsDebugger.trace(DebugCategory.ARROW_TRACKING, "Adopted tracked arrow from another world: {}", newArrowId);
+        });
+    }
+    
+    /**
+     * Get the tracking data attached to a loaded arrow, or null if it is not tracked.
+     * A plain field read; records untracked since they were attached are dropped here.
+     */
+    public static ArrowNBTData getTrackedArrowData(PersistentProjectileEntity arrow) {
+        PersistentArrowAccess access = (PersistentArrowAccess) arrow;
+        ArrowNBTData data = access.persistentarrows$getTrackingData();
+        if (data != null && !data.isTracked()) {
+            access.persistentarrows$setTrackingData(null);
+            return null;
+        }
+        return data;
+    }
+    
+    /**
+     * Attach existing tracking data to an arrow entering the world (chunk load, restart).
+     * Called from ServerEntityEvents.ENTITY_LOAD.
+     */
+    public static void onArrowLoad(PersistentProjectileEntity arrow) {
+        WorldArrowState state = WorldArrowState.of(arrow.getWorld());
+        if (state != null) {
+            ArrowNBTData data = state.tracking.get(arrow.getUuid());
+            if (data == null && !state.hibernated.isEmpty()) {
+                // Entities can load ahead of their chunk's load event
+                data = state.hibernated.remove(arrow.getUuid(), state.now());
+                if (data != null) {
+                    track(state, data, null);
+                }
+            }
+            ((PersistentArrowAccess) arrow).persistentarrows$setTrackingData(data);
+        }
+    }
+    
+    /**
+     * Get stored NBT data for a tracked arrow by UUID, including arrows that are gone.
+     */
+    public static ArrowNBTData getTrackedArrowData(World world, UUID arrowId) {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state != null ? state.tracking.get(arrowId) : null;
     }
     
     /**
      * Check if an arrow is currently being tracked.
      */
-    public static boolean isTracked(UUID arrowId) {
-        return trackedArrows.containsKey(arrowId);
+    public static boolean isTracked(World world, UUID arrowId) {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state != null && state.tracking.isTracked(arrowId);
     }
     
     /**
      * Check if an arrow is a lingering potion arrow or tipped arrow with potion effects.
+     * Uses the verdict cached on the arrow by ArrowClassifier.
      */
     public static boolean isLingeringArrow(PersistentProjectileEntity arrow) {
-        // Check if it's a lingering potion item
-        if (arrow.getItemStack().getItem() instanceof LingeringPotionItem) {
-            return true;
+        return ArrowClassifier.isEligible(arrow);
+    }
+    
+    /**
+     * Check if a position is within a bubble column.
+     * Answered from the world's bubble column index without a block lookup.
+     */
+    private static boolean isInBubbleColumn(World world, double x, double y, double z) {
+        BubbleColumnIndex index = BubbleColumnIndex.of(world);
+        if (index != null) {
+            return index.contains(x, y, z);
         }
         
-        // Check if it's a tipped arrow with potion effects
-        if (arrow.getItemStack().getItem() instanceof net.minecraft.item.TippedArrowItem) {
-            // Tipped arrows with any potion effects should be considered "lingering" for our purposes
-            try {
-                // Use reflection to check for potion contents to avoid version-specific imports
-                return arrow.getItemStack().getComponents().toString().contains("potion_contents") ||
-                       arrow.getItemStack().getComponents().toString().contains("PotionContents");
-            } catch (Exception e) {
-                // Fallback: assume tipped arrows have potion contents
-                return true;
-            }
+        // No index attached (not a server world) - fall back to a block lookup
+        return world.getBlockState(BlockPos.ofFloored(x, y, z)).isOf(Blocks.BUBBLE_COLUMN);
+    }
+    
+    /**
+     * Put back arrow data read from the world save. Arrows in chunks that are not
+     * loaded go straight to the cold store.
+     */
+    static void restore(WorldArrowState state, ArrowNBTData arrowData) {
+        Vec3d pos = arrowData.getPosition();
+        ChunkPos chunk = new ChunkPos(BlockPos.ofFloored(pos));
+        if (!state.getWorld().isChunkLoaded(chunk.x, chunk.z)) {
+            state.hibernated.park(chunk.toLong(), arrowData, state.now());
+            state.getStorage().fileArrow(arrowData);
+            return;
         }
-        
-        return false;
+        track(state, arrowData, null);
     }
     
     /**
-     * Check if a position is within a bubble column.
+     * Store arrow data, attach it to the arrow and schedule its expiry on the world's clock.
+     * Expiry counts from when tracking started, so restored data keeps its age.
+     * Without an arrow at hand the loaded entity is looked up; arrows that load later
+     * pick the data up in onArrowLoad.
      */
-    private static boolean isInBubbleColumn(World world, Vec3d position) {
-        BlockPos blockPos = BlockPos.ofFloored(position);
-        BlockState blockState = world.getBlockState(blockPos);
+    private static void track(WorldArrowState state, ArrowNBTData arrowData, PersistentProjectileEntity arrow) {
+        UUID arrowId = arrowData.getArrowId();
+        if (arrow == null && state.getWorld().getEntity(arrowId) instanceof PersistentProjectileEntity loaded) {
+            arrow = loaded;
+        }
+        if (arrow != null) {
+            ((PersistentArrowAccess) arrow).persistentarrows$setTrackingData(arrowData);
+        }
         
-        // Check if the block is a bubble column
-        return blockState.isOf(Blocks.BUBBLE_COLUMN);
+        state.markDirty(arrowData.getPosition());
+        state.getStorage().fileArrow(arrowData);
+        Vec3d pos = arrow != null ? arrow.getPos() : arrowData.getPosition();
+        state.tracking.track(arrowData, pos.x, pos.y, pos.z, arrowData.getOwner());
     }
     
     /**
-     * Clean up old/invalid arrow data to prevent memory leaks.
+     * The oldest arrow of a chunk, owner or world that went over its cap was dropped.
+     * Its tracking ends without a respawn and the entity, if loaded, is discarded.
      */
-    public static void cleanupOldData() {
-        trackedArrows.entrySet().removeIf(entry -> {
-            ArrowNBTData data = entry.getValue();
-            if (!data.isValid()) {
-                PersistentArrowsDebugger.debug("Cleaned up old arrow data: " + entry.getKey());
-                return true;
-            }
-            return false;
-        });
+    private static void evict(WorldArrowState state, ArrowNBTData removed, CappedIndex.Scope scope) {
+        UUID arrowId = removed.getArrowId();
+        state.markDirty(removed.getPosition());
+        ArrowMetrics.ARROWS_UNTRACKED.increment();
+        ArrowImpactDetector.onArrowDespawn(state, arrowId);
+        if (state.getWorld().getEntity(arrowId) instanceof PersistentProjectileEntity arrow) {
+            arrow.discard();
+        }
+        ArrowMetrics.evictions(scope).increment();
+        state.journal.record(ArrowJournal.Event.EVICTED, arrowId, removed.getPosition(), scope.ordinal());
+        if (DebugCategory.PERSISTENCE_DECISIONS.isEnabled()) {
+            PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Evicted arrow {} at {} to stay under the {} cap",
+                arrowId, removed.getPosition(), scope.name().toLowerCase(Locale.ROOT));
+        }
+    }
+    
+    /**
+     * Remove arrow data (cancelling its expiry), without any respawn handling.
+     */
+    private static ArrowNBTData untrack(WorldArrowState state, UUID arrowId) {
+        ArrowNBTData removed = state.tracking.untrack(arrowId);
+        if (removed != null) {
+            state.markDirty(removed.getPosition());
+            ArrowMetrics.ARROWS_UNTRACKED.increment();
+        }
+        return removed;
+    }
+    
+    /**
+     * Arrow data that had been tracked for too long was dropped. Runs from the world's tracking clock.
+     */
+    private static void onExpired(WorldArrowState state, ArrowNBTData data) {
+        UUID arrowId = data.getArrowId();
+        state.markDirty(data.getPosition());
+        ArrowMetrics.ARROWS_EXPIRED.increment();
+        state.journal.record(ArrowJournal.Event.EXPIRED, arrowId, data.getPosition(), 0);
+        PersistentArrowsDebugger.trace(DebugCategory.VERBOSE, "Cleaned up old arrow data: {}", arrowId);
+    }
+    
+    /**
+     * Visit the tracked arrows within a radius of a position, at their last known
+     * positions. Allocates nothing beyond what the visitor does; returns the number visited.
+     */
+    public static int forEachTrackedNear(World world, Vec3d center, double radius, SpatialGrid.Visitor<UUID> visitor) {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state != null ? state.tracking.forEachInRadius(center.x, center.y, center.z, radius, visitor) : 0;
+    }
+    
+    /**
+     * Visit the tracked arrows inside a box, at their last known positions. Returns the number visited.
+     */
+    public static int forEachTrackedIn(World world, Box box, SpatialGrid.Visitor<UUID> visitor) {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state != null ? state.tracking.forEachInBox(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ, visitor) : 0;
+    }
+    
+    /**
+     * Get the number of currently tracked arrows in a world (for debugging).
+     */
+    public static int getTrackedArrowCount(World world) {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state != null ? state.tracking.size() : 0;
+    }
+    
+    /**
+     * Get the number of tracked arrows parked with unloaded chunks in a world.
+     */
+    public static int getHibernatedArrowCount(World world) {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state != null ? state.hibernated.size() : 0;
     }
     
     /**
-     * Get the number of currently tracked arrows (for debugging).
+     * Get the bytes held by a world's store of parked arrows, on or off the heap.
      */
-    public static int getTrackedArrowCount() {
-        return trackedArrows.size();
+    public static long getHibernatedStoreBytes(World world) {
+        WorldArrowState state = WorldArrowState.of(world);
+        return state != null ? state.hibernated.getFootprintBytes() : 0L;
     }
     
     /**
-     * Get all tracked arrow data (for debugging).
+     * Get all tracked arrow data in a world (for debugging). Copies the whole map;
+     * use forEachTrackedNear or forEachTrackedIn for lookups by area.
      */
-    public static Map<UUID, ArrowNBTData> getAllTrackedArrows() {
-        return new ConcurrentHashMap<>(trackedArrows);
+    public static Map<UUID, ArrowNBTData> getAllTrackedArrows(World world) {
+        WorldArrowState state = WorldArrowState.of(world);
+        Map<UUID, ArrowNBTData> arrows = new HashMap<>();
+        if (state != null) {
+            state.tracking.forEach(arrows::put);
+        }
+        return arrows;
     }
-}
\ No newline at end of file
+}
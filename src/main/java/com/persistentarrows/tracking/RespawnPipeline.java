@@ -0,0 +1,175 @@
+package com.persistentarrows.tracking;
+
+import com.persistentarrows.core.RespawnQueue;
+import com.persistentarrows.core.TrackerTrace;
+import com.persistentarrows.debug.DebugCategory;
+import com.persistentarrows.debug.PersistentArrowsDebugger;
+import com.persistentarrows.metrics.ArrowMetrics;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.UUID;
+
+/**
+ * A world's staged respawn queue.
+ * 
+ * Respawns requested during a tick are only collected, grouped by the chunk they
+ * land in. At the end of the world's tick they are committed chunk by chunk until
+ * the time budget runs out; whatever is left carries over to the next tick, so a
+ * large kill wave is spread out instead of landing in one tick.
+ * 
+ * Respawns aimed at a chunk that is not loaded are held until that chunk loads
+ * instead of forcing it to load. The staging itself is core's RespawnQueue, which
+ * the trace replayer runs too; this class carries the respawns out.
+ */
+public class RespawnPipeline implements RespawnQueue.Handler<RespawnPipeline.Job> {
+    
+    /**
+     * A pending respawn. Either carries the arrow's data already (the arrow is gone),
+     * or only its id, in which case the data is taken from tracking when committed.
+     */
+    static class Job {
+        final UUID arrowId;
+        final Vec3d position;
+        ArrowNBTData data;
+        
+        Job(UUID arrowId, Vec3d position, ArrowNBTData data) {
+            this.arrowId = arrowId;
+            this.position = position;
+            this.data = data;
+        }
+    }
+    
+    private final WorldArrowState state;
+    private final RespawnQueue<Job> queue = new RespawnQueue<>(RespawnPipeline::chunkOf, this);
+    
+    RespawnPipeline(WorldArrowState state) {
+        this.state = state;
+    }
+    
+    /**
+     * Queue the respawn of an arrow whose data has already left tracking.
+     */
+    void submit(ArrowNBTData data) {
+        enqueue(new Job(data.getArrowId(), data.getPosition(), data));
+    }
+    
+    /**
+     * Queue the respawn of a tracked arrow; its data is untracked when the respawn commits.
+     */
+    void submit(UUID arrowId, Vec3d position) {
+        enqueue(new Job(arrowId, position, null));
+    }
+    
+    private void enqueue(Job job) {
+        queue.add(job);
+        state.getStorage().fileRespawn(job);
+        state.markDirty(job.position);
+        ArrowMetrics.RESPAWNS_QUEUED.increment();
+    }
+    
+    /**
+     * Commit queued respawns until the budget is used up. At least one respawn is
+     * committed per call so the queue always drains eventually.
+     */
+    void commit(long budgetNanos) {
+        int committed = queue.commit(budgetNanos);
+        if (!queue.isEmpty()) {
+            if (DebugCategory.PERSISTENCE_DECISIONS.isEnabled()) {
+                PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Respawn budget used after {} respawns, {} deferred to next tick",
+                    committed, queue.size());
+            }
+        }
+    }
+    
+    @Override
+    public boolean isChunkLoaded(long chunk) {
+        return state.getWorld().isChunkLoaded(ChunkPos.getPackedX(chunk), ChunkPos.getPackedZ(chunk));
+    }
+    
+    @Override
+    public void held(Job job, long chunk) {
+        state.markDirty(job.position);
+        if (DebugCategory.PERSISTENCE_DECISIONS.isEnabled()) {
+            PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Holding respawn of {} until chunk {} loads",
+                job.arrowId, new ChunkPos(chunk));
+        }
+    }
+    
+    @Override
+    public void run(Job job) {
+        state.getStorage().unfileRespawn(job);
+        state.markDirty(job.position);
+        
+        ArrowNBTData data = job.data;
+        if (data == null) {
+            data = LingeringArrowTracker.untrackForRespawn(state, job.arrowId);
+            if (data == null) {
+                PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Cannot process respawn - no tracked data for: {}", job.arrowId);
+                ArrowMetrics.RESPAWNS_EXPIRED.increment();
+                return;
+            }
+        }
+        
+        try {
+            ArrowRespawner.respawnArrow(data, state.getWorld());
+            ArrowMetrics.RESPAWNS_COMPLETED.increment();
+        } catch (Exception e) {
+            PersistentArrowsDebugger.warn("Failed to process respawn request: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Requeue the respawns held for a chunk that just loaded.
+     */
+    void onChunkLoad(long chunk) {
+        queue.onChunkLoad(chunk);
+    }
+    
+    private static long chunkOf(Job job) {
+        return TrackerTrace.chunkOf(job.position.x, job.position.z);
+    }
+    
+    /**
+     * Respawns waiting to be committed.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    /**
+     * Respawns held until their chunk loads.
+     */
+    public int getWaitingCount() {
+        return queue.getWaitingCount();
+    }
+    
+    /**
+     * Largest queue depth seen since the world loaded.
+     */
+    public int getMaxQueueDepth() {
+        return queue.getMaxSize();
+    }
+    
+    public long getCommittedTotal() {
+        return queue.getCommittedTotal();
+    }
+    
+    /**
+     * Ticks that ran out of budget and carried work over.
+     */
+    public long getDeferredTicks() {
+        return queue.getDeferredCommits();
+    }
+    
+    /**
+     * Sum over all deferring ticks of the respawns carried over.
+     */
+    public long getDeferredJobsTotal() {
+        return queue.getDeferredJobsTotal();
+    }
+    
+    public long getLastCommitNanos() {
+        return queue.getLastCommitNanos();
+    }
+}
@@ -0,0 +1,209 @@
+package com.persistentarrows.tracking;
+
+import com.persistentarrows.PersistentArrows;
+import com.persistentarrows.access.ArrowWorldAccess;
+import com.persistentarrows.config.PersistentArrowsConfig;
+import com.persistentarrows.core.ExpiringMap;
+import com.persistentarrows.core.ReverseIndex;
+import com.persistentarrows.core.TickWheel;
+import com.persistentarrows.core.TrackerTrace;
+import com.persistentarrows.core.TrackingRules;
+import com.persistentarrows.debug.TraceRecorder;
+import com.persistentarrows.metrics.ArrowMetrics;
+import com.persistentarrows.util.ArrowPersistenceHelper;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import net.minecraft.world.dimension.DimensionType;
+
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * All arrow tracking state owned by a single ServerWorld.
+ * Attached to the world by ServerWorldMixin and only touched from that world's tick,
+ * so the maps need no locking. Work aimed at another world is handed over through
+ * that world's mailbox and picked up at the start of its next tick.
+ */
+public class WorldArrowState {
+    private final ServerWorld world;
+    
+    // Tick clock that owns expiry for everything below
+    private final TickWheel wheel = new TickWheel();
+    private final BubbleColumnIndex bubbleColumns = new BubbleColumnIndex();
+    
+    // Tracked arrows with their expiry, caps and positions, under the rules shared with the trace replayer
+    final TrackingRules<ArrowNBTData, UUID> tracking = new TrackingRules<>(wheel, LingeringArrowTracker.rulesListener(this));
+    // Item stacks shared by this world's tracked and parked arrows
+    final ArrowTemplates templates = new ArrowTemplates();
+    // Tracked arrows whose chunk is unloaded, kept off the wheel until it loads again
+    final HibernatedArrows hibernated;
+    // Reverse index of pendingHits: target UUID -> hits on that target, oldest first
+    final ReverseIndex<UUID, ArrowImpactDetector.ArrowHitData> hitsByTarget = new ReverseIndex<>();
+    final ExpiringMap<UUID, ArrowImpactDetector.ArrowHitData> pendingHits =
+        new ExpiringMap<>(wheel, (arrowId, hit) -> hitsByTarget.remove(hit.getTargetId(), hit));
+    private final ArrowPersistenceHelper.State persistence = new ArrowPersistenceHelper.State(wheel);
+    private final ArrowStateStorage storage = new ArrowStateStorage(this);
+    private final RespawnPipeline respawns = new RespawnPipeline(this);
+    final ArrowJournal journal = new ArrowJournal(this);
+    // Tracked arrow whose tick is running, so clouds it makes can be tagged (see CloudProvenance)
+    UUID tickingArrow;
+    // Loaded eligible arrows and attributed clouds, for the idle fast path (see ActiveArrows)
+    int eligibleArrows;
+    int attributedClouds;
+    private Path dataDirectory;
+    
+    // Messages posted by other worlds, drained by the owning world
+    private final Queue<Consumer<WorldArrowState>> mailbox = new ConcurrentLinkedQueue<>();
+    
+    public WorldArrowState(ServerWorld world) {
+        this.world = world;
+        this.hibernated = new HibernatedArrows(world, PersistentArrowsConfig.offHeapArrowStore);
+        tracking.setCaps(PersistentArrowsConfig.maxArrowsPerChunk, PersistentArrowsConfig.maxArrowsPerOwner, PersistentArrowsConfig.maxArrowsPerWorld);
+    }
+    
+    /**
+     * Get the state attached to a world, or null for worlds without one (client worlds).
+     */
+    public static WorldArrowState of(World world) {
+        return world instanceof ArrowWorldAccess access ? access.persistentarrows$getArrowState() : null;
+    }
+    
+    /**
+     * Run a tick of this world's tracking: deliver handoffs from other worlds,
+     * advance the expiry clock and commit queued respawns.
+     */
+    public void tick() {
+        Consumer<WorldArrowState> message;
+        while ((message = mailbox.poll()) != null) {
+            message.accept(this);
+        }
+        
+        // The clock only advances on ticks the world actually runs,
+        // so nothing ages under /tick freeze and everything ages faster under /tick sprint
+        boolean advance = world.getTickManager().shouldTick();
+        if (TraceRecorder.isRecording(world)) {
+            TraceRecorder.record(TrackerTrace.WORLD_TICK, advance ? 1 : 0, 0L, 0L, 0.0D, 0.0D, 0.0D);
+        }
+        if (advance) {
+            ArrowMetrics.CLEANUP_SWEEP.record(wheel.advance());
+        }
+        
+        RespawnScheduler.processPendingRespawns(this);
+    }
+    
+    /**
+     * Bring back what was waiting for a chunk: arrows parked when it unloaded and
+     * respawns aimed at it. Called from ServerChunkEvents.CHUNK_LOAD.
+     */
+    public void onChunkLoad(ChunkPos pos) {
+        long chunk = pos.toLong();
+        if (TraceRecorder.isRecording(world)) {
+            TraceRecorder.record(TrackerTrace.CHUNK_LOAD, 0, chunk, 0L, pos.getCenterX(), 0.0D, pos.getCenterZ());
+        }
+        if (!hibernated.isEmpty()) {
+            LingeringArrowTracker.wakeChunk(this, chunk);
+        }
+        respawns.onChunkLoad(chunk);
+    }
+    
+    /**
+     * Hand work over to this world. Safe to call from any thread; the message runs
+     * on this world's next tick.
+     */
+    public void post(Consumer<WorldArrowState> message) {
+        mailbox.offer(message);
+    }
+    
+    /**
+     * Current tracking tick of this world.
+     */
+    public long now() {
+        return wheel.now();
+    }
+    
+    /**
+     * Schedule an expiry action after the given number of ticks of this world.
+     */
+    public TickWheel.Timeout schedule(long delayTicks, Runnable action) {
+        return wheel.schedule(delayTicks, action);
+    }
+    
+    public ServerWorld getWorld() {
+        return world;
+    }
+    
+    public BubbleColumnIndex getBubbleColumns() {
+        return bubbleColumns;
+    }
+    
+    public ArrowPersistenceHelper.State getPersistence() {
+        return persistence;
+    }
+    
+    public RespawnPipeline getRespawns() {
+        return respawns;
+    }
+    
+    public ArrowStateStorage getStorage() {
+        return storage;
+    }
+    
+    public ArrowJournal getJournal() {
+        return journal;
+    }
+    
+    /**
+     * This world's folder for mod data, data/persistentarrows under the dimension's save folder.
+     */
+    Path getDataDirectory() {
+        if (dataDirectory == null) {
+            dataDirectory = DimensionType.getSaveDirectory(world.getRegistryKey(), world.getServer().getSavePath(WorldSavePath.ROOT))
+                .resolve("data").resolve(PersistentArrows.MOD_ID);
+        }
+        return dataDirectory;
+    }
+    
+    /**
+     * Save tracking state with the world, forcing the journal out too on a flush.
+     */
+    public void save(boolean flush) {
+        storage.save(flush);
+        if (flush) {
+            journal.flush();
+        }
+    }
+    
+    /**
+     * Release files held open by this world. Called when the server stops.
+     */
+    public void close() {
+        journal.close();
+    }
+    
+    /**
+     * Note that saved state around a position changed and must be written on the next save.
+     */
+    void markDirty(Vec3d pos) {
+        storage.markDirty(pos);
+    }
+    
+    /**
+     * Number of pending expiry timeouts (for debugging).
+     */
+    public int getPendingExpiryCount() {
+        return wheel.size();
+    }
+    
+    /**
+     * Number of distinct arrow stacks registered in this world (for debugging).
+     */
+    public int getTemplateCount() {
+        return templates.size();
+    }
+}
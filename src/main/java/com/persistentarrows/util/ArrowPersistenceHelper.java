@@ -1,54 +1,38 @@
 package com.persistentarrows.util;
 
+import com.persistentarrows.core.ExpiringMap;
+import com.persistentarrows.core.TickWheel;
+import com.persistentarrows.core.TrackingRules;
+import com.persistentarrows.debug.DebugCategory;
 import com.persistentarrows.debug.PersistentArrowsDebugger;
+import com.persistentarrows.tracking.ArrowImpactDetector;
+import com.persistentarrows.tracking.CloudProvenance;
+import com.persistentarrows.tracking.LingeringArrowTracker;
+import com.persistentarrows.tracking.WorldArrowState;
 import net.minecraft.entity.AreaEffectCloudEntity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.projectile.PersistentProjectileEntity;
-import net.minecraft.item.LingeringPotionItem;
+import net.minecraft.world.World;
 
-import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Helper class to manage arrow persistence based on Bedrock Edition behavior.
  * Tracks lingering arrows that cause instant kills and prevents their despawn.
+ * State is kept per world (see WorldArrowState).
  */
 public class ArrowPersistenceHelper {
-    // Simple tracking similar to Fire Arrows config approach
-    private static final Map<UUID, ArrowImpactData> trackedArrows = new ConcurrentHashMap<>();
-    private static final Set<UUID> persistentArrows = ConcurrentHashMap.newKeySet();
-    
-    public static class ArrowImpactData {
-        public final PersistentProjectileEntity arrow;
-        public final LivingEntity target;
-        public final long impactTime;
-        public boolean cloudCreated = false;
-        
-        public ArrowImpactData(PersistentProjectileEntity arrow, LivingEntity target) {
-            this.arrow = arrow;
-            this.target = target;
-            this.impactTime = System.currentTimeMillis();
-        }
-    }
     
     /**
-     * Track a lingering arrow impact for potential persistence.
-     * Called when a lingering arrow hits a living entity.
+     * Per-world persistence state, owned by WorldArrowState.
      */
-    public static void trackLingeringArrowImpact(PersistentProjectileEntity arrow, LivingEntity target) {
-        // Simple tracking like Fire Arrows checks blocks
-        boolean isLingeringArrow = arrow.getItemStack().getItem() instanceof LingeringPotionItem;
-        
-        PersistentArrowsDebugger.logArrowTracking(arrow, target, isLingeringArrow);
+    public static class State {
+        // Persistent arrow IDs; the value carries no meaning
+        private final ExpiringMap<UUID, Boolean> persistentArrows;
         
-        if (isLingeringArrow) {
-            trackedArrows.put(arrow.getUuid(), new ArrowImpactData(arrow, target));
-            PersistentArrowsDebugger.info("Arrow tracked for persistence monitoring");
+        public State(TickWheel wheel) {
+            this.persistentArrows = new ExpiringMap<>(wheel);
         }
-        
-        PersistentArrowsDebugger.logHelperState(trackedArrows.size(), persistentArrows.size());
     }
     
     /**
@@ -56,24 +40,32 @@ public class ArrowPersistenceHelper {
      * Called when a mob dies instantly from lingering potion damage.
      */
     public static void onInstantKill(LivingEntity target, AreaEffectCloudEntity cloud) {
-        PersistentArrowsDebugger.logInstantKill(target, cloud);
-        
-        // Find the arrow that created this lethal cloud
-        boolean arrowFound = false;
-        for (ArrowImpactData data : trackedArrows.values()) {
-            if (data.target == target && !data.target.isAlive()) {
-                persistentArrows.add(data.arrow.getUuid());
-                PersistentArrowsDebugger.info("Arrow " + data.arrow.getUuid() + " marked for persistence due to instant kill");
-                arrowFound = true;
-                break;
-            }
+        WorldArrowState worldState = WorldArrowState.of(target.getWorld());
+        if (worldState == null) {
+            return;
         }
+        State state = worldState.getPersistence();
+        
+        PersistentArrowsDebugger.logInstantKill(target, cloud);
         
-        if (!arrowFound) {
-            PersistentArrowsDebugger.warn("No tracked arrow found for instant kill target: " + target.getType().getTranslationKey());
+        // The cloud carries the arrow that created it
+        UUID arrowId = CloudProvenance.getSourceArrow(cloud);
+        if (arrowId != null) {
+            markPersistent(worldState, arrowId);
+            boolean tracked = ArrowImpactDetector.onArrowKill(target.getWorld(), arrowId, target);
+            PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "Arrow {} marked for persistence due to instant kill (tracked: {})", arrowId, tracked);
+        } else {
+            PersistentArrowsDebugger.trace(DebugCategory.PERSISTENCE_DECISIONS, "No tracked arrow found for instant kill target: {}", target.getType().getTranslationKey());
         }
         
-        PersistentArrowsDebugger.logHelperState(trackedArrows.size(), persistentArrows.size());
+        PersistentArrowsDebugger.logHelperState(LingeringArrowTracker.getTrackedArrowCount(target.getWorld()), state.persistentArrows.size());
+    }
+    
+    /**
+     * Add an arrow to the persistence list, refreshing its expiry if already present.
+     */
+    private static void markPersistent(WorldArrowState worldState, UUID arrowId) {
+        worldState.getPersistence().persistentArrows.put(arrowId, Boolean.TRUE, TrackingRules.PERSISTENT_TTL_TICKS);
     }
     
     /**
@@ -81,7 +73,8 @@ public class ArrowPersistenceHelper {
      * Used in arrow tick logic to prevent despawn.
      */
     public static boolean shouldArrowPersist(PersistentProjectileEntity arrow) {
-        boolean shouldPersist = persistentArrows.contains(arrow.getUuid());
+        WorldArrowState worldState = WorldArrowState.of(arrow.getWorld());
+        boolean shouldPersist = worldState != null && worldState.getPersistence().persistentArrows.containsKey(arrow.getUuid());
         String reason = shouldPersist ? "Arrow is marked for persistence" : "Arrow not in persistence list";
         
         PersistentArrowsDebugger.logPersistenceCheck(arrow, shouldPersist, reason);
@@ -93,31 +86,25 @@ public class ArrowPersistenceHelper {
      * Clean up tracking data for arrows that have been removed.
      * Cleanup similar to Fire Arrows config management.
      */
-    public static void cleanupArrowData(UUID arrowId) {
-        boolean wasTracked = trackedArrows.containsKey(arrowId);
-        boolean wasPersistent = persistentArrows.contains(arrowId);
-        
-        trackedArrows.remove(arrowId);
-        persistentArrows.remove(arrowId);
+    public static void cleanupArrowData(World world, UUID arrowId) {
+        WorldArrowState worldState = WorldArrowState.of(world);
+        if (worldState == null) {
+            return;
+        }
+        State state = worldState.getPersistence();
         
-        if (wasTracked || wasPersistent) {
+        if (state.persistentArrows.remove(arrowId) != null) {
             PersistentArrowsDebugger.logArrowCleanup(arrowId, "Manual cleanup - arrow removed/despawned");
         }
         
-        PersistentArrowsDebugger.logHelperState(trackedArrows.size(), persistentArrows.size());
-    }
-    
-    /**
-     * Get the number of currently tracked arrows (for debugging).
-     */
-    public static int getTrackedArrowCount() {
-        return trackedArrows.size();
+        PersistentArrowsDebugger.logHelperState(LingeringArrowTracker.getTrackedArrowCount(world), state.persistentArrows.size());
     }
     
     /**
-     * Get the number of persistent arrows (for debugging).
+     * Get the number of persistent arrows in a world (for debugging).
      */
-    public static int getPersistentArrowCount() {
-        return persistentArrows.size();
+    public static int getPersistentArrowCount(World world) {
+        WorldArrowState worldState = WorldArrowState.of(world);
+        return worldState != null ? worldState.getPersistence().persistentArrows.size() : 0;
     }
-}
\ No newline at end of file
+}